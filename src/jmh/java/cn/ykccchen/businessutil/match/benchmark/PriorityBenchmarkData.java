@@ -0,0 +1,163 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchFunction;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 基准测试数据构造，固定随机种子，保证每次运行的数据一致
+ * @date 2025/8/4 10:12
+ */
+public final class PriorityBenchmarkData {
+
+    /**
+     * 维度取值的基数，取值越少命中率越高
+     */
+    static final int KEY_CARDINALITY = 8;
+    /**
+     * 配置维度为空的概率
+     */
+    static final double NULL_PROBABILITY = 0.3;
+
+    private PriorityBenchmarkData() {
+    }
+
+    /**
+     * 维度函数类型
+     */
+    public enum FunctionType {
+        /**
+         * 全部为相等匹配
+         */
+        EQUAL,
+        /**
+         * 全部为 ofBoolean 匹配, 使用前缀判断
+         */
+        BOOLEAN,
+    }
+
+    /**
+     * 匹配方式
+     */
+    public enum EngineType {
+        /**
+         * 逐层匹配
+         */
+        LEVEL,
+        /**
+         * 树匹配
+         */
+        TREE,
+        /**
+         * 位图匹配
+         */
+        BITMAP,
+        /**
+         * 编译后的逐层匹配
+         */
+        COMPILED,
+        /**
+         * 字典编码匹配
+         */
+        DICTIONARY,
+    }
+
+    public static <S, C, K> PriorityFetcher<S, C, K> engine(PriorityFetcher<S, C, K> fetcher, EngineType engineType) {
+        switch (engineType) {
+            case TREE:
+                return fetcher.tree();
+            case BITMAP:
+                return fetcher.bitmap();
+            case COMPILED:
+                return fetcher.compile();
+            case DICTIONARY:
+                return fetcher.dictionary();
+            default:
+                return fetcher;
+        }
+    }
+
+    public static List<Map<String, String>> configs(int count, int dimensions, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, String>> configList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> config = new HashMap<>(dimensions * 2);
+            for (int d = 1; d <= dimensions; d++) {
+                if (random.nextDouble() >= NULL_PROBABILITY) {
+                    config.put("p" + d, "v" + d + "_" + random.nextInt(KEY_CARDINALITY));
+                }
+            }
+            config.put("id", "config_" + i);
+            configList.add(config);
+        }
+        return configList;
+    }
+
+    public static List<Map<String, String>> sources(int count, int dimensions, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, String>> sourceList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> source = new HashMap<>(dimensions * 2);
+            for (int d = 1; d <= dimensions; d++) {
+                source.put("p" + d, "v" + d + "_" + random.nextInt(KEY_CARDINALITY));
+            }
+            sourceList.add(source);
+        }
+        return sourceList;
+    }
+
+    /**
+     * 每个需求随机缺少 missing 个维度
+     */
+    public static List<Map<String, String>> sources(int count, int dimensions, int missing, long seed) {
+        List<Map<String, String>> sourceList = sources(count, dimensions, seed);
+        Random random = new Random(seed + 1);
+        for (Map<String, String> source : sourceList) {
+            for (int m = 0; m < missing; m++) {
+                source.remove("p" + (random.nextInt(dimensions) + 1));
+            }
+        }
+        return sourceList;
+    }
+
+    public static List<PriorityMatchFunction<Map<String, String>, Map<String, String>, String>> functions(int dimensions,
+                                                                                                         FunctionType functionType) {
+        List<PriorityMatchFunction<Map<String, String>, Map<String, String>, String>> functionList = new ArrayList<>(dimensions);
+        for (int d = 1; d <= dimensions; d++) {
+            String key = "p" + d;
+            if (functionType == FunctionType.BOOLEAN) {
+                functionList.add(PriorityMatchFunction.ofBoolean(key, d - 1, s -> s.get(key), c -> c.get(key),
+                        (sourceKey, configKey) -> sourceKey.startsWith(configKey)));
+            } else {
+                functionList.add(PriorityMatchFunction.of(key, d - 1, s -> s.get(key), c -> c.get(key)));
+            }
+        }
+        return functionList;
+    }
+
+    public static PriorityAssembler<Map<String, String>, Map<String, String>, String> assembler(List<Map<String, String>> configList,
+                                                                                                 int dimensions,
+                                                                                                 FunctionType functionType,
+                                                                                                 PriorityMode mode) {
+        PriorityAssembler<Map<String, String>, Map<String, String>, String> assembler = PriorityAssembler.from(
+                        new PriorityAssembler.TypeReference<Map<String, String>>() {
+                        }, new PriorityAssembler.TypeReference<Map<String, String>>() {
+                        }, new PriorityAssembler.TypeReference<String>() {
+                        })
+                .initConfig(configList)
+                .initPriorityHandler(mode);
+        for (PriorityMatchFunction<Map<String, String>, Map<String, String>, String> function : functions(dimensions, functionType)) {
+            assembler.add(function);
+        }
+        return assembler;
+    }
+}
@@ -0,0 +1,84 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchFunction;
+import cn.ykccchen.businessutil.match.PriorityMatchProcessor;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description PriorityFetcher 构建阶段基准: from / pruning / tree
+ * @date 2025/8/4 10:12
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityFetcherBuildBenchmark {
+
+    @Param({"2", "4", "8", "12"})
+    public int dimensions;
+
+    @Param({"1000", "10000"})
+    public int configCount;
+
+    @Param({"NUMBER_OF_MATCHES", "ABSOLUTE_VALUE"})
+    public PriorityMode mode;
+
+    @Param({"EQUAL", "BOOLEAN"})
+    public PriorityBenchmarkData.FunctionType functionType;
+
+    private List<Map<String, String>> configList;
+    private List<PriorityMatchFunction<Map<String, String>, Map<String, String>, String>> functionList;
+    private List<PriorityMatchProcessor<Map<String, String>, Map<String, String>, String>> processorList;
+
+    /**
+     * 已剪枝的对象，tree 可以重复构建
+     */
+    private PriorityFetcher<Map<String, String>, Map<String, String>, String> prunedFetcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configList = PriorityBenchmarkData.configs(configCount, dimensions, 7L);
+        functionList = PriorityBenchmarkData.functions(dimensions, functionType);
+        processorList = mode.initPriorityHandlerList(functionList);
+        prunedFetcher = PriorityFetcher.from(processorList, configList, functionList).pruning();
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> from() {
+        return PriorityFetcher.from(processorList, configList, functionList);
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> pruning(FreshFetcher freshFetcher) {
+        return freshFetcher.fetcher.pruning();
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> tree() {
+        return prunedFetcher.tree();
+    }
+
+    /**
+     * pruning 会修改处理器集合，每次调用前都需要新的未剪枝对象
+     */
+    @State(Scope.Thread)
+    public static class FreshFetcher {
+
+        private PriorityFetcher<Map<String, String>, Map<String, String>, String> fetcher;
+
+        @Setup(Level.Invocation)
+        public void setUp(PriorityFetcherBuildBenchmark benchmark) {
+            fetcher = PriorityFetcher.from(benchmark.processorList, benchmark.configList, benchmark.functionList);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description PriorityFetcher 构建后的常驻内存: 原优先级树、freeze() 后的平铺结构与 dictionary() 增加编码树副本后的对比
+ * 构建前后各做多次 GC, 取已用堆的差值作为 fetcher 常驻内存，配置对象本身不计入，结果见 heapBytes 列
+ * estimatedBytes 列为 stats() 的估算值，用于对照
+ * @date 2025/8/17 10:40
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PriorityFetcherHeapBenchmark {
+
+    @Param({"8"})
+    public int dimensions;
+
+    @Param({"50000"})
+    public int configCount;
+
+    @Param({"tree", "frozen", "dictionary"})
+    public String layout;
+
+    private PriorityAssembler<Map<String, String>, Map<String, String>, String> assembler;
+
+    /**
+     * 持有构建结果，保证统计时不被回收
+     */
+    private PriorityFetcher<Map<String, String>, Map<String, String>, String> fetcher;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounter {
+        public long heapBytes;
+        public long estimatedBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Map<String, String>> configList = PriorityBenchmarkData.configs(configCount, dimensions, 7L);
+        assembler = PriorityBenchmarkData.assembler(configList, dimensions, PriorityBenchmarkData.FunctionType.EQUAL,
+                PriorityMode.NUMBER_OF_MATCHES);
+    }
+
+    @Setup(Level.Iteration)
+    public void release() {
+        fetcher = null;
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> build(HeapCounter counter) {
+        long before = usedHeap();
+        fetcher = assembler.create();
+        if ("frozen".equals(layout)) {
+            fetcher.freeze();
+        } else if ("dictionary".equals(layout)) {
+            fetcher.dictionary();
+        }
+        counter.heapBytes = usedHeap() - before;
+        counter.estimatedBytes = fetcher.stats().getEstimatedHeapBytes();
+        return fetcher;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,85 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description PriorityFetcher 匹配阶段基准: match(S) / match(S, true)
+ * 每次调用取下一个需求对象，避免同一对象被 JIT 特殊优化，分配情况可以加 -prof gc 查看
+ * @date 2025/8/4 10:12
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriorityFetcherMatchBenchmark {
+
+    private static final int SOURCE_SIZE = 1024;
+
+    @Param({"2", "4", "8", "12"})
+    public int dimensions;
+
+    @Param({"1000", "10000"})
+    public int configCount;
+
+    @Param({"NUMBER_OF_MATCHES", "ABSOLUTE_VALUE"})
+    public PriorityMode mode;
+
+    @Param({"EQUAL", "BOOLEAN"})
+    public PriorityBenchmarkData.FunctionType functionType;
+
+    @Param({"LEVEL", "TREE", "BITMAP", "COMPILED", "DICTIONARY"})
+    public PriorityBenchmarkData.EngineType engineType;
+
+    /**
+     * 是否开启命中统计，默认关闭，对比计数开销时通过 -p recordHits=false,true 单独运行
+     */
+    @Param({"false"})
+    public boolean recordHits;
+
+    /**
+     * 每个需求随机缺少的维度数量
+     */
+    @Param({"0"})
+    public int missingDimensions;
+
+    private PriorityFetcher<Map<String, String>, Map<String, String>, String> fetcher;
+    private Map<String, String>[] sources;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        List<Map<String, String>> configList = PriorityBenchmarkData.configs(configCount, dimensions, 7L);
+        fetcher = PriorityBenchmarkData.assembler(configList, dimensions, functionType, mode).create();
+        PriorityBenchmarkData.engine(fetcher, engineType);
+        fetcher.recordHits(recordHits);
+        sources = PriorityBenchmarkData.sources(SOURCE_SIZE, dimensions, missingDimensions, 11L).toArray(new Map[0]);
+    }
+
+    private Map<String, String> nextSource() {
+        Map<String, String> source = sources[cursor];
+        cursor = (cursor + 1) & (SOURCE_SIZE - 1);
+        return source;
+    }
+
+    @Benchmark
+    public PriorityMatchResult<List<Map<String, String>>> match() {
+        return fetcher.match(nextSource());
+    }
+
+    @Benchmark
+    public List<PriorityMatchResult<List<Map<String, String>>>> matchAllPriority() {
+        return fetcher.match(nextSource(), true);
+    }
+}
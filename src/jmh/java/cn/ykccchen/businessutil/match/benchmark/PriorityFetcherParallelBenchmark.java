@@ -0,0 +1,65 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 并行批量匹配基准，按并行度对比耗时，观察多核扩展情况
+ * 8 个维度的取值组合远多于需求数量，key 向量去重基本不生效，耗时主要是匹配本身
+ * @date 2025/8/6 09:40
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityFetcherParallelBenchmark {
+
+    private static final int SOURCE_SIZE = 100_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int parallelism;
+
+    @Param({"8"})
+    public int dimensions;
+
+    @Param({"10000"})
+    public int configCount;
+
+    @Param({"LEVEL", "TREE", "BITMAP", "COMPILED", "DICTIONARY"})
+    public PriorityBenchmarkData.EngineType engineType;
+
+    private PriorityFetcher<Map<String, String>, Map<String, String>, String> fetcher;
+    private List<Map<String, String>> sourceList;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Map<String, String>> configList = PriorityBenchmarkData.configs(configCount, dimensions, 7L);
+        fetcher = PriorityBenchmarkData.assembler(configList, dimensions,
+                PriorityBenchmarkData.FunctionType.EQUAL, PriorityMode.NUMBER_OF_MATCHES).create();
+        PriorityBenchmarkData.engine(fetcher, engineType);
+        sourceList = PriorityBenchmarkData.sources(SOURCE_SIZE, dimensions, 11L);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<List<PriorityMatchResult<List<Map<String, String>>>>> matchAllParallel() {
+        return fetcher.matchAllParallel(sourceList, true, pool);
+    }
+}
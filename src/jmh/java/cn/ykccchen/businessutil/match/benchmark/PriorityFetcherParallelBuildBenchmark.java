@@ -0,0 +1,67 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchFunction;
+import cn.ykccchen.businessutil.match.PriorityMatchProcessor;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 并行构建基准，按并行度对比 fromParallel 与单线程 from 的耗时，观察多核扩展情况
+ * @date 2025/8/23 10:00
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PriorityFetcherParallelBuildBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int parallelism;
+
+    @Param({"8"})
+    public int dimensions;
+
+    @Param({"200000"})
+    public int configCount;
+
+    @Param({"false", "true"})
+    public boolean dictionary;
+
+    private List<Map<String, String>> configList;
+    private List<PriorityMatchFunction<Map<String, String>, Map<String, String>, String>> functionList;
+    private List<PriorityMatchProcessor<Map<String, String>, Map<String, String>, String>> processorList;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configList = PriorityBenchmarkData.configs(configCount, dimensions, 7L);
+        functionList = PriorityBenchmarkData.functions(dimensions, PriorityBenchmarkData.FunctionType.EQUAL);
+        processorList = PriorityMode.NUMBER_OF_MATCHES.initPriorityHandlerList(functionList);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> from() {
+        return PriorityFetcher.from(processorList, configList, functionList, dictionary);
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> fromParallel() {
+        return PriorityFetcher.fromParallel(processorList, configList, functionList, dictionary, pool);
+    }
+}
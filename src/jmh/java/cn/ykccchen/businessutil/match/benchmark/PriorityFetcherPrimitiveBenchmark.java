@@ -0,0 +1,92 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+import cn.ykccchen.businessutil.match.primitive.IntPriorityAssembler;
+import cn.ykccchen.businessutil.match.primitive.IntPriorityFetcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description int 维度key匹配基准: PriorityFetcher(Integer key) 与 IntPriorityFetcher 对比
+ * 维度为数字id, 0 为空维度，分配情况可以加 -prof gc 查看
+ * @date 2025/8/15 10:30
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriorityFetcherPrimitiveBenchmark {
+
+    private static final int SOURCE_SIZE = 1024;
+
+    @Param({"4", "8"})
+    public int dimensions;
+
+    @Param({"10000"})
+    public int configCount;
+
+    private PriorityFetcher<int[], int[], Integer> boxedFetcher;
+    private IntPriorityFetcher<int[], int[]> intFetcher;
+    private int[][] sources;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7L);
+        List<int[]> configList = new ArrayList<>(configCount);
+        for (int i = 0; i < configCount; i++) {
+            int[] config = new int[dimensions];
+            for (int d = 0; d < dimensions; d++) {
+                config[d] = random.nextDouble() < PriorityBenchmarkData.NULL_PROBABILITY
+                        ? 0 : 1 + random.nextInt(PriorityBenchmarkData.KEY_CARDINALITY);
+            }
+            configList.add(config);
+        }
+        PriorityAssembler<int[], int[], Integer> assembler = PriorityAssembler.from(int[].class, int[].class, Integer.class)
+                .initConfig(configList);
+        IntPriorityAssembler<int[], int[]> intAssembler = PriorityAssembler.fromInt(int[].class, int[].class)
+                .initConfig(configList)
+                .initEmptyKey(0);
+        for (int d = 0; d < dimensions; d++) {
+            int index = d;
+            assembler.addPriorityMatchFunction("p" + d, s -> s[index], c -> c[index] == 0 ? null : c[index]);
+            intAssembler.addPriorityMatchFunction("p" + d, s -> s[index], c -> c[index]);
+        }
+        boxedFetcher = assembler.create();
+        intFetcher = intAssembler.create();
+
+        random = new Random(11L);
+        sources = new int[SOURCE_SIZE][dimensions];
+        for (int[] source : sources) {
+            for (int d = 0; d < dimensions; d++) {
+                source[d] = 1 + random.nextInt(PriorityBenchmarkData.KEY_CARDINALITY);
+            }
+        }
+    }
+
+    private int[] nextSource() {
+        int[] source = sources[cursor];
+        cursor = (cursor + 1) & (SOURCE_SIZE - 1);
+        return source;
+    }
+
+    @Benchmark
+    public List<PriorityMatchResult<List<int[]>>> boxedMatchAllPriority() {
+        return boxedFetcher.match(nextSource(), true);
+    }
+
+    @Benchmark
+    public List<PriorityMatchResult<List<int[]>>> intMatchAllPriority() {
+        return intFetcher.match(nextSource(), true);
+    }
+}
@@ -0,0 +1,80 @@
+package cn.ykccchen.businessutil.match.benchmark;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 全量配置少量变化时的重建基准: rebuildFrom 对比完整 create，配合 -prof gc 观察分配
+ * @date 2025/8/20 10:30
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityFetcherRebuildBenchmark {
+
+    @Param({"8"})
+    public int dimensions;
+
+    @Param({"50000"})
+    public int configCount;
+
+    /**
+     * 变化的配置占比，一半修改原配置的id，一半替换为新的维度组合
+     */
+    @Param({"0.01"})
+    public double changeRatio;
+
+    private PriorityAssembler<Map<String, String>, Map<String, String>, String> assembler;
+
+    private PriorityFetcher<Map<String, String>, Map<String, String>, String> fetcher;
+
+    private List<Map<String, String>> newConfigList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Map<String, String>> configList = PriorityBenchmarkData.configs(configCount, dimensions, 7L);
+        fetcher = PriorityBenchmarkData.assembler(configList, dimensions, PriorityBenchmarkData.FunctionType.EQUAL,
+                PriorityMode.NUMBER_OF_MATCHES).create();
+
+        List<Map<String, String>> replaceList = PriorityBenchmarkData.configs(configCount, dimensions, 11L);
+        newConfigList = new ArrayList<>(configList);
+        Random random = new Random(13L);
+        int changeCount = (int) (configCount * changeRatio);
+        for (int i = 0; i < changeCount; i++) {
+            int index = random.nextInt(configCount);
+            if ((i & 1) == 0) {
+                Map<String, String> config = new HashMap<>(newConfigList.get(index));
+                config.put("id", "changed_" + i);
+                newConfigList.set(index, config);
+            } else {
+                newConfigList.set(index, replaceList.get(index));
+            }
+        }
+        assembler = PriorityBenchmarkData.assembler(newConfigList, dimensions, PriorityBenchmarkData.FunctionType.EQUAL,
+                PriorityMode.NUMBER_OF_MATCHES);
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> create() {
+        return assembler.create();
+    }
+
+    @Benchmark
+    public PriorityFetcher<Map<String, String>, Map<String, String>, String> rebuildFrom() {
+        return fetcher.rebuildFrom(newConfigList);
+    }
+}
@@ -1,13 +1,18 @@
 package cn.ykccchen.businessutil.match;
 
 import cn.ykccchen.businessutil.match.handler.PriorityHandler;
+import cn.ykccchen.businessutil.match.handler.PriorityMatchEngine;
 import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import cn.ykccchen.businessutil.match.primitive.IntPriorityAssembler;
+import cn.ykccchen.businessutil.match.primitive.LongPriorityAssembler;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * @author ykccchen
@@ -19,7 +24,14 @@ public class PriorityAssembler<S, C, K> {
 
     private final List<PriorityMatchFunction<S, C, K>> priorityList;
     private List<C> configList;
+
+    /**
+     * 流式读取的配置，只能创建一次，创建时取出后不再持有
+     */
+    private Iterator<? extends C> configIterator;
     private PriorityHandler priorityHandler;
+    private PriorityMatchEngine matchEngine = PriorityMatchEngine.LEVEL;
+    private ForkJoinPool buildPool;
 
     private PriorityAssembler(PriorityHandler priorityHandler) {
         this.priorityList = new ArrayList<>();
@@ -38,16 +50,87 @@ public class PriorityAssembler<S, C, K> {
         return new PriorityAssembler<>(PriorityMode.NUMBER_OF_MATCHES);
     }
 
+    /**
+     * 维度key全部为int的相等匹配，树的每层使用int map存储，匹配过程没有装箱
+     */
+    public static <S, C> IntPriorityAssembler<S, C> fromInt(Class<S> s,
+                                                            Class<C> c) {
+        return IntPriorityAssembler.from(s, c);
+    }
+
+    public static <S, C> IntPriorityAssembler<S, C> fromInt(TypeReference<S> s,
+                                                            TypeReference<C> c) {
+        return IntPriorityAssembler.from(s, c);
+    }
+
+    /**
+     * 维度key全部为long的相等匹配，树的每层使用long map存储，匹配过程没有装箱
+     */
+    public static <S, C> LongPriorityAssembler<S, C> fromLong(Class<S> s,
+                                                              Class<C> c) {
+        return LongPriorityAssembler.from(s, c);
+    }
+
+    public static <S, C> LongPriorityAssembler<S, C> fromLong(TypeReference<S> s,
+                                                              TypeReference<C> c) {
+        return LongPriorityAssembler.from(s, c);
+    }
+
     public PriorityAssembler<S, C, K> initConfig(List<C> configList) {
         this.configList = configList;
+        this.configIterator = null;
+        return this;
+    }
+
+    /**
+     * 流式加载配置，create() 时边读取边构建，不需要先把全部配置加载为集合
+     * 迭代器只能读取一次，只能 create() 一次，再次创建前需要重新设置配置
+     *
+     * @param configIterator 配置迭代器，读取顺序即配置顺序
+     */
+    public PriorityAssembler<S, C, K> initConfig(Iterator<? extends C> configIterator) {
+        this.configIterator = Objects.requireNonNull(configIterator, "PriorityAssembler config iterator cannot be null!");
+        this.configList = null;
         return this;
     }
 
+    /**
+     * 流式加载配置，见 initConfig(Iterator)
+     */
+    public PriorityAssembler<S, C, K> initConfig(Spliterator<? extends C> configSpliterator) {
+        Objects.requireNonNull(configSpliterator, "PriorityAssembler config spliterator cannot be null!");
+        return initConfig(Spliterators.iterator(configSpliterator));
+    }
+
+    /**
+     * 流式加载配置，见 initConfig(Iterator)
+     * 装配器不会关闭流，基于文件等资源的流需要调用方在 create() 之后关闭
+     */
+    public PriorityAssembler<S, C, K> initConfig(Stream<? extends C> configStream) {
+        Objects.requireNonNull(configStream, "PriorityAssembler config stream cannot be null!");
+        return initConfig(configStream.iterator());
+    }
+
     public PriorityAssembler<S, C, K> initPriorityHandler(PriorityHandler priorityHandler) {
         this.priorityHandler = priorityHandler;
         return this;
     }
 
+    public PriorityAssembler<S, C, K> initMatchEngine(PriorityMatchEngine matchEngine) {
+        this.matchEngine = Objects.requireNonNull(matchEngine, "PriorityAssembler matchEngine cannot be null!");
+        return this;
+    }
+
+    /**
+     * 在线程池上并行构建优先级树，配置量大时缩短启动与全量重建的耗时，见 PriorityFetcher.fromParallel
+     *
+     * @param buildPool 构建使用的线程池，为null时单线程构建
+     */
+    public PriorityAssembler<S, C, K> initBuildPool(ForkJoinPool buildPool) {
+        this.buildPool = buildPool;
+        return this;
+    }
+
     public PriorityAssembler<S, C, K> add(PriorityMatchFunction<S, C, K> matchFunction) {
         this.priorityList.add(matchFunction);
         return this;
@@ -83,14 +166,83 @@ public class PriorityAssembler<S, C, K> {
         return addPriorityMatchFunction(null, sourceGetter, configGetter, keyMatchFunction);
     }
 
+    /**
+     * 区间匹配维度，配置key为区间，需求key为区间端点同类型的值
+     *
+     * @param minGetter 区间下界，null为无下界
+     * @param maxGetter 区间上界，null为无上界
+     */
+    public <T extends Comparable<? super T>> PriorityAssembler<S, C, K> addRangePriorityMatchFunction(String name,
+                                                                                                   Function<S, K> sourceGetter,
+                                                                                                   Function<C, K> configGetter,
+                                                                                                   Function<K, T> minGetter,
+                                                                                                   Function<K, T> maxGetter) {
+        this.priorityList.add(PriorityMatchFunction.ofRange(name, priorityList.size(), sourceGetter, configGetter, minGetter, maxGetter));
+        return this;
+    }
+
+    public <T extends Comparable<? super T>> PriorityAssembler<S, C, K> addRangePriorityMatchFunction(Function<S, K> sourceGetter,
+                                                                                                   Function<C, K> configGetter,
+                                                                                                   Function<K, T> minGetter,
+                                                                                                   Function<K, T> maxGetter) {
+        return addRangePriorityMatchFunction(null, sourceGetter, configGetter, minGetter, maxGetter);
+    }
+
+    public PriorityAssembler<S, C, K> addPrefixPriorityMatchFunction(String name,
+                                                                     Function<S, K> sourceGetter,
+                                                                     Function<C, K> configGetter) {
+        this.priorityList.add(PriorityMatchFunction.ofPrefix(name, priorityList.size(), sourceGetter, configGetter));
+        return this;
+    }
+
+    public PriorityAssembler<S, C, K> addPrefixPriorityMatchFunction(Function<S, K> sourceGetter,
+                                                                     Function<C, K> configGetter) {
+        return addPrefixPriorityMatchFunction(null, sourceGetter, configGetter);
+    }
+
+    public PriorityAssembler<S, C, K> addRegexPriorityMatchFunction(String name,
+                                                                    Function<S, K> sourceGetter,
+                                                                    Function<C, K> configGetter) {
+        this.priorityList.add(PriorityMatchFunction.ofRegex(name, priorityList.size(), sourceGetter, configGetter));
+        return this;
+    }
+
+    public PriorityAssembler<S, C, K> addRegexPriorityMatchFunction(Function<S, K> sourceGetter,
+                                                                    Function<C, K> configGetter) {
+        return addRegexPriorityMatchFunction(null, sourceGetter, configGetter);
+    }
+
     public PriorityFetcher<S, C, K> create() {
-        if (configList == null) {
+        if (configList == null && configIterator == null) {
             throw new NullPointerException("PriorityAssembler Config list cannot be null!");
         }
         List<PriorityMatchProcessor<S, C, K>> processorList = priorityHandler.initPriorityHandlerList(priorityList);
-        return PriorityFetcher
-                .from(processorList, configList, priorityList)
-                .pruning();
+        boolean dictionary = matchEngine == PriorityMatchEngine.DICTIONARY;
+        PriorityFetcher<S, C, K> priorityFetcher;
+        if (configList != null) {
+            priorityFetcher = buildPool == null
+                    ? PriorityFetcher.from(processorList, configList, priorityList, dictionary)
+                    : PriorityFetcher.fromParallel(processorList, configList, priorityList, dictionary, buildPool);
+        } else {
+            Iterator<? extends C> configIterator = this.configIterator;
+            this.configIterator = null;
+            priorityFetcher = buildPool == null
+                    ? PriorityFetcher.from(processorList, configIterator, priorityList, dictionary)
+                    : PriorityFetcher.fromParallel(processorList, configIterator, priorityList, dictionary, buildPool);
+        }
+        priorityFetcher.pruning();
+        switch (matchEngine) {
+            case TREE:
+                return priorityFetcher.tree();
+            case BITMAP:
+                return priorityFetcher.bitmap();
+            case COMPILED:
+                return priorityFetcher.compile();
+            case DICTIONARY:
+                return priorityFetcher.dictionary();
+            default:
+                return priorityFetcher;
+        }
     }
 
     public abstract static class TypeReference<T> {
@@ -0,0 +1,237 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 不可变压缩位图，存放叶子序号
+ * 元素少时使用有序 int 数组(稀疏)，超过全集的 1/32 时使用 long 数组(稠密)，两种形式的内存占用在该阈值处持平
+ * 交集、并集的结果重新按元素数量选择形式
+ * @date 2025/8/13 10:10
+ */
+final class PriorityBitmap {
+
+    static final PriorityBitmap EMPTY = new PriorityBitmap(new int[0], null, 0, 0);
+
+    /**
+     * 稀疏形式，有序，稠密形式为null
+     */
+    private final int[] values;
+    /**
+     * 稠密形式，稀疏形式为null
+     */
+    private final long[] words;
+    private final int cardinality;
+    /**
+     * 全集大小，元素取值范围 [0, universe)
+     */
+    private final int universe;
+
+    private PriorityBitmap(int[] values, long[] words, int cardinality, int universe) {
+        this.values = values;
+        this.words = words;
+        this.cardinality = cardinality;
+        this.universe = universe;
+    }
+
+    /**
+     * 基于有序不重复的元素创建位图
+     *
+     * @param sortedValues 有序不重复元素
+     * @param size         元素数量
+     * @param universe     全集大小
+     * @return 位图
+     */
+    static PriorityBitmap of(int[] sortedValues, int size, int universe) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        if (!isDense(size, universe)) {
+            return new PriorityBitmap(Arrays.copyOf(sortedValues, size), null, size, universe);
+        }
+        long[] words = new long[wordSize(universe)];
+        for (int i = 0; i < size; i++) {
+            words[sortedValues[i] >>> 6] |= 1L << sortedValues[i];
+        }
+        return new PriorityBitmap(null, words, size, universe);
+    }
+
+    /**
+     * 多个位图的并集
+     *
+     * @param bitmapList 位图集合，全集大小一致
+     * @param universe   全集大小
+     * @return 并集
+     */
+    static PriorityBitmap or(List<PriorityBitmap> bitmapList, int universe) {
+        if (bitmapList.isEmpty()) {
+            return EMPTY;
+        }
+        if (bitmapList.size() == 1) {
+            return bitmapList.get(0);
+        }
+        long total = 0;
+        for (PriorityBitmap bitmap : bitmapList) {
+            total += bitmap.cardinality;
+        }
+        if (!isDense(total, universe)) {
+            // 稠密位图的元素数量一定超过阈值，走到这里全部是稀疏形式
+            int[] merge = new int[(int) total];
+            int index = 0;
+            for (PriorityBitmap bitmap : bitmapList) {
+                System.arraycopy(bitmap.values, 0, merge, index, bitmap.cardinality);
+                index += bitmap.cardinality;
+            }
+            Arrays.sort(merge);
+            int size = 0;
+            for (int i = 0; i < merge.length; i++) {
+                if (i == 0 || merge[i] != merge[i - 1]) {
+                    merge[size++] = merge[i];
+                }
+            }
+            return of(merge, size, universe);
+        }
+        long[] words = new long[wordSize(universe)];
+        for (PriorityBitmap bitmap : bitmapList) {
+            if (bitmap.words != null) {
+                for (int i = 0; i < words.length; i++) {
+                    words[i] |= bitmap.words[i];
+                }
+            } else {
+                for (int i = 0; i < bitmap.cardinality; i++) {
+                    words[bitmap.values[i] >>> 6] |= 1L << bitmap.values[i];
+                }
+            }
+        }
+        return ofWords(words, universe);
+    }
+
+    /**
+     * 交集
+     *
+     * @param other 位图，全集大小一致
+     * @return 交集
+     */
+    PriorityBitmap and(PriorityBitmap other) {
+        if (cardinality == 0 || other.cardinality == 0) {
+            return EMPTY;
+        }
+        if (words != null && other.words != null) {
+            long[] andWords = new long[words.length];
+            for (int i = 0; i < words.length; i++) {
+                andWords[i] = words[i] & other.words[i];
+            }
+            return ofWords(andWords, universe);
+        }
+        if (values != null && other.values != null) {
+            int[] small = cardinality <= other.cardinality ? values : other.values;
+            int[] large = small == values ? other.values : values;
+            int[] andValues = new int[Math.min(cardinality, other.cardinality)];
+            int size = 0;
+            int j = 0;
+            // 数量相差较大时二分查找，否则顺序归并
+            boolean search = large.length > (small.length << 3);
+            for (int value : small) {
+                if (search) {
+                    int index = Arrays.binarySearch(large, j, large.length, value);
+                    j = index >= 0 ? index : -index - 1;
+                } else {
+                    while (j < large.length && large[j] < value) {
+                        j++;
+                    }
+                }
+                if (j == large.length) {
+                    break;
+                }
+                if (large[j] == value) {
+                    andValues[size++] = value;
+                }
+            }
+            return of(andValues, size, universe);
+        }
+        PriorityBitmap sparse = values != null ? this : other;
+        PriorityBitmap dense = sparse == this ? other : this;
+        int[] andValues = new int[sparse.cardinality];
+        int size = 0;
+        for (int value : sparse.values) {
+            if (dense.contains(value)) {
+                andValues[size++] = value;
+            }
+        }
+        return of(andValues, size, universe);
+    }
+
+    boolean contains(int value) {
+        if (words != null) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+        return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * 全部元素，升序
+     */
+    int[] toArray() {
+        if (values != null) {
+            return values;
+        }
+        int[] arr = new int[cardinality];
+        int index = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                arr[index++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * 最小元素，空位图为-1
+     */
+    int first() {
+        if (cardinality == 0) {
+            return -1;
+        }
+        if (values != null) {
+            return values[0];
+        }
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(words[i]);
+            }
+        }
+        return -1;
+    }
+
+    private static PriorityBitmap ofWords(long[] words, int universe) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        if (cardinality == 0) {
+            return EMPTY;
+        }
+        PriorityBitmap bitmap = new PriorityBitmap(null, words, cardinality, universe);
+        return isDense(cardinality, universe) ? bitmap : new PriorityBitmap(bitmap.toArray(), null, cardinality, universe);
+    }
+
+    private static boolean isDense(long cardinality, int universe) {
+        return cardinality > (universe >>> 5);
+    }
+
+    private static int wordSize(int universe) {
+        return (universe + 63) >>> 6;
+    }
+}
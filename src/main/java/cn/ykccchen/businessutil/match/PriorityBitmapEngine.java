@@ -0,0 +1,374 @@
+package cn.ykccchen.businessutil.match;
+
+import cn.ykccchen.businessutil.match.handler.PriorityMatchType;
+import cn.ykccchen.businessutil.match.index.PriorityKeyIndex;
+import cn.ykccchen.businessutil.match.index.PriorityKeyIndexFactory;
+
+import java.util.*;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 位图匹配引擎，构建后只读
+ * 每个叶子(同一Processor下维度key完全相同的配置集)分配一个序号，按维度建立 key -> 叶子序号位图，按Processor建立叶子序号位图
+ * 匹配时每个维度只匹配一次全局key(BOOLEAN/区间/前缀/正则同样适用)，得到的位图与Processor位图求交集，不再逐个子树查找
+ * 叶子序号按优先级树深度优先的顺序分配，同一Processor内序号顺序即逐层匹配的顺序，结果与 matchLevel 一致
+ * 前缀维度按前缀长度排序，含前缀维度的Processor命中后单独排序
+ * @date 2025/8/13 10:10
+ */
+final class PriorityBitmapEngine<S, C, K> {
+
+    /**
+     * Processor叶子数量不超过该值时逐个判断叶子，不做位图交集
+     */
+    private static final int PROBE_SIZE = 64;
+
+    private static final int[] EMPTY_ORDINALS = new int[0];
+
+    /**
+     * 下标即优先级
+     */
+    private final PriorityMatchFunction<S, C, K>[] priorityFunctions;
+
+    private final List<PriorityMatchProcessor<S, C, K>> processorList;
+
+    /**
+     * 与 processorList 下标对齐
+     */
+    private final PriorityBitmap[] processorBitmaps;
+
+    /**
+     * 与 processorList 下标对齐，含前缀维度时为true, 命中结果需要重新排序
+     */
+    private final boolean[] processorSorted;
+
+    /**
+     * 与 processorList 下标对齐，相等匹配Processor的布隆过滤器，先探测再求交集
+     */
+    private final PriorityBloomFilter[] processorBloomFilters;
+
+    /**
+     * 下标为维度优先级, key -> 叶子序号位图
+     */
+    private final Map<K, PriorityBitmap>[] keyBitmaps;
+
+    /**
+     * 下标为维度优先级, 存在索引工厂的维度基于全局key构建索引
+     */
+    private final PriorityKeyIndex<K>[] keyIndexes;
+
+    private final PriorityMatchResult<List<C>>[] results;
+
+    /**
+     * 含前缀维度的叶子记录路径上的key与key在节点中的位置，用于排序，其余为null
+     */
+    private final Object[][] entryKeys;
+    private final int[][] entryRanks;
+
+    @SuppressWarnings("unchecked")
+    private PriorityBitmapEngine(Builder<S, C, K> builder,
+                                 List<PriorityMatchProcessor<S, C, K>> processorList,
+                                 PriorityBloomFilter[] processorBloomFilters) {
+        int universe = builder.resultList.size();
+        int prioritySize = builder.priorityFunctions.length;
+        this.priorityFunctions = builder.priorityFunctions;
+        this.processorList = processorList;
+        this.processorBloomFilters = processorBloomFilters;
+        this.results = (PriorityMatchResult<List<C>>[]) builder.resultList.toArray(new PriorityMatchResult<?>[0]);
+        this.entryKeys = builder.entryKeyList.toArray(new Object[0][]);
+        this.entryRanks = builder.entryRankList.toArray(new int[0][]);
+        this.keyBitmaps = (Map<K, PriorityBitmap>[]) new Map<?, ?>[prioritySize];
+        this.keyIndexes = (PriorityKeyIndex<K>[]) new PriorityKeyIndex<?>[prioritySize];
+        for (int i = 0; i < prioritySize; i++) {
+            Map<K, PriorityBitmap> keyBitmap = new LinkedHashMap<>();
+            for (Map.Entry<K, IntList> entry : builder.keyOrdinalMaps[i].entrySet()) {
+                keyBitmap.put(entry.getKey(), entry.getValue().toBitmap(universe));
+            }
+            keyBitmaps[i] = keyBitmap;
+            PriorityKeyIndexFactory<K> keyIndexFactory = priorityFunctions[i].getKeyIndexFactory();
+            if (keyIndexFactory != null) {
+                keyIndexes[i] = keyIndexFactory.build(keyBitmap.keySet());
+            }
+        }
+        this.processorBitmaps = new PriorityBitmap[processorList.size()];
+        this.processorSorted = new boolean[processorList.size()];
+        for (int i = 0; i < processorList.size(); i++) {
+            PriorityMatchProcessor<S, C, K> priorityMatchProcessor = processorList.get(i);
+            IntList ordinalList = builder.processorOrdinalMap.get(priorityMatchProcessor.getUniqueId());
+            processorBitmaps[i] = ordinalList == null ? PriorityBitmap.EMPTY : ordinalList.toBitmap(universe);
+            processorSorted[i] = hasPrefix(priorityMatchProcessor.getPriorityMatchFunctionList());
+        }
+    }
+
+    /**
+     * 基于优先级树构建
+     *
+     * @param tree          优先级树，下标为头部维度优先级
+     * @param priorityFunctions 配置优先级函数，下标即优先级
+     * @param processorList Processor集合，按优先级排列
+     * @param bloomFilters  与 processorList 下标对齐的布隆过滤器，没有为null
+     * @return 位图引擎
+     */
+    static <S, C, K> PriorityBitmapEngine<S, C, K> build(PriorityFetcher.PriorityMatchTree<S, C, K>[] tree,
+                                                         PriorityMatchFunction<S, C, K>[] priorityFunctions,
+                                                         List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                         PriorityBloomFilter[] bloomFilters) {
+        Builder<S, C, K> builder = new Builder<>(priorityFunctions);
+        for (int i = 0; i < tree.length; i++) {
+            builder.visit(tree[i], i, 0);
+        }
+        return new PriorityBitmapEngine<>(builder, processorList, bloomFilters);
+    }
+
+    /**
+     * 匹配配置集，结果顺序与 matchLevel 一致
+     *
+     * @param sourceKey   需求维度key向量
+     * @param allPriority 是否获取全部优先级
+     * @return 匹配结果
+     */
+    List<PriorityMatchResult<List<C>>> match(PrioritySourceKey<S, K> sourceKey, boolean allPriority) {
+        List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>();
+        // 单次匹配内每个维度只匹配一次
+        PriorityBitmap[] dimensionBitmaps = new PriorityBitmap[priorityFunctions.length];
+        PriorityBitmap[] processorDimensionBitmaps = new PriorityBitmap[priorityFunctions.length];
+        for (int i = 0; i < processorList.size(); i++) {
+            PriorityBitmap candidate = processorBitmaps[i];
+            // 任一维度为空时一定不能命中
+            if (candidate.isEmpty() || !sourceKey.containsAll(processorList.get(i).getDimensionMask())) {
+                continue;
+            }
+            List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList = processorList.get(i).getPriorityMatchFunctionList();
+            if (processorBloomFilters[i] != null && !processorBloomFilters[i].mightMatch(priorityMatchFunctionList, sourceKey)) {
+                continue;
+            }
+            // 先取出全部维度位图，任一维度没有命中直接跳过，不做交集
+            int dimensionSize = 0;
+            for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityMatchFunctionList) {
+                int priority = priorityMatchFunction.getPriority();
+                PriorityBitmap dimensionBitmap = dimensionBitmaps[priority];
+                if (dimensionBitmap == null) {
+                    dimensionBitmap = matchDimension(priorityMatchFunction, sourceKey.get(priorityMatchFunction));
+                    dimensionBitmaps[priority] = dimensionBitmap;
+                }
+                if (dimensionBitmap.isEmpty()) {
+                    dimensionSize = -1;
+                    break;
+                }
+                // 按元素数量插入排序，元素少的位图先求交集，中间结果更小
+                int d = dimensionSize++;
+                while (d > 0 && processorDimensionBitmaps[d - 1].cardinality() > dimensionBitmap.cardinality()) {
+                    processorDimensionBitmaps[d] = processorDimensionBitmaps[d - 1];
+                    d--;
+                }
+                processorDimensionBitmaps[d] = dimensionBitmap;
+            }
+            if (dimensionSize < 0) {
+                continue;
+            }
+            // 只要第一个命中且不需要排序时，找到即可返回
+            int limit = !allPriority && !processorSorted[i] ? 1 : Integer.MAX_VALUE;
+            int[] ordinals;
+            if (candidate.cardinality() <= PROBE_SIZE) {
+                ordinals = probe(candidate.toArray(), processorDimensionBitmaps, dimensionSize, limit);
+            } else {
+                for (int d = 0; d < dimensionSize && !candidate.isEmpty(); d++) {
+                    candidate = candidate.and(processorDimensionBitmaps[d]);
+                }
+                ordinals = limit == 1 && !candidate.isEmpty() ? new int[]{candidate.first()} : candidate.toArray();
+            }
+            if (ordinals.length == 0) {
+                continue;
+            }
+            if (processorSorted[i]) {
+                ordinals = sort(ordinals, priorityMatchFunctionList);
+            }
+            if (!allPriority) {
+                resultList.add(results[ordinals[0]]);
+                return resultList;
+            }
+            for (int ordinal : ordinals) {
+                resultList.add(results[ordinal]);
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * 逐个判断Processor的叶子是否在全部维度位图中，不生成中间位图
+     *
+     * @param ordinals         Processor的叶子序号，升序
+     * @param dimensionBitmaps 维度位图，元素少的在前
+     * @param dimensionSize    维度数量
+     * @param limit            最多命中数量
+     * @return 命中的叶子序号，升序
+     */
+    private int[] probe(int[] ordinals, PriorityBitmap[] dimensionBitmaps, int dimensionSize, int limit) {
+        int[] hits = null;
+        int size = 0;
+        for (int ordinal : ordinals) {
+            int d = 0;
+            while (d < dimensionSize && dimensionBitmaps[d].contains(ordinal)) {
+                d++;
+            }
+            if (d < dimensionSize) {
+                continue;
+            }
+            if (hits == null) {
+                hits = new int[Math.min(ordinals.length, limit)];
+            }
+            hits[size++] = ordinal;
+            if (size == limit) {
+                break;
+            }
+        }
+        return hits == null ? EMPTY_ORDINALS : (size == hits.length ? hits : Arrays.copyOf(hits, size));
+    }
+
+    /**
+     * 维度命中的全部叶子
+     */
+    private PriorityBitmap matchDimension(PriorityMatchFunction<S, C, K> priorityMatchFunction, K sourceKey) {
+        if (sourceKey == null) {
+            return PriorityBitmap.EMPTY;
+        }
+        int priority = priorityMatchFunction.getPriority();
+        Map<K, PriorityBitmap> keyBitmap = keyBitmaps[priority];
+        if (priorityMatchFunction.getType() == PriorityMatchType.COMMON) {
+            PriorityBitmap bitmap = keyBitmap.get(sourceKey);
+            return bitmap == null ? PriorityBitmap.EMPTY : bitmap;
+        }
+        List<K> kList = keyIndexes[priority] != null
+                ? keyIndexes[priority].match(sourceKey)
+                : priorityMatchFunction.matchKey(sourceKey, keyBitmap::keySet);
+        List<PriorityBitmap> bitmapList = new ArrayList<>(kList.size());
+        for (K k : kList) {
+            bitmapList.add(keyBitmap.get(k));
+        }
+        return PriorityBitmap.or(bitmapList, results.length);
+    }
+
+    /**
+     * 按逐层匹配的顺序排序: 逐层比较，前缀维度先按前缀长度倒序，再按key在节点中的位置
+     */
+    private int[] sort(int[] ordinals, List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList) {
+        Integer[] sortArr = new Integer[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            sortArr[i] = ordinals[i];
+        }
+        Arrays.sort(sortArr, (o1, o2) -> {
+            for (int level = 0; level < priorityMatchFunctionList.size(); level++) {
+                if (priorityMatchFunctionList.get(level).getType() == PriorityMatchType.PREFIX) {
+                    int compare = Integer.compare(String.valueOf(entryKeys[o2][level]).length(),
+                            String.valueOf(entryKeys[o1][level]).length());
+                    if (compare != 0) {
+                        return compare;
+                    }
+                }
+                int compare = Integer.compare(entryRanks[o1][level], entryRanks[o2][level]);
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            return 0;
+        });
+        int[] sorted = new int[ordinals.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = sortArr[i];
+        }
+        return sorted;
+    }
+
+    private static <S, C, K> boolean hasPrefix(List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList) {
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityMatchFunctionList) {
+            if (priorityMatchFunction.getType() == PriorityMatchType.PREFIX) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 构建过程，深度优先遍历优先级树，按节点key顺序分配叶子序号
+     */
+    private static final class Builder<S, C, K> {
+        private final PriorityMatchFunction<S, C, K>[] priorityFunctions;
+        private final Map<K, IntList>[] keyOrdinalMaps;
+        private final Map<String, IntList> processorOrdinalMap = new HashMap<>();
+        private final List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>();
+        private final List<Object[]> entryKeyList = new ArrayList<>();
+        private final List<int[]> entryRankList = new ArrayList<>();
+        /**
+         * 当前路径
+         */
+        private final int[] pathPriorities;
+        private final Object[] pathKeys;
+        private final int[] pathRanks;
+
+        @SuppressWarnings("unchecked")
+        private Builder(PriorityMatchFunction<S, C, K>[] priorityFunctions) {
+            this.priorityFunctions = priorityFunctions;
+            this.keyOrdinalMaps = (Map<K, IntList>[]) new Map<?, ?>[priorityFunctions.length];
+            for (int i = 0; i < keyOrdinalMaps.length; i++) {
+                keyOrdinalMaps[i] = new LinkedHashMap<>();
+            }
+            this.pathPriorities = new int[priorityFunctions.length];
+            this.pathKeys = new Object[priorityFunctions.length];
+            this.pathRanks = new int[priorityFunctions.length];
+        }
+
+        private void visit(PriorityFetcher.PriorityMatchTree<S, C, K> node, int priority, int depth) {
+            pathPriorities[depth] = priority;
+            int rank = 0;
+            for (Map.Entry<K, PriorityMatchResult<List<C>>> entry : node.getConfigMap().entrySet()) {
+                pathKeys[depth] = entry.getKey();
+                pathRanks[depth] = rank++;
+                addEntry(entry.getValue(), depth + 1);
+            }
+            rank = 0;
+            for (Map.Entry<K, PriorityFetcher.PriorityMatchTree<S, C, K>[]> entry : node.getCurrentTree().entrySet()) {
+                pathKeys[depth] = entry.getKey();
+                pathRanks[depth] = rank++;
+                PriorityFetcher.PriorityMatchTree<S, C, K>[] childArr = entry.getValue();
+                for (int childPriority = 0; childPriority < childArr.length; childPriority++) {
+                    if (childArr[childPriority] != null) {
+                        visit(childArr[childPriority], childPriority, depth + 1);
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addEntry(PriorityMatchResult<List<C>> result, int depth) {
+            int ordinal = resultList.size();
+            resultList.add(result);
+            boolean prefix = false;
+            for (int i = 0; i < depth; i++) {
+                keyOrdinalMaps[pathPriorities[i]].computeIfAbsent((K) pathKeys[i], k -> new IntList()).add(ordinal);
+                prefix |= priorityFunctions[pathPriorities[i]].getType() == PriorityMatchType.PREFIX;
+            }
+            processorOrdinalMap.computeIfAbsent(result.getUniqueId(), id -> new IntList()).add(ordinal);
+            entryKeyList.add(prefix ? Arrays.copyOf(pathKeys, depth) : null);
+            entryRankList.add(prefix ? Arrays.copyOf(pathRanks, depth) : null);
+        }
+    }
+
+    /**
+     * 升序写入的序号集合
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        private PriorityBitmap toBitmap(int universe) {
+            return PriorityBitmap.of(values, size, universe);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.List;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 组合key布隆过滤器，构建后只读，增量新增配置时复制后写入
+ * 用于相等匹配的Processor: 构建时放入每条配置在该Processor路径上的组合key hash,
+ * 匹配前用需求的组合key探测一次，不存在时直接跳过该Processor的逐层查找
+ * 每个元素约10位，误判率约1%，误判只会多走一次正常查找，不影响结果
+ * @date 2025/8/12 09:50
+ */
+final class PriorityBloomFilter {
+
+    /**
+     * 组合key hash初始值
+     */
+    static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASH_SIZE = 7;
+
+    private final long[] bits;
+    private final int mask;
+
+    private PriorityBloomFilter(int bitSize) {
+        this.bits = new long[bitSize >>> 6];
+        this.mask = bitSize - 1;
+    }
+
+    private PriorityBloomFilter(long[] bits, int mask) {
+        this.bits = bits;
+        this.mask = mask;
+    }
+
+    /**
+     * 基于组合key hash构建过滤器
+     *
+     * @param hashList 组合key hash集合，可以为空
+     * @return 过滤器
+     */
+    static PriorityBloomFilter build(List<Long> hashList) {
+        int bitSize = 64;
+        long expectBitSize = (long) hashList.size() * BITS_PER_ELEMENT;
+        while (bitSize < expectBitSize && bitSize < (1 << 30)) {
+            bitSize <<= 1;
+        }
+        PriorityBloomFilter bloomFilter = new PriorityBloomFilter(bitSize);
+        for (Long hash : hashList) {
+            bloomFilter.put(hash);
+        }
+        return bloomFilter;
+    }
+
+    /**
+     * 组合key hash累加一个维度的key
+     *
+     * @param hash 当前hash, 首个维度传 SEED
+     * @param key  维度key, 不为空
+     * @return 新的hash
+     */
+    static long combine(long hash, Object key) {
+        return mix((hash ^ key.hashCode()) * 0x100000001B3L);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 需求的组合key是否可能存在
+     *
+     * @param priorityMatchFunctionList Processor的全部维度
+     * @param sourceKey                 需求维度key向量
+     * @return false 一定不存在
+     */
+    <S, C, K> boolean mightMatch(List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList, PrioritySourceKey<S, K> sourceKey) {
+        long hash = SEED;
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityMatchFunctionList) {
+            K k = sourceKey.get(priorityMatchFunction);
+            // 相等匹配的维度缺失，不可能命中
+            if (k == null) {
+                return false;
+            }
+            hash = combine(hash, k);
+        }
+        return mightContain(hash);
+    }
+
+    /**
+     * 复制过滤器，原过滤器仍被上一个版本使用，新的组合key放入副本
+     * 位数不变，增量新增越多误判率越高，重新构建后恢复
+     *
+     * @return 内容相同的新过滤器
+     */
+    PriorityBloomFilter copy() {
+        return new PriorityBloomFilter(bits.clone(), mask);
+    }
+
+    void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_SIZE; i++) {
+            int index = (h1 + i * h2) & mask;
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * 组合key是否可能存在
+     *
+     * @param hash 组合key hash
+     * @return false 一定不存在
+     */
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_SIZE; i++) {
+            int index = (h1 + i * h2) & mask;
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,324 @@
+package cn.ykccchen.businessutil.match;
+
+import cn.ykccchen.businessutil.match.handler.PriorityMatchType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 编译后的逐层匹配器，构建后只读
+ * 构建完成后Processor顺序、每层维度、维度是否相等匹配都已固定，按该结构为每个Processor预先组装一条匹配步骤链:
+ * 每个步骤在构建时绑定维度、下一层维度的优先级与下一个步骤，相等匹配的维度直接查节点map,
+ * BOOLEAN 维度直接遍历节点并调用绑定的判断函数，命中即进入子节点，都不再生成key集合，
+ * 匹配时不再查 Processor 的维度集合、不再按层级下标取维度，调用链固定，便于JIT内联
+ * 结果与 matchLevel 一致
+ * @date 2025/8/14 11:20
+ */
+final class PriorityCompiledMatcher<S, C, K> {
+
+    /**
+     * 与 processorList 下标对齐
+     */
+    private final Step<S, C, K>[] steps;
+
+    /**
+     * 与 steps 下标对齐，头部维度所在的树
+     */
+    private final PriorityFetcher.PriorityMatchTree<S, C, K>[] roots;
+
+    /**
+     * 与 steps 下标对齐，Processor的全部维度
+     */
+    private final List<PriorityMatchFunction<S, C, K>>[] functionLists;
+
+    /**
+     * 与 steps 下标对齐，Processor的维度掩码
+     */
+    private final long[] dimensionMasks;
+
+    /**
+     * 与 steps 下标对齐，相等匹配Processor的布隆过滤器，没有为null
+     */
+    private final PriorityBloomFilter[] bloomFilters;
+
+    @SuppressWarnings("unchecked")
+    private PriorityCompiledMatcher(PriorityFetcher.PriorityMatchTree<S, C, K>[] tree,
+                                    List<PriorityMatchProcessor<S, C, K>> processorList,
+                                    PriorityBloomFilter[] bloomFilters) {
+        int size = processorList.size();
+        this.steps = (Step<S, C, K>[]) new Step<?, ?, ?>[size];
+        this.roots = (PriorityFetcher.PriorityMatchTree<S, C, K>[]) new PriorityFetcher.PriorityMatchTree<?, ?, ?>[size];
+        this.functionLists = (List<PriorityMatchFunction<S, C, K>>[]) new List<?>[size];
+        this.dimensionMasks = new long[size];
+        this.bloomFilters = bloomFilters;
+        for (int i = 0; i < size; i++) {
+            List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList = processorList.get(i).getPriorityMatchFunctionList();
+            functionLists[i] = priorityMatchFunctionList;
+            dimensionMasks[i] = processorList.get(i).getDimensionMask();
+            roots[i] = tree[priorityMatchFunctionList.get(0).getPriority()];
+            steps[i] = compile(priorityMatchFunctionList, 0);
+        }
+    }
+
+    /**
+     * 编译Processor集合
+     *
+     * @param tree          优先级树，下标为头部维度优先级
+     * @param processorList Processor集合，按优先级排列
+     * @param bloomFilters  与 processorList 下标对齐的布隆过滤器，没有为null
+     * @return 编译后的匹配器
+     */
+    static <S, C, K> PriorityCompiledMatcher<S, C, K> compile(PriorityFetcher.PriorityMatchTree<S, C, K>[] tree,
+                                                              List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                              PriorityBloomFilter[] bloomFilters) {
+        return new PriorityCompiledMatcher<>(tree, processorList, bloomFilters);
+    }
+
+    /**
+     * 从第 level 层开始组装步骤链，最后一层为叶子步骤
+     */
+    static <S, C, K> Step<S, C, K> compile(List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList, int level) {
+        PriorityMatchFunction<S, C, K> function = priorityMatchFunctionList.get(level);
+        PriorityMatchType type = function.getType();
+        if (level == priorityMatchFunctionList.size() - 1) {
+            if (type == PriorityMatchType.COMMON) {
+                return new EqualLeafStep<>(function);
+            }
+            return type == PriorityMatchType.BOOLEAN ? new BooleanLeafStep<>(function) : new MatchLeafStep<>(function);
+        }
+        int childPriority = priorityMatchFunctionList.get(level + 1).getPriority();
+        Step<S, C, K> next = compile(priorityMatchFunctionList, level + 1);
+        if (type == PriorityMatchType.COMMON) {
+            return new EqualStep<>(function, childPriority, next);
+        }
+        return type == PriorityMatchType.BOOLEAN
+                ? new BooleanStep<>(function, childPriority, next)
+                : new MatchStep<>(function, childPriority, next);
+    }
+
+    /**
+     * 匹配配置集，结果顺序与 matchLevel 一致
+     *
+     * @param sourceKey   需求维度key向量
+     * @param allPriority 是否获取全部优先级
+     * @return 匹配结果
+     */
+    List<PriorityMatchResult<List<C>>> match(PrioritySourceKey<S, K> sourceKey, boolean allPriority) {
+        List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>();
+        for (int i = 0; i < steps.length; i++) {
+            // 任一维度为空时一定不能命中
+            if (!sourceKey.containsAll(dimensionMasks[i])) {
+                continue;
+            }
+            if (bloomFilters[i] != null && !bloomFilters[i].mightMatch(functionLists[i], sourceKey)) {
+                continue;
+            }
+            if (steps[i].match(roots[i], sourceKey, resultList, allPriority)) {
+                return resultList;
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * 匹配步骤
+     */
+    abstract static class Step<S, C, K> {
+
+        final PriorityMatchFunction<S, C, K> function;
+
+        Step(PriorityMatchFunction<S, C, K> function) {
+            this.function = function;
+        }
+
+        /**
+         * 在节点上匹配当前维度
+         *
+         * @return 不需要全部优先级且已命中时为true, 匹配结束
+         */
+        abstract boolean match(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                               PrioritySourceKey<S, K> sourceKey,
+                               List<PriorityMatchResult<List<C>>> resultList,
+                               boolean allPriority);
+    }
+
+    /**
+     * 相等匹配的中间层，直接取子节点
+     */
+    private static final class EqualStep<S, C, K> extends Step<S, C, K> {
+        private final int childPriority;
+        private final Step<S, C, K> next;
+
+        private EqualStep(PriorityMatchFunction<S, C, K> function, int childPriority, Step<S, C, K> next) {
+            super(function);
+            this.childPriority = childPriority;
+            this.next = next;
+        }
+
+        @Override
+        boolean match(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                      PrioritySourceKey<S, K> sourceKey,
+                      List<PriorityMatchResult<List<C>>> resultList,
+                      boolean allPriority) {
+            K k = sourceKey.get(function);
+            if (k == null) {
+                return false;
+            }
+            PriorityFetcher.PriorityMatchTree<S, C, K> childTree = node.getChildTree(k, childPriority);
+            return childTree != null && next.match(childTree, sourceKey, resultList, allPriority);
+        }
+    }
+
+    /**
+     * BOOLEAN 中间层，遍历节点，命中的key直接进入子节点
+     */
+    private static final class BooleanStep<S, C, K> extends Step<S, C, K> {
+        private final BiPredicate<K, K> keyMatchFunction;
+        private final int childPriority;
+        private final Step<S, C, K> next;
+
+        private BooleanStep(PriorityMatchFunction<S, C, K> function, int childPriority, Step<S, C, K> next) {
+            super(function);
+            this.keyMatchFunction = function.getKeyMatchFunction();
+            this.childPriority = childPriority;
+            this.next = next;
+        }
+
+        @Override
+        boolean match(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                      PrioritySourceKey<S, K> sourceKey,
+                      List<PriorityMatchResult<List<C>>> resultList,
+                      boolean allPriority) {
+            K sk = sourceKey.get(function);
+            if (sk == null) {
+                return false;
+            }
+            for (Map.Entry<K, PriorityFetcher.PriorityMatchTree<S, C, K>[]> entry : node.getCurrentTree().entrySet()) {
+                PriorityFetcher.PriorityMatchTree<S, C, K> childTree = entry.getValue()[childPriority];
+                if (childTree != null && keyMatchFunction.test(sk, entry.getKey())
+                        && next.match(childTree, sourceKey, resultList, allPriority)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 索引维度的中间层，逐个命中key进入子节点
+     */
+    private static final class MatchStep<S, C, K> extends Step<S, C, K> {
+        private final int childPriority;
+        private final Step<S, C, K> next;
+
+        private MatchStep(PriorityMatchFunction<S, C, K> function, int childPriority, Step<S, C, K> next) {
+            super(function);
+            this.childPriority = childPriority;
+            this.next = next;
+        }
+
+        @Override
+        boolean match(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                      PrioritySourceKey<S, K> sourceKey,
+                      List<PriorityMatchResult<List<C>>> resultList,
+                      boolean allPriority) {
+            for (K k : node.matchKey(function, sourceKey.get(function))) {
+                PriorityFetcher.PriorityMatchTree<S, C, K> childTree = node.getChildTree(k, childPriority);
+                if (childTree != null && next.match(childTree, sourceKey, resultList, allPriority)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 相等匹配的叶子层，直接取匹配结果
+     */
+    private static final class EqualLeafStep<S, C, K> extends Step<S, C, K> {
+
+        private EqualLeafStep(PriorityMatchFunction<S, C, K> function) {
+            super(function);
+        }
+
+        @Override
+        boolean match(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                      PrioritySourceKey<S, K> sourceKey,
+                      List<PriorityMatchResult<List<C>>> resultList,
+                      boolean allPriority) {
+            K k = sourceKey.get(function);
+            if (k == null) {
+                return false;
+            }
+            PriorityMatchResult<List<C>> configResult = node.getConfigResult(k);
+            if (configResult == null) {
+                return false;
+            }
+            resultList.add(configResult);
+            return !allPriority;
+        }
+    }
+
+    /**
+     * BOOLEAN 叶子层，遍历节点，命中的key直接取匹配结果
+     */
+    private static final class BooleanLeafStep<S, C, K> extends Step<S, C, K> {
+        private final BiPredicate<K, K> keyMatchFunction;
+
+        private BooleanLeafStep(PriorityMatchFunction<S, C, K> function) {
+            super(function);
+            this.keyMatchFunction = function.getKeyMatchFunction();
+        }
+
+        @Override
+        boolean match(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                      PrioritySourceKey<S, K> sourceKey,
+                      List<PriorityMatchResult<List<C>>> resultList,
+                      boolean allPriority) {
+            K sk = sourceKey.get(function);
+            if (sk == null) {
+                return false;
+            }
+            for (Map.Entry<K, PriorityMatchResult<List<C>>> entry : node.getConfigMap().entrySet()) {
+                if (keyMatchFunction.test(sk, entry.getKey())) {
+                    resultList.add(entry.getValue());
+                    if (!allPriority) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 索引维度的叶子层，逐个命中key取匹配结果
+     */
+    private static final class MatchLeafStep<S, C, K> extends Step<S, C, K> {
+
+        private MatchLeafStep(PriorityMatchFunction<S, C, K> function) {
+            super(function);
+        }
+
+        @Override
+        boolean match(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                      PrioritySourceKey<S, K> sourceKey,
+                      List<PriorityMatchResult<List<C>>> resultList,
+                      boolean allPriority) {
+            for (K k : node.matchConfigKey(function, sourceKey.get(function))) {
+                PriorityMatchResult<List<C>> configResult = node.getConfigResult(k);
+                if (configResult != null) {
+                    resultList.add(configResult);
+                    if (!allPriority) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 按key分别计数的并发计数器，每个key一个 LongAdder
+ * 计数器创建后累加只做一次无锁读取与分段累加，高并发下不争用同一个计数器
+ * key使用自身的 equals/hashCode, 没有重写的对象即按实例计数
+ * @date 2025/8/20 14:00
+ */
+final class PriorityCounterMap<T> {
+
+    private final ConcurrentHashMap<T, LongAdder> counterMap;
+
+    PriorityCounterMap() {
+        this.counterMap = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 复制当前计数，之后两者互不影响
+     */
+    PriorityCounterMap(PriorityCounterMap<T> other) {
+        this.counterMap = new ConcurrentHashMap<>(Math.max(16, other.counterMap.size() * 2));
+        other.counterMap.forEach((key, counter) -> {
+            LongAdder copy = new LongAdder();
+            copy.add(counter.sum());
+            counterMap.put(key, copy);
+        });
+    }
+
+    void increment(T key) {
+        counter(key).increment();
+    }
+
+    /**
+     * 累加计数，结果小于等于0时移除该key
+     * 读取与移除不是原子的，只在构建与增量更新等单线程场景使用
+     *
+     * @return 累加后的计数
+     */
+    long add(T key, long delta) {
+        LongAdder counter = counter(key);
+        counter.add(delta);
+        long sum = counter.sum();
+        if (sum <= 0) {
+            counterMap.remove(key);
+        }
+        return sum;
+    }
+
+    long get(T key) {
+        LongAdder counter = counterMap.get(key);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    boolean contains(T key) {
+        return counterMap.containsKey(key);
+    }
+
+    int size() {
+        return counterMap.size();
+    }
+
+    /**
+     * 各计数分别读取，并发累加时不保证严格一致
+     */
+    Map<T, Long> snapshot() {
+        Map<T, Long> snapshot = new HashMap<>(Math.max(16, counterMap.size() * 2));
+        counterMap.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return snapshot;
+    }
+
+    private LongAdder counter(T key) {
+        // 已存在时只做一次无锁读取，computeIfAbsent 在 jdk8 上即使key存在也可能加锁
+        LongAdder counter = counterMap.get(key);
+        return counter != null ? counter : counterMap.computeIfAbsent(key, k -> new LongAdder());
+    }
+}
@@ -1,31 +1,145 @@
 package cn.ykccchen.businessutil.match;
 
+import cn.ykccchen.businessutil.match.handler.PriorityMatchEngine;
+import cn.ykccchen.businessutil.match.handler.PriorityMatchType;
+import cn.ykccchen.businessutil.match.index.PriorityKeyIndex;
+import cn.ykccchen.businessutil.match.index.PriorityKeyIndexFactory;
+
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
  * @author ykccchen
  * @version 1.0
  * @description priority get the executor
+ * 构建完成(from/pruning/tree)后匹配过程只读，可以被多线程并发使用
  * @date 2025/7/17 13:59
  */
 public class PriorityFetcher<S, C, K> {
 
+    /**
+     * 并行批量匹配时单个分片的最小需求数量，分片过小时调度开销大于匹配本身
+     */
+    private static final int MIN_PARALLEL_CHUNK_SIZE = 256;
+
+    /**
+     * 并行构建时单个分片的最小配置数量，分片过小时合并开销大于构建本身
+     */
+    private static final int MIN_PARALLEL_BUILD_CHUNK_SIZE = 4096;
+
+    /**
+     * 流式并行构建时单个分片的配置数量，配置总数未知，按固定数量切分
+     */
+    private static final int STREAM_BUILD_CHUNK_SIZE = 16384;
+
     private final PriorityMatchTree<S, C, K>[] tree;
-    private List<PriorityMatchProcessor<S, C, K>> processorList;
+
+    /**
+     * Processor集合与对齐的布隆过滤器，剪枝时整体替换，一次 volatile 读取即得到一致的两者
+     */
+    private volatile ProcessorTable<S, C, K> processorTable;
+
+    /**
+     * 配置优先级集合，按该顺序生成配置路径，顺序可以与优先级不同
+     */
+    private final List<PriorityMatchFunction<S, C, K>> priorityList;
+
+    /**
+     * 下标即优先级，按优先级查找维度时使用
+     */
+    private final PriorityMatchFunction<S, C, K>[] priorityFunctions;
 
     /**
      * 优先级树
      */
-    private PriorityMatchProcessorTree<S, C, K> priorityMatchProcessorTree;
+    private volatile PriorityMatchProcessorTree<S, C, K> priorityMatchProcessorTree;
+
+    /**
+     * 写入顺序在 priorityMatchProcessorTree 之后，读到 true 时优先级树一定可见
+     */
+    private volatile boolean useTreePriority = false;
+
+    /**
+     * 位图匹配引擎，存在时优先使用
+     */
+    private volatile PriorityBitmapEngine<S, C, K> bitmapEngine;
+
+    /**
+     * 编译后的逐层匹配器，存在时优先使用
+     */
+    private volatile PriorityCompiledMatcher<S, C, K> compiledMatcher;
+
+    /**
+     * 字典编码后的匹配器，存在时优先使用
+     */
+    private volatile PriorityDictionaryMatcher<S, C, K> dictionaryMatcher;
+
+    /**
+     * 冻结后的优先级树，存在时逐层匹配与树匹配都基于它执行，原优先级树已释放
+     */
+    private volatile PriorityFrozenTree<S, C, K> frozenTree;
 
-    private boolean useTreePriority = false;
+    /**
+     * 构建时生成的相等匹配维度key字典，下标即优先级，未开启字典编码为null
+     */
+    private PriorityKeyDictionary<K>[] dictionaries;
 
     /**
-     * Processor使用记录，uniqueId为标识
+     * Processor使用记录，uniqueId为标识，值为加载的配置数量
      * 用于剪枝\ 配置加载统计
      */
-    private final Map<String, Integer> useRecordMap;
+    private final PriorityCounterMap<String> useRecordMap;
+
+    /**
+     * 相等匹配Processor的组合key布隆过滤器，uniqueId为标识，构建时生成
+     */
+    private final Map<String, PriorityBloomFilter> bloomFilterMap;
+
+    /**
+     * 匹配结果缓存，key为需求维度key向量，为null不启用
+     * 缓存随当前对象存在，重新构建得到的新对象不会读到旧结果
+     */
+    private volatile PriorityResultCache<MatchCacheKey<S, K>, List<PriorityMatchResult<List<C>>>> resultCache;
+
+    /**
+     * 匹配命中计数，为null不统计
+     * 计数随当前对象存在，增量更新得到的新对象重新计数
+     */
+    private volatile PriorityHitCounter<C> hitCounter;
+
+    /**
+     * 匹配监听器，为null时匹配不生成记录
+     */
+    private volatile PriorityMatchListener matchListener;
+
+    /**
+     * 构建时的Processor数量，剪枝前
+     */
+    private final int processorCountBeforePruning;
+
+    /**
+     * 构建时的全部Processor, 增量更新后重新剪枝时使用
+     */
+    private final List<PriorityMatchProcessor<S, C, K>> allProcessorList;
+
+    /**
+     * 是否做过剪枝
+     */
+    private volatile boolean pruned = false;
+
+    /**
+     * from() 构建耗时
+     */
+    private long fromTimeNanos;
+
+    /**
+     * 最近一次 tree() 构建耗时，未转换为树为-1
+     */
+    private volatile long treeTimeNanos = -1;
 
     private PriorityFetcher(List<PriorityMatchProcessor<S, C, K>> processorList,
                             List<PriorityMatchFunction<S, C, K>> prirotyList) {
@@ -33,8 +147,30 @@ public class PriorityFetcher<S, C, K> {
         for (int i = 0; i < prirotyList.size(); i++) {
             tree[i] = new PriorityMatchTree<>(1);
         }
-        this.processorList = processorList;
-        this.useRecordMap = new HashMap<>();
+        this.processorTable = new ProcessorTable<>(Collections.unmodifiableList(new ArrayList<>(processorList)),
+                new PriorityBloomFilter[processorList.size()]);
+        this.priorityList = prirotyList;
+        this.priorityFunctions = PriorityMatchFunction.indexByPriority(prirotyList);
+        this.useRecordMap = new PriorityCounterMap<>();
+        this.bloomFilterMap = new HashMap<>();
+        this.processorCountBeforePruning = processorList.size();
+        this.allProcessorList = this.processorTable.processorList;
+    }
+
+    /**
+     * 增量更新时基于上一个版本创建，共享全部树节点，修改路径上的节点在写入前复制
+     */
+    private PriorityFetcher(PriorityFetcher<S, C, K> previous) {
+        this.tree = previous.tree.clone();
+        this.processorTable = previous.processorTable;
+        this.priorityList = previous.priorityList;
+        this.priorityFunctions = previous.priorityFunctions;
+        this.useRecordMap = new PriorityCounterMap<>(previous.useRecordMap);
+        this.bloomFilterMap = new HashMap<>(previous.bloomFilterMap);
+        this.processorCountBeforePruning = previous.processorCountBeforePruning;
+        this.allProcessorList = previous.allProcessorList;
+        this.pruned = previous.pruned;
+        this.fromTimeNanos = previous.fromTimeNanos;
     }
 
     public PriorityMatchTree<S, C, K>[] getTree() {
@@ -42,7 +178,7 @@ public class PriorityFetcher<S, C, K> {
     }
 
     public List<PriorityMatchProcessor<S, C, K>> getProcessorList() {
-        return processorList;
+        return processorTable.processorList;
     }
 
     /**
@@ -65,61 +201,230 @@ public class PriorityFetcher<S, C, K> {
      * @return 单个优先级配置
      */
     public List<PriorityMatchResult<List<C>>> match(S source, boolean allPriority) {
-        return useTreePriority ? matchTree(source, allPriority) : matchLevel(source, allPriority);
+        List<PriorityMatchResult<List<C>>> match = match(PrioritySourceKey.lazy(source, priorityFunctions), allPriority);
+        PriorityHitCounter<C> counter = hitCounter;
+        if (counter != null) {
+            counter.record(match);
+        }
+        return match;
+    }
+
+    /**
+     * 批量匹配，返回每个需求优先级最高的配置集，顺序与入参一致，未命中的位置为null
+     *
+     * @param sourceList 需求信息集合
+     * @return 单个优先级配置集合
+     */
+    public List<PriorityMatchResult<List<C>>> matchAll(Collection<S> sourceList) {
+        List<List<PriorityMatchResult<List<C>>>> matchList = matchAll(sourceList, false);
+        List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>(matchList.size());
+        for (List<PriorityMatchResult<List<C>>> match : matchList) {
+            resultList.add(match.isEmpty() ? null : match.get(0));
+        }
+        return resultList;
+    }
+
+    /**
+     * 批量匹配，顺序与入参一致
+     * 每个需求只取一次维度key, key向量相同的需求只匹配一次并共享同一个结果集合(不可修改)
+     *
+     * @param sourceList  需求信息集合
+     * @param allPriority 是否获取全部优先级
+     * @return 每个需求的匹配结果
+     */
+    public List<List<PriorityMatchResult<List<C>>>> matchAll(Collection<S> sourceList, boolean allPriority) {
+        List<List<PriorityMatchResult<List<C>>>> resultList = new ArrayList<>(sourceList.size());
+        Map<PrioritySourceKey<S, K>, List<PriorityMatchResult<List<C>>>> matchedMap = new HashMap<>();
+        PriorityHitCounter<C> counter = hitCounter;
+        for (S source : sourceList) {
+            PrioritySourceKey<S, K> sourceKey = PrioritySourceKey.of(source, priorityFunctions);
+            List<PriorityMatchResult<List<C>>> match = matchedMap.get(sourceKey);
+            if (match == null) {
+                match = Collections.unmodifiableList(match(sourceKey, allPriority));
+                matchedMap.put(sourceKey, match);
+            }
+            // 去重只为减少匹配次数，命中仍按需求个数计
+            if (counter != null) {
+                counter.record(match);
+            }
+            resultList.add(match);
+        }
+        return resultList;
+    }
+
+    /**
+     * 并行批量匹配，使用公共 ForkJoinPool
+     *
+     * @param sourceList  需求信息集合
+     * @param allPriority 是否获取全部优先级
+     * @return 每个需求的匹配结果，顺序与入参一致
+     */
+    public List<List<PriorityMatchResult<List<C>>>> matchAllParallel(Collection<S> sourceList, boolean allPriority) {
+        return matchAllParallel(sourceList, allPriority, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行批量匹配，需求集合按顺序切分为多个分片，分片在执行器上并行匹配，分片内按 key 向量去重
+     *
+     * @param sourceList  需求信息集合
+     * @param allPriority 是否获取全部优先级
+     * @param executor    执行器, ForkJoinPool 时按其并行度切分分片
+     * @return 每个需求的匹配结果，顺序与入参一致
+     */
+    public List<List<PriorityMatchResult<List<C>>>> matchAllParallel(Collection<S> sourceList,
+                                                                     boolean allPriority,
+                                                                     Executor executor) {
+        Objects.requireNonNull(executor, "PriorityFetcher executor cannot be null!");
+        List<S> list = sourceList instanceof List ? (List<S>) sourceList : new ArrayList<>(sourceList);
+        int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        // 每个线程分到多个分片，减少分片耗时不均导致的等待
+        int chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, (list.size() + parallelism * 4 - 1) / (parallelism * 4));
+        if (list.size() <= chunkSize) {
+            return matchAll(list, allPriority);
+        }
+        List<CompletableFuture<List<List<PriorityMatchResult<List<C>>>>>> futureList = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            List<S> chunk = list.subList(from, Math.min(from + chunkSize, list.size()));
+            futureList.add(CompletableFuture.supplyAsync(() -> matchAll(chunk, allPriority), executor));
+        }
+        List<List<PriorityMatchResult<List<C>>>> resultList = new ArrayList<>(list.size());
+        try {
+            for (CompletableFuture<List<List<PriorityMatchResult<List<C>>>>> future : futureList) {
+                resultList.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return resultList;
+    }
+
+    private List<PriorityMatchResult<List<C>>> match(PrioritySourceKey<S, K> sourceKey, boolean allPriority) {
+        PriorityMatchListener listener = matchListener;
+        if (listener == null) {
+            return matchCache(sourceKey, allPriority, null);
+        }
+        PriorityMatchRecord record = new PriorityMatchRecord(allPriority);
+        long startTime = System.nanoTime();
+        List<PriorityMatchResult<List<C>>> match = matchCache(sourceKey, allPriority, record);
+        record.finish(System.nanoTime() - startTime, match);
+        listener.onMatch(record);
+        return match;
+    }
+
+    private List<PriorityMatchResult<List<C>>> matchCache(PrioritySourceKey<S, K> sourceKey,
+                                                          boolean allPriority,
+                                                          PriorityMatchRecord record) {
+        PriorityResultCache<MatchCacheKey<S, K>, List<PriorityMatchResult<List<C>>>> cache = resultCache;
+        if (cache == null) {
+            return matchEngine(sourceKey, allPriority, record);
+        }
+        MatchCacheKey<S, K> cacheKey = new MatchCacheKey<>(sourceKey, allPriority);
+        List<PriorityMatchResult<List<C>>> match = cache.get(cacheKey);
+        if (match == null) {
+            // 缓存的结果会被多个调用方共享，不可修改
+            match = Collections.unmodifiableList(matchEngine(sourceKey, allPriority, record));
+            cache.put(cacheKey, match);
+        } else if (record != null) {
+            record.cacheHit();
+        }
+        return match;
+    }
+
+    private List<PriorityMatchResult<List<C>>> matchEngine(PrioritySourceKey<S, K> sourceKey,
+                                                           boolean allPriority,
+                                                           PriorityMatchRecord record) {
+        PriorityCompiledMatcher<S, C, K> matcher = compiledMatcher;
+        if (matcher != null) {
+            if (record != null) {
+                record.engine(PriorityMatchEngine.COMPILED, false);
+            }
+            return matcher.match(sourceKey, allPriority);
+        }
+        PriorityDictionaryMatcher<S, C, K> encodedMatcher = dictionaryMatcher;
+        if (encodedMatcher != null) {
+            if (record != null) {
+                record.engine(PriorityMatchEngine.DICTIONARY, false);
+            }
+            return encodedMatcher.match(sourceKey, allPriority);
+        }
+        PriorityBitmapEngine<S, C, K> engine = bitmapEngine;
+        if (engine != null) {
+            if (record != null) {
+                record.engine(PriorityMatchEngine.BITMAP, false);
+            }
+            return engine.match(sourceKey, allPriority);
+        }
+        if (record != null) {
+            record.engine(useTreePriority ? PriorityMatchEngine.TREE : PriorityMatchEngine.LEVEL, frozenTree == null);
+        }
+        return useTreePriority ? matchTree(sourceKey, allPriority, record) : matchLevel(sourceKey, allPriority, record);
     }
 
     /**
      * 需求匹配配置集，返回单优先级最高的配置集，可能是多个
      * 使用时要注意配置多的可能性
      *
-     * @param source      需求信息
+     * @param sourceKey   需求维度key向量
      * @param allPriority 是否获取全部优先级
      * @return 单个优先级配置
      */
-    private List<PriorityMatchResult<List<C>>> matchTree(S source, boolean allPriority) {
+    private List<PriorityMatchResult<List<C>>> matchTree(PrioritySourceKey<S, K> sourceKey,
+                                                         boolean allPriority,
+                                                         PriorityMatchRecord record) {
+        PriorityFrozenTree<S, C, K> frozen = frozenTree;
+        if (frozen != null) {
+            return frozen.matchTree(priorityMatchProcessorTree, sourceKey, allPriority);
+        }
         List<PriorityMatchResult<List<C>>> matchResultList = new ArrayList<>();
-        LinkedList<PriorityMatchFunction<S, C, K>> recordList = new LinkedList<>();
         for (PriorityMatchProcessorTree<S, C, K> value : priorityMatchProcessorTree.getPriorityMatchFunctionTree().values()) {
+            // 头部维度为空时整个分支都不能命中
+            if (!sourceKey.containsAll(value.getDimensionMask())) {
+                continue;
+            }
             PriorityMatchFunction<S, C, K> functionNode = value.getFunctionNode();
-            recordList.add(functionNode);
             PriorityMatchTree<S, C, K> priorityMatchTree = tree[functionNode.getPriority()];
-            List<K> kList = functionNode.matchSource(source, priorityMatchTree::getKeyList);
+            List<K> kList = priorityMatchTree.matchKey(functionNode, sourceKey.get(functionNode), record);
             for (PriorityMatchProcessorTree<S, C, K> childPriorityMatchFunctionTree : value.getPriorityMatchFunctionTree().values()) {
                 if (childPriorityMatchFunctionTree.isBottom()) {
-                    if (recursion(null, source, childPriorityMatchFunctionTree, priorityMatchTree, matchResultList, recordList, allPriority)) {
+                    if (recursion(null, sourceKey, childPriorityMatchFunctionTree, priorityMatchTree, matchResultList, allPriority, record)) {
                         return matchResultList;
                     }
-                }else if (!kList.isEmpty()){
+                }else if (!kList.isEmpty() && sourceKey.containsAll(childPriorityMatchFunctionTree.getDimensionMask())){
                     for (K k : kList) {
-                        if (recursion(k, source, childPriorityMatchFunctionTree, priorityMatchTree, matchResultList, recordList, allPriority)) {
+                        if (recursion(k, sourceKey, childPriorityMatchFunctionTree, priorityMatchTree, matchResultList, allPriority, record)) {
                             return matchResultList;
                         }
                     }
                 }
             }
-            recordList.removeLast();
         }
         return matchResultList;
     }
 
     private boolean recursion(K k,
-                           S source,
+                           PrioritySourceKey<S, K> sourceKey,
                            PriorityMatchProcessorTree<S, C, K> priorityMatchFunctionTree,
                            PriorityMatchTree<S, C, K> parentPriorityMatchTree,
                            List<PriorityMatchResult<List<C>>> matchResultList,
-                           LinkedList<PriorityMatchFunction<S, C, K>> recordList,
-                           boolean allPriority) {
+                           boolean allPriority,
+                           PriorityMatchRecord record) {
         PriorityMatchFunction<S, C, K> functionNode = priorityMatchFunctionTree.getFunctionNode();
 
         if (priorityMatchFunctionTree.isBottom()) {
-            List<K> kList = functionNode.matchSource(source, parentPriorityMatchTree::getConfigKeyList);
+            if (record != null) {
+                record.processorCount++;
+            }
+            List<K> kList = parentPriorityMatchTree.matchConfigKey(functionNode, sourceKey.get(functionNode), record);
             for (K newK : kList) {
-                List<C> configList = parentPriorityMatchTree.getConfigList(newK);
-                if (!configList.isEmpty()) {
-                    matchResultList.add(new PriorityMatchResult<>(PriorityMatchProcessor.initUniqueId(recordList),
-                            PriorityMatchProcessor.initName(recordList),
-                            parentPriorityMatchTree.getIndex(),
-                            configList));
+                // 叶子节点的结果在构建时已生成，命中时直接复用
+                PriorityMatchResult<List<C>> configResult = parentPriorityMatchTree.getConfigResult(newK);
+                if (configResult != null) {
+                    matchResultList.add(configResult);
                     if (!allPriority) {
                         return true;
                     }
@@ -130,23 +435,21 @@ public class PriorityFetcher<S, C, K> {
             if (childTree == null) {
                 return false;
             }
-            recordList.add(functionNode);
-            List<K> kList = functionNode.matchSource(source, childTree::getKeyList);
+            List<K> kList = childTree.matchKey(functionNode, sourceKey.get(functionNode), record);
             for (PriorityMatchProcessorTree<S, C, K> childPriorityMatchFunctionTree : priorityMatchFunctionTree.getPriorityMatchFunctionTree().values()) {
                 if (childPriorityMatchFunctionTree.isBottom()) {
-                    if (recursion(null, source, childPriorityMatchFunctionTree, childTree, matchResultList, recordList, allPriority)) {
+                    if (recursion(null, sourceKey, childPriorityMatchFunctionTree, childTree, matchResultList, allPriority, record)) {
                         return true;
                     }
 
-                }else if (!kList.isEmpty()){
+                }else if (!kList.isEmpty() && sourceKey.containsAll(childPriorityMatchFunctionTree.getDimensionMask())){
                     for (K newK : kList) {
-                        if (recursion(newK, source, childPriorityMatchFunctionTree, childTree, matchResultList, recordList, allPriority)) {
+                        if (recursion(newK, sourceKey, childPriorityMatchFunctionTree, childTree, matchResultList, allPriority, record)) {
                             return true;
                         }
                     }
                 }
             }
-            recordList.removeLast();
         }
         return false;
     }
@@ -155,21 +458,42 @@ public class PriorityFetcher<S, C, K> {
      * 需求匹配配置集，返回单优先级最高的配置集，可能是多个
      * 使用时要注意配置多的可能性
      *
-     * @param source 需求信息
+     * @param sourceKey 需求维度key向量
      * @return 单个优先级配置
      */
-    private List<PriorityMatchResult<List<C>>> matchLevel(S source, boolean allPriority) {
+    private List<PriorityMatchResult<List<C>>> matchLevel(PrioritySourceKey<S, K> sourceKey,
+                                                          boolean allPriority,
+                                                          PriorityMatchRecord record) {
+        ProcessorTable<S, C, K> processorTable = this.processorTable;
+        List<PriorityMatchProcessor<S, C, K>> processorList = processorTable.processorList;
+        PriorityBloomFilter[] bloomFilters = processorTable.bloomFilters;
+        PriorityFrozenTree<S, C, K> frozen = frozenTree;
+        if (frozen != null) {
+            return frozen.matchLevel(processorList, bloomFilters, sourceKey, allPriority);
+        }
         List<PriorityMatchResult<List<C>>> allList = new ArrayList<>();
         // 逐层匹配
-        for (PriorityMatchProcessor<S, C, K> priorityMatchProcessor : processorList) {
+        for (int i = 0; i < processorList.size(); i++) {
+            PriorityMatchProcessor<S, C, K> priorityMatchProcessor = processorList.get(i);
             List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList = priorityMatchProcessor.getPriorityMatchFunctionList();
+            if (record != null) {
+                record.processorCount++;
+            }
+            // 任一维度为空，或组合key一定不存在时跳过当前Processor
+            if (!sourceKey.containsAll(priorityMatchProcessor.getDimensionMask())
+                    || bloomFilters[i] != null && !bloomFilters[i].mightMatch(priorityMatchFunctionList, sourceKey)) {
+                if (record != null) {
+                    record.filteredProcessorCount++;
+                }
+                continue;
+            }
             PriorityMatchFunction<S, C, K> functionHead = priorityMatchFunctionList.get(0);
             PriorityMatchTree<S, C, K> priorityMatchTree = tree[functionHead.getPriority()];
             List<K> kList;
             if (priorityMatchFunctionList.size() == 1) {
-                kList = functionHead.matchSource(source, priorityMatchTree::getConfigKeyList);
+                kList = priorityMatchTree.matchConfigKey(functionHead, sourceKey.get(functionHead), record);
             } else {
-                kList = functionHead.matchSource(source, priorityMatchTree::getKeyList);
+                kList = priorityMatchTree.matchKey(functionHead, sourceKey.get(functionHead), record);
             }
             // 没匹配上退出当前循环
             if (kList.isEmpty()) {
@@ -178,19 +502,16 @@ public class PriorityFetcher<S, C, K> {
             // 判断是否有多层
             if (priorityMatchFunctionList.size() > 1) {
                 for (K k : kList) {
-                    if (recursionLevel(k, source, priorityMatchProcessor, 1, priorityMatchTree, allList, allPriority)) {
+                    if (recursionLevel(k, sourceKey, priorityMatchProcessor, 1, priorityMatchTree, allList, allPriority, record)) {
                         return allList;
                     }
                 }
             }else {
                 for (K k : kList) {
                     // 该位置代码执行说明找到了叶子节点
-                    List<C> configList = priorityMatchTree.getConfigList(k);
-                    if (!configList.isEmpty()) {
-                        allList.add(new PriorityMatchResult<>(priorityMatchProcessor.getUniqueId(),
-                                priorityMatchProcessor.getName(),
-                                priorityMatchTree.getIndex(),
-                                configList));
+                    PriorityMatchResult<List<C>> configResult = priorityMatchTree.getConfigResult(k);
+                    if (configResult != null) {
+                        allList.add(configResult);
                         if (!allPriority) {
                             // 如果不需要全部优先级配置，直接返回
                             return allList;
@@ -202,28 +523,27 @@ public class PriorityFetcher<S, C, K> {
         }
         return allList;
     }
+
     private boolean recursionLevel(K k,
-                           S source,
+                           PrioritySourceKey<S, K> sourceKey,
                            PriorityMatchProcessor<S, C, K> priorityMatchProcessor,
                            int index,
                            PriorityMatchTree<S, C, K> parentPriorityMatchTree,
                            List<PriorityMatchResult<List<C>>> matchResultList,
-                           boolean allPriority) {
+                           boolean allPriority,
+                           PriorityMatchRecord record) {
         PriorityMatchFunction<S, C, K> functionNode = priorityMatchProcessor.getPriorityMatchFunctionList().get(index);
         PriorityMatchTree<S, C, K> childTree = parentPriorityMatchTree.getChildTree(k, functionNode);
         if (childTree == null) {
             return false;
         }
         if (priorityMatchProcessor.getFunctionSize() == index + 1) {
-            List<K> kList = functionNode.matchSource(source, childTree::getConfigKeyList);
+            List<K> kList = childTree.matchConfigKey(functionNode, sourceKey.get(functionNode), record);
             if (!kList.isEmpty()) {
                 for (K newK : kList) {
-                    List<C> configList = childTree.getConfigList(newK);
-                    if (!configList.isEmpty()) {
-                        matchResultList.add(new PriorityMatchResult<>(priorityMatchProcessor.getUniqueId(),
-                                priorityMatchProcessor.getName(),
-                                childTree.getIndex(),
-                                configList));
+                    PriorityMatchResult<List<C>> configResult = childTree.getConfigResult(newK);
+                    if (configResult != null) {
+                        matchResultList.add(configResult);
                         if (!allPriority) {
                             return true;
                         }
@@ -233,10 +553,10 @@ public class PriorityFetcher<S, C, K> {
             }
         } else {
 
-            List<K> kList = functionNode.matchSource(source, childTree::getKeyList);
+            List<K> kList = childTree.matchKey(functionNode, sourceKey.get(functionNode), record);
             if (!kList.isEmpty()) {
                 for (K newK : kList) {
-                    if (recursionLevel(newK, source, priorityMatchProcessor, index + 1, childTree, matchResultList, allPriority)) {
+                    if (recursionLevel(newK, sourceKey, priorityMatchProcessor, index + 1, childTree, matchResultList, allPriority, record)) {
                         return true;
                     }
 
@@ -246,8 +566,137 @@ public class PriorityFetcher<S, C, K> {
         return false;
     }
 
+    /**
+     * 解释单个需求的匹配过程，见 explain(S, boolean)
+     */
+    public PriorityMatchExplain explain(S source) {
+        return explain(source, false);
+    }
+
+    /**
+     * 解释单个需求的匹配过程，按逐层匹配的顺序在原优先级树上重新执行一次，记录每个Processor、每个节点的候选key与耗时
+     * 结果与逐层匹配一致，与当前使用的引擎无关; 不使用缓存，不触发监听器与命中统计
+     * 每一步都会复制候选key并计时，比正常匹配慢得多，只用于排查问题
+     * 冻结后原树已释放，不支持
+     *
+     * @param source      需求信息
+     * @param allPriority 是否获取全部优先级
+     * @return 匹配过程
+     */
+    public PriorityMatchExplain explain(S source, boolean allPriority) {
+        checkNotFrozen();
+        long startTime = System.nanoTime();
+        PrioritySourceKey<S, K> sourceKey = PrioritySourceKey.lazy(source, priorityFunctions);
+        List<PriorityMatchExplain.Dimension> dimensionList = new ArrayList<>(priorityList.size());
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityList) {
+            long extractTime = System.nanoTime();
+            K k = sourceKey.get(priorityMatchFunction);
+            dimensionList.add(new PriorityMatchExplain.Dimension(priorityMatchFunction.getName(), priorityMatchFunction.getPriority(),
+                    priorityMatchFunction.getType(), k, System.nanoTime() - extractTime));
+        }
+        ProcessorTable<S, C, K> processorTable = this.processorTable;
+        List<PriorityMatchProcessor<S, C, K>> processorList = processorTable.processorList;
+        PriorityBloomFilter[] bloomFilters = processorTable.bloomFilters;
+        List<PriorityMatchExplain.ProcessorTrace> traceList = new ArrayList<>();
+        List<PriorityMatchResult<?>> resultList = new ArrayList<>();
+        int stopLevel = -1;
+        for (int i = 0; i < processorList.size() && stopLevel < 0; i++) {
+            PriorityMatchProcessor<S, C, K> priorityMatchProcessor = processorList.get(i);
+            List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList = priorityMatchProcessor.getPriorityMatchFunctionList();
+            long processorTime = System.nanoTime();
+            if (!sourceKey.containsAll(priorityMatchProcessor.getDimensionMask())
+                    || bloomFilters[i] != null && !bloomFilters[i].mightMatch(priorityMatchFunctionList, sourceKey)) {
+                traceList.add(new PriorityMatchExplain.ProcessorTrace(priorityMatchProcessor.getUniqueId(), priorityMatchProcessor.getName(),
+                        i, true, Collections.emptyList(), 0, System.nanoTime() - processorTime, false));
+                continue;
+            }
+            List<PriorityMatchExplain.Step> stepList = new ArrayList<>();
+            int resultSize = resultList.size();
+            boolean stopped = explainLevel(tree[priorityMatchFunctionList.get(0).getPriority()], priorityMatchFunctionList, 0,
+                    new ArrayList<>(), sourceKey, stepList, resultList, allPriority);
+            traceList.add(new PriorityMatchExplain.ProcessorTrace(priorityMatchProcessor.getUniqueId(), priorityMatchProcessor.getName(),
+                    i, false, Collections.unmodifiableList(stepList), resultList.size() - resultSize, System.nanoTime() - processorTime, stopped));
+            if (stopped) {
+                stopLevel = i;
+            }
+        }
+        return new PriorityMatchExplain(allPriority, currentEngine(), Collections.unmodifiableList(dimensionList),
+                Collections.unmodifiableList(traceList), Collections.unmodifiableList(resultList), stopLevel, System.nanoTime() - startTime);
+    }
+
+    /**
+     * 与 matchLevel / recursionLevel 的查找顺序一致，步骤按深度优先顺序记录，父节点在子节点之前
+     *
+     * @return 是否找到结果后停止
+     */
+    private boolean explainLevel(PriorityMatchTree<S, C, K> node,
+                                 List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList,
+                                 int index,
+                                 List<K> path,
+                                 PrioritySourceKey<S, K> sourceKey,
+                                 List<PriorityMatchExplain.Step> stepList,
+                                 List<PriorityMatchResult<?>> resultList,
+                                 boolean allPriority) {
+        PriorityMatchFunction<S, C, K> functionNode = priorityMatchFunctionList.get(index);
+        boolean leaf = index == priorityMatchFunctionList.size() - 1;
+        K key = sourceKey.get(functionNode);
+        PriorityMatchRecord record = new PriorityMatchRecord(allPriority);
+        long startTime = System.nanoTime();
+        List<K> kList = leaf ? node.matchConfigKey(functionNode, key, record) : node.matchKey(functionNode, key, record);
+        long elapsedNanos = System.nanoTime() - startTime;
+        // 先占位，子节点的步骤排在后面
+        int stepIndex = stepList.size();
+        stepList.add(null);
+        int missCount = 0;
+        boolean stopped = false;
+        for (K k : kList) {
+            if (leaf) {
+                PriorityMatchResult<List<C>> configResult = node.getConfigResult(k);
+                if (configResult == null) {
+                    missCount++;
+                    continue;
+                }
+                resultList.add(configResult);
+                if (!allPriority) {
+                    stopped = true;
+                    break;
+                }
+            } else {
+                PriorityMatchTree<S, C, K> childTree = node.getChildTree(k, priorityMatchFunctionList.get(index + 1));
+                if (childTree == null) {
+                    missCount++;
+                    continue;
+                }
+                path.add(k);
+                stopped = explainLevel(childTree, priorityMatchFunctionList, index + 1, path, sourceKey, stepList, resultList, allPriority);
+                path.remove(path.size() - 1);
+                if (stopped) {
+                    break;
+                }
+            }
+        }
+        stepList.set(stepIndex, new PriorityMatchExplain.Step(index, functionNode.getName(), functionNode.getPriority(),
+                Collections.unmodifiableList(new ArrayList<>(path)), key, leaf, functionNode.getKeyIndexFactory() != null,
+                leaf ? node.getConfigKeyList().size() : node.getKeyList().size(), record.predicateCount,
+                Collections.unmodifiableList(new ArrayList<>(kList)), missCount, elapsedNanos));
+        return stopped;
+    }
+
+    private PriorityMatchEngine currentEngine() {
+        if (compiledMatcher != null) {
+            return PriorityMatchEngine.COMPILED;
+        }
+        if (dictionaryMatcher != null) {
+            return PriorityMatchEngine.DICTIONARY;
+        }
+        if (bitmapEngine != null) {
+            return PriorityMatchEngine.BITMAP;
+        }
+        return useTreePriority ? PriorityMatchEngine.TREE : PriorityMatchEngine.LEVEL;
+    }
+
     public void useRecordCount(String id) {
-        useRecordMap.put(id, useRecordMap.getOrDefault(id, 0) + 1);
+        useRecordMap.increment(id);
     }
 
     /**
@@ -263,129 +712,987 @@ public class PriorityFetcher<S, C, K> {
     public static <S, C, K> PriorityFetcher<S, C, K> from(List<PriorityMatchProcessor<S, C, K>> processorList,
                                                           List<C> configList,
                                                           List<PriorityMatchFunction<S, C, K>> prirotyList) {
+        return from(processorList, configList, prirotyList, false);
+    }
+
+    /**
+     * 基础的初始化逻辑
+     *
+     * @param prirotyList 配置优先级集合
+     * @param configList  配置集合
+     * @param dictionary  是否为相等匹配维度生成key字典，内容相同的key在树上共享同一个实例，配合 dictionary() 使用
+     * @return 优先级获取器
+     */
+    public static <S, C, K> PriorityFetcher<S, C, K> from(List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                          List<C> configList,
+                                                          List<PriorityMatchFunction<S, C, K>> prirotyList,
+                                                          boolean dictionary) {
+        return from(processorList, configList.iterator(), prirotyList, dictionary);
+    }
+
+    /**
+     * 流式初始化，配置边读取边挂到树上，不需要先把全部配置加载为集合
+     * 构建过程中除优先级树外不再持有读取过的配置，适合从文件、数据库游标直接读取
+     *
+     * @param prirotyList    配置优先级集合
+     * @param configIterator 配置迭代器，按顺序读取一次，读取顺序即叶子配置顺序
+     * @param dictionary     是否为相等匹配维度生成key字典
+     * @return 优先级获取器
+     */
+    public static <S, C, K> PriorityFetcher<S, C, K> from(List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                          Iterator<? extends C> configIterator,
+                                                          List<PriorityMatchFunction<S, C, K>> prirotyList,
+                                                          boolean dictionary) {
+        long startTime = System.nanoTime();
         // 初始化最终对象
         PriorityFetcher<S, C, K> priorityFetcher = new PriorityFetcher<>(processorList, prirotyList);
+        PriorityKeyDictionary<K>[] dictionaries = dictionary ? PriorityKeyDictionary.of(prirotyList) : null;
+        priorityFetcher.dictionaries = dictionaries;
         // 循环配置，设置key匹配情况
-        for (C config : configList) {
-            K k = null;
-            PriorityMatchFunction<S, C, K> functionHead = null;
-            PriorityMatchTree<S, C, K> priorityMatchTree = null;
-            List<PriorityMatchFunction<S, C, K>> usePriorityMatchFunctionList = new ArrayList<>(prirotyList.size());
-            for (PriorityMatchFunction<S, C, K> priorityMatchFunction : prirotyList) {
-                K newK = priorityMatchFunction.matchConfig(config);
-                // 如果为空说明该路由不匹配, 或者是空字符, 应该匹配其他场景的优先级
-                if (newK == null || Objects.equals("", newK)) {
-                    continue;
-                }
-                usePriorityMatchFunctionList.add(priorityMatchFunction);
-                // 初始化头
-                if (functionHead == null) {
-                    functionHead = priorityMatchFunction;
-                    priorityMatchTree = priorityFetcher.getTree()[functionHead.getPriority()];
-                    k = newK;
-                    continue;
-                }
-                // 基于顶层k生成子树节点数据
-                priorityMatchTree = priorityMatchTree.initChildTree(k, priorityMatchFunction, prirotyList.size());
-                // 将K替换为子节点的K
-                k = newK;
-            }
-            // 3.当前 priorityMatchTree 已经是叶子节点数据, 增加数据
-            if (k != null) {
-                priorityMatchTree.addConfig(k, config);
-                // 记录使用
-                priorityFetcher.useRecordCount(PriorityMatchProcessor.initUniqueId(usePriorityMatchFunctionList));
-            }
-        }
+        PriorityTreeBuilder<S, C, K> builder = new PriorityTreeBuilder<>(prirotyList, priorityFetcher.tree,
+                priorityFetcher.useRecordMap, dictionaries);
+        builder.addAll(configIterator);
+        priorityFetcher.initBloomFilters(builder.getPathHashMap());
+        priorityFetcher.initKeyIndexes(null);
+        priorityFetcher.fromTimeNanos = System.nanoTime() - startTime;
 
         return priorityFetcher;
     }
 
     /**
-     * 剪枝，移除没有加载配置的集合信息
-     *
-     * @return 当前对象
+     * 并行初始化，使用公共 ForkJoinPool，见 fromParallel(processorList, configList, prirotyList, dictionary, pool)
      */
-    public PriorityFetcher<S, C, K> pruning() {
-        // 剪枝操作
-        processorList = processorList.stream()
-                .filter(v -> this.useRecordMap.containsKey(v.getUniqueId()))
-                .collect(Collectors.toList());
-        return this;
+    public static <S, C, K> PriorityFetcher<S, C, K> fromParallel(List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                                  List<C> configList,
+                                                                  List<PriorityMatchFunction<S, C, K>> prirotyList,
+                                                                  boolean dictionary) {
+        return fromParallel(processorList, configList, prirotyList, dictionary, ForkJoinPool.commonPool());
     }
 
     /**
-     * 转换树处理
+     * 并行初始化，配置集按顺序切分为多个分片，分片在线程池上分别构建局部的优先级树，再按分片顺序合并
+     * 合并后节点key顺序、叶子配置顺序与 from() 一致，匹配结果相同
+     * 配置数量不足两个分片时直接使用 from()
+     * 开启字典时相等匹配维度内容相同的key同样共享一个实例，字典在合并后基于树生成，编码顺序与 from() 可能不同
      *
-     * @return 当前对象
+     * @param prirotyList 配置优先级集合
+     * @param configList  配置集合，获取key的函数会被多个线程同时调用
+     * @param dictionary  是否为相等匹配维度生成key字典
+     * @param pool        执行构建的线程池，按其并行度切分分片
+     * @return 优先级获取器
      */
-    public PriorityFetcher<S, C, K> tree() {
-        // 剪枝操作
-        this.useTreePriority = true;
-        this.priorityMatchProcessorTree = PriorityMatchProcessorTree.build(this.processorList);
-        return this;
+    public static <S, C, K> PriorityFetcher<S, C, K> fromParallel(List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                                  List<C> configList,
+                                                                  List<PriorityMatchFunction<S, C, K>> prirotyList,
+                                                                  boolean dictionary,
+                                                                  ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "PriorityFetcher pool cannot be null!");
+        int parallelism = pool.getParallelism();
+        // 每个线程分到多个分片，减少分片耗时不均导致的等待
+        int chunkSize = Math.max(MIN_PARALLEL_BUILD_CHUNK_SIZE, (configList.size() + parallelism * 4 - 1) / (parallelism * 4));
+        if (parallelism <= 1 || configList.size() <= chunkSize) {
+            return from(processorList, configList, prirotyList, dictionary);
+        }
+        return fromParallel(processorList, configList.iterator(), prirotyList, dictionary, chunkSize, pool);
     }
 
     /**
-     * 优先级匹配树对象
-     * [0]         [1]          [2]
+     * 流式并行初始化，调用线程按顺序读取配置，每读满一个分片就提交到线程池构建，读取与构建同时进行
+     * 构建完成的分片按顺序合并到第一个分片上，未合并的分片最多为线程池并行度的两倍，构建慢于读取时调用线程等待
+     * 因此除优先级树外额外持有的配置与局部树有上限，与配置总数无关，合并规则与 fromParallel(List) 相同
+     *
+     * @param prirotyList    配置优先级集合
+     * @param configIterator 配置迭代器，只在调用线程上读取，获取key的函数会被多个线程同时调用
+     * @param dictionary     是否为相等匹配维度生成key字典
+     * @param pool           执行构建的线程池，并行度为1时直接使用 from()
+     * @return 优先级获取器
      */
-    static class PriorityMatchTree<S, C, K> {
-
-        /**
-         * 树索引，顶层为0
-         */
-        private final Integer index;
-
-        /**
-         * K: 当前树层级数据
-         * V: 子数据集
-         */
-        private final Map<K, PriorityMatchTree<S, C, K>[]> currentTree;
-
-        /**
-         * 叶子节点才存在配置
-         */
-        private final Map<K, List<C>> configMap;
-
-        PriorityMatchTree(Integer index) {
-            this.index = index;
-            this.currentTree = new LinkedHashMap<>();
-            this.configMap = new LinkedHashMap<>();
+    public static <S, C, K> PriorityFetcher<S, C, K> fromParallel(List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                                  Iterator<? extends C> configIterator,
+                                                                  List<PriorityMatchFunction<S, C, K>> prirotyList,
+                                                                  boolean dictionary,
+                                                                  ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "PriorityFetcher pool cannot be null!");
+        if (pool.getParallelism() <= 1) {
+            return from(processorList, configIterator, prirotyList, dictionary);
         }
+        return fromParallel(processorList, configIterator, prirotyList, dictionary, STREAM_BUILD_CHUNK_SIZE, pool);
+    }
 
-        public Integer getIndex() {
-            return index;
+    private static <S, C, K> PriorityFetcher<S, C, K> fromParallel(List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                                   Iterator<? extends C> configIterator,
+                                                                   List<PriorityMatchFunction<S, C, K>> prirotyList,
+                                                                   boolean dictionary,
+                                                                   int chunkSize,
+                                                                   ForkJoinPool pool) {
+        long startTime = System.nanoTime();
+        PriorityFetcher<S, C, K> priorityFetcher = new PriorityFetcher<>(processorList, prirotyList);
+        PriorityTreeBuilder<S, C, K> builder = PriorityTreeBuilder.buildParallel(prirotyList, configIterator,
+                priorityFetcher.useRecordMap, dictionary, chunkSize, pool);
+        System.arraycopy(builder.getTree(), 0, priorityFetcher.tree, 0, priorityFetcher.tree.length);
+        if (dictionary) {
+            priorityFetcher.dictionaries = PriorityKeyDictionary.build(priorityFetcher.tree, prirotyList);
         }
+        priorityFetcher.initBloomFilters(builder.getPathHashMap());
+        priorityFetcher.initKeyIndexes(null);
+        priorityFetcher.fromTimeNanos = System.nanoTime() - startTime;
 
-        public void addConfig(K k, C config) {
-            this.configMap.computeIfAbsent(k, k1 -> new ArrayList<>()).add(config);
-        }
+        return priorityFetcher;
+    }
 
-        public Collection<K> getKeyList() {
-            return currentTree.keySet();
+    /**
+     * 构建完成后生成布隆过滤器
+     *
+     * @param pathHashMap 相等匹配路径上的组合key hash, uniqueId为标识
+     */
+    private void initBloomFilters(Map<String, List<Long>> pathHashMap) {
+        // 没有配置的相等匹配Processor也生成过滤器，匹配时直接跳过
+        List<PriorityMatchProcessor<S, C, K>> processorList = processorTable.processorList;
+        for (PriorityMatchProcessor<S, C, K> priorityMatchProcessor : processorList) {
+            if (isEqualityProcessor(priorityMatchProcessor)) {
+                bloomFilterMap.put(priorityMatchProcessor.getUniqueId(),
+                        PriorityBloomFilter.build(pathHashMap.getOrDefault(priorityMatchProcessor.getUniqueId(), Collections.emptyList())));
+            }
         }
+        processorTable = newProcessorTable(processorList);
+    }
 
-        public Collection<K> getConfigKeyList() {
-            return configMap.keySet();
+    /**
+     * 为区间、前缀、正则等有索引工厂的维度生成节点上的key索引，在构建阶段完成，匹配时只读取
+     * 配置key不合法(如正则无法编译)时在这里直接抛出，不会延迟到匹配时
+     *
+     * @param copied 增量更新中复制或新建的节点，只处理其中的节点，其余节点与上一个版本共享，索引已经生成; 为null时处理全部节点
+     */
+    private void initKeyIndexes(Set<Object> copied) {
+        boolean indexed = false;
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityFunctions) {
+            indexed |= priorityMatchFunction.getKeyIndexFactory() != null;
         }
-
-        public List<C> getConfigList(K k) {
-            return configMap.getOrDefault(k, Collections.emptyList());
+        if (!indexed) {
+            return;
         }
-
-
-        public PriorityMatchTree<S, C, K> getChildTree(K k, PriorityMatchFunction<S, C, K> childFunction) {
-            PriorityMatchTree<S, C, K>[] priorityMatchTrees = currentTree.get(k);
-            if (priorityMatchTrees == null) {
-                return null;
+        for (int priority = 0; priority < tree.length; priority++) {
+            if (copied == null || copied.contains(tree[priority])) {
+                tree[priority].initKeyIndex(priorityFunctions[priority], priorityFunctions, copied);
             }
-            return priorityMatchTrees[childFunction.getPriority()];
         }
+    }
 
-        public PriorityMatchTree<S, C, K> initChildTree(K k, PriorityMatchFunction<S, C, K> childFunction, int prioritySize) {
-            PriorityMatchTree<S, C, K>[] childPriorityMatchTreeArr = currentTree.computeIfAbsent(k, k1 -> new PriorityMatchTree[prioritySize]);
-            PriorityMatchTree<S, C, K> childPriorityMatchTree = childPriorityMatchTreeArr[childFunction.getPriority()];
+    /**
+     * 剪枝，移除没有加载配置的集合信息
+     *
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> pruning() {
+        // 剪枝操作
+        List<PriorityMatchProcessor<S, C, K>> pruningList = Collections.unmodifiableList(processorTable.processorList.stream()
+                .filter(v -> this.useRecordMap.contains(v.getUniqueId()))
+                .collect(Collectors.toList()));
+        processorTable = newProcessorTable(pruningList);
+        pruned = true;
+        return this;
+    }
+
+    /**
+     * 增量新增配置，见 withConfigsAdded
+     *
+     * @param config 配置
+     * @return 新的获取器
+     */
+    public PriorityFetcher<S, C, K> withConfigAdded(C config) {
+        return withConfigsAdded(Collections.singletonList(config));
+    }
+
+    /**
+     * 增量删除配置，见 withConfigsRemoved
+     *
+     * @param config 配置
+     * @return 新的获取器
+     */
+    public PriorityFetcher<S, C, K> withConfigRemoved(C config) {
+        return withConfigsRemoved(Collections.singletonList(config));
+    }
+
+    /**
+     * 增量新增配置，返回新的获取器，当前对象不变，正在使用当前对象的匹配不受影响
+     * 新对象与当前对象共享没有变化的子树，只复制配置路径上的节点，耗时与树深度(及路径上节点的key数量)相关，与配置总量无关
+     * 结果与把配置追加到配置集末尾后重新构建一致
+     *
+     * @param configList 新增的配置
+     * @return 新的获取器
+     */
+    public PriorityFetcher<S, C, K> withConfigsAdded(Collection<C> configList) {
+        return update(configList, Collections.emptyList());
+    }
+
+    /**
+     * 增量删除配置，返回新的获取器，当前对象不变，正在使用当前对象的匹配不受影响
+     * 配置按 equals 删除，同一叶子上有多个相等的配置时只删除一个，不存在的配置忽略
+     * 叶子没有配置后删除叶子，节点为空后从父节点删除，Processor没有配置后重新剪枝
+     *
+     * @param configList 删除的配置
+     * @return 新的获取器
+     */
+    public PriorityFetcher<S, C, K> withConfigsRemoved(Collection<C> configList) {
+        return update(Collections.emptyList(), configList);
+    }
+
+    /**
+     * 基于新的全量配置集差量重建，返回新的获取器，当前对象不变，正在使用当前对象的匹配不受影响
+     * 新配置按维度key向量找到已有叶子，叶子上的配置集与新配置集相等(按 equals, 顺序一致)时直接共享，只重建配置集变化的叶子所在路径
+     * 配置需要实现 equals/hashCode, 否则每次全量配置都是新对象，全部叶子都会被视为变化
+     * 叶子上的配置集按新配置集的顺序，但节点上已有key保持原顺序，新key追加在后，不按新配置集中key的先后重排
+     * 只有相等匹配维度时每个节点最多命中一个key, 结果与使用新配置集重新构建一致;
+     * 包含布尔、区间、正则等一个节点可以命中多个key的维度时，新配置集调整了key的先后，结果顺序会与重新构建不同，
+     * allPriority=false 时返回的配置也可能不同，需要按新配置集顺序时使用 from() 重新构建
+     *
+     * @param configList 新的全量配置集
+     * @return 新的获取器
+     */
+    public PriorityFetcher<S, C, K> rebuildFrom(List<C> configList) {
+        checkNotFrozen();
+        // 新配置按已有叶子分组，路径上没有叶子的为新增
+        Map<PriorityMatchResult<List<C>>, List<C>> leafConfigMap = new IdentityHashMap<>();
+        List<C> addList = new ArrayList<>();
+        List<PriorityMatchFunction<S, C, K>> functionList = new ArrayList<>(priorityList.size());
+        List<K> keyList = new ArrayList<>(priorityList.size());
+        for (C config : configList) {
+            functionList.clear();
+            keyList.clear();
+            if (!configPath(config, functionList, keyList)) {
+                continue;
+            }
+            PriorityMatchResult<List<C>> configResult = findConfigResult(functionList, keyList);
+            if (configResult == null) {
+                addList.add(config);
+            } else {
+                leafConfigMap.computeIfAbsent(configResult, r -> new ArrayList<>()).add(config);
+            }
+        }
+        List<PriorityMatchResult<List<C>>> configResultList = new ArrayList<>();
+        for (PriorityMatchTree<S, C, K> root : tree) {
+            root.collectConfigResults(configResultList);
+        }
+        PriorityFetcher<S, C, K> priorityFetcher = new PriorityFetcher<>(this);
+        Set<Object> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PriorityMatchResult<List<C>> configResult : configResultList) {
+            List<C> newConfigList = leafConfigMap.getOrDefault(configResult, Collections.emptyList());
+            if (!newConfigList.equals(configResult.getResult())) {
+                priorityFetcher.replaceConfigs(configResult.getResult().get(0), newConfigList, copied);
+            }
+        }
+        for (C config : addList) {
+            priorityFetcher.addConfig(config, copied);
+        }
+        return priorityFetcher.afterUpdate(this, copied);
+    }
+
+    /**
+     * 增量更新
+     * 树模式、编译匹配与结果缓存(清空)会在新对象上重新生成，耗时只与Processor数量相关
+     * 位图与字典编码同样在新对象上重新生成，二者依赖全部配置，耗时与全量构建位图/字典一致
+     * 冻结后的对象已经释放原树，不支持增量更新
+     */
+    private PriorityFetcher<S, C, K> update(Collection<C> addList, Collection<C> removeList) {
+        checkNotFrozen();
+        PriorityFetcher<S, C, K> priorityFetcher = new PriorityFetcher<>(this);
+        // 本次更新中已经复制的节点与叶子结果，同一批次内再次修改时直接写入
+        Set<Object> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (C config : removeList) {
+            priorityFetcher.removeConfig(config, copied);
+        }
+        for (C config : addList) {
+            priorityFetcher.addConfig(config, copied);
+        }
+        return priorityFetcher.afterUpdate(this, copied);
+    }
+
+    /**
+     * 更新后为变化的节点生成key索引并重新剪枝，按上一个版本的模式重新生成树、编译匹配、位图、字典编码、缓存与命中统计，沿用匹配监听器
+     *
+     * @param copied 本次更新中复制或新建的节点
+     */
+    private PriorityFetcher<S, C, K> afterUpdate(PriorityFetcher<S, C, K> previous, Set<Object> copied) {
+        initKeyIndexes(copied);
+        List<PriorityMatchProcessor<S, C, K>> processorList = pruned
+                ? Collections.unmodifiableList(allProcessorList.stream()
+                .filter(v -> useRecordMap.contains(v.getUniqueId()))
+                .collect(Collectors.toList()))
+                : allProcessorList;
+        this.processorTable = newProcessorTable(processorList);
+        if (previous.useTreePriority) {
+            tree();
+        }
+        if (previous.compiledMatcher != null) {
+            compile();
+        }
+        if (previous.bitmapEngine != null) {
+            bitmap();
+        }
+        if (previous.dictionaryMatcher != null) {
+            dictionary();
+        }
+        PriorityResultCache<MatchCacheKey<S, K>, List<PriorityMatchResult<List<C>>>> cache = previous.resultCache;
+        if (cache != null) {
+            cache(cache.stats().getMaxSize());
+        }
+        if (previous.hitCounter != null) {
+            recordHits(true);
+        }
+        this.matchListener = previous.matchListener;
+        return this;
+    }
+
+    /**
+     * 配置路径上的维度与key, 与构建时的取值规则一致
+     *
+     * @return 配置没有任何维度为false
+     */
+    private boolean configPath(C config, List<PriorityMatchFunction<S, C, K>> functionList, List<K> keyList) {
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityList) {
+            K k = priorityMatchFunction.matchConfig(config);
+            if (k == null || Objects.equals("", k)) {
+                continue;
+            }
+            functionList.add(priorityMatchFunction);
+            keyList.add(k);
+        }
+        return !keyList.isEmpty();
+    }
+
+    /**
+     * 按路径查找叶子，不复制节点
+     *
+     * @return 叶子结果，不存在为null
+     */
+    private PriorityMatchResult<List<C>> findConfigResult(List<PriorityMatchFunction<S, C, K>> functionList, List<K> keyList) {
+        int last = functionList.size() - 1;
+        PriorityMatchTree<S, C, K> node = tree[functionList.get(0).getPriority()];
+        for (int i = 1; i <= last && node != null; i++) {
+            node = node.getChildTree(keyList.get(i - 1), functionList.get(i).getPriority());
+        }
+        return node == null ? null : node.getConfigResult(keyList.get(last));
+    }
+
+    /**
+     * 复制路径上的全部节点，本次更新中已经复制的直接复用，子节点不存在时创建
+     *
+     * @return 路径上的节点，与 functionList 下标对齐
+     */
+    private List<PriorityMatchTree<S, C, K>> copyPath(List<PriorityMatchFunction<S, C, K>> functionList, List<K> keyList, Set<Object> copied) {
+        List<PriorityMatchTree<S, C, K>> path = new ArrayList<>(functionList.size());
+        int priority = functionList.get(0).getPriority();
+        PriorityMatchTree<S, C, K> node = tree[priority];
+        if (!copied.contains(node)) {
+            node = node.copy();
+            copied.add(node);
+            tree[priority] = node;
+        }
+        path.add(node);
+        for (int i = 1; i < functionList.size(); i++) {
+            int childPriority = functionList.get(i).getPriority();
+            PriorityMatchTree<S, C, K> child = node.getChildTree(keyList.get(i - 1), childPriority);
+            if (child == null || !copied.contains(child)) {
+                child = child == null ? new PriorityMatchTree<>(node.getIndex() + 1) : child.copy();
+                copied.add(child);
+                node.setChildTree(keyList.get(i - 1), childPriority, child, priorityList.size());
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * 复制叶子结果，本次更新中已经复制的直接复用
+     */
+    private PriorityMatchResult<List<C>> copyConfigResult(PriorityMatchTree<S, C, K> node, K k, Set<Object> copied) {
+        PriorityMatchResult<List<C>> configResult = node.getConfigResult(k);
+        if (copied.contains(configResult)) {
+            return configResult;
+        }
+        configResult = PriorityMatchResult.ofList(configResult.getUniqueId(), configResult.getName(),
+                configResult.getLevel(), new ArrayList<>(configResult.getResult()));
+        copied.add(configResult);
+        node.putConfigResult(k, configResult);
+        return configResult;
+    }
+
+    /**
+     * 自下而上删除空节点，头节点保留
+     */
+    private void removeEmptyPath(List<PriorityMatchTree<S, C, K>> path, List<PriorityMatchFunction<S, C, K>> functionList, List<K> keyList) {
+        for (int i = path.size() - 1; i > 0 && path.get(i).isEmpty(); i--) {
+            path.get(i - 1).setChildTree(keyList.get(i - 1), functionList.get(i).getPriority(), null, priorityList.size());
+        }
+    }
+
+    private void useRecordChange(String uniqueId, int delta) {
+        useRecordMap.add(uniqueId, delta);
+    }
+
+    private void addConfig(C config, Set<Object> copied) {
+        List<PriorityMatchFunction<S, C, K>> functionList = new ArrayList<>(priorityList.size());
+        List<K> keyList = new ArrayList<>(priorityList.size());
+        if (!configPath(config, functionList, keyList)) {
+            return;
+        }
+        List<PriorityMatchTree<S, C, K>> path = copyPath(functionList, keyList, copied);
+        PriorityMatchTree<S, C, K> node = path.get(path.size() - 1);
+        K k = keyList.get(keyList.size() - 1);
+        PriorityMatchResult<List<C>> configResult;
+        if (node.getConfigResult(k) == null) {
+            configResult = node.addConfig(k, config, functionList);
+            copied.add(configResult);
+        } else {
+            configResult = copyConfigResult(node, k, copied);
+            configResult.getSource().add(config);
+        }
+        useRecordCount(configResult.getUniqueId());
+        // 新路径不在过滤器中时复制过滤器后放入，本次更新中已经复制的直接写入
+        PriorityBloomFilter bloomFilter = bloomFilterMap.get(configResult.getUniqueId());
+        if (bloomFilter != null) {
+            long pathHash = PriorityBloomFilter.SEED;
+            for (K pathKey : keyList) {
+                pathHash = PriorityBloomFilter.combine(pathHash, pathKey);
+            }
+            if (!bloomFilter.mightContain(pathHash)) {
+                if (!copied.contains(bloomFilter)) {
+                    bloomFilter = bloomFilter.copy();
+                    copied.add(bloomFilter);
+                    bloomFilterMap.put(configResult.getUniqueId(), bloomFilter);
+                }
+                bloomFilter.put(pathHash);
+            }
+        }
+    }
+
+    private void removeConfig(C config, Set<Object> copied) {
+        List<PriorityMatchFunction<S, C, K>> functionList = new ArrayList<>(priorityList.size());
+        List<K> keyList = new ArrayList<>(priorityList.size());
+        if (!configPath(config, functionList, keyList)) {
+            return;
+        }
+        // 先确认配置存在，不存在时不复制任何节点
+        PriorityMatchResult<List<C>> configResult = findConfigResult(functionList, keyList);
+        if (configResult == null || !configResult.getResult().contains(config)) {
+            return;
+        }
+        List<PriorityMatchTree<S, C, K>> path = copyPath(functionList, keyList, copied);
+        PriorityMatchTree<S, C, K> node = path.get(path.size() - 1);
+        K k = keyList.get(keyList.size() - 1);
+        configResult = copyConfigResult(node, k, copied);
+        configResult.getSource().remove(config);
+        if (configResult.getResult().isEmpty()) {
+            node.removeConfigResult(k);
+            removeEmptyPath(path, functionList, keyList);
+        }
+        useRecordChange(configResult.getUniqueId(), -1);
+    }
+
+    /**
+     * 整体替换叶子上的配置集，路径与维度key不变
+     *
+     * @param pathConfig    叶子上已有的任意一个配置，用于确定路径
+     * @param newConfigList 新的配置集，为空时删除叶子
+     */
+    private void replaceConfigs(C pathConfig, List<C> newConfigList, Set<Object> copied) {
+        List<PriorityMatchFunction<S, C, K>> functionList = new ArrayList<>(priorityList.size());
+        List<K> keyList = new ArrayList<>(priorityList.size());
+        configPath(pathConfig, functionList, keyList);
+        List<PriorityMatchTree<S, C, K>> path = copyPath(functionList, keyList, copied);
+        PriorityMatchTree<S, C, K> node = path.get(path.size() - 1);
+        K k = keyList.get(keyList.size() - 1);
+        PriorityMatchResult<List<C>> configResult = node.getConfigResult(k);
+        useRecordChange(configResult.getUniqueId(), newConfigList.size() - configResult.getResult().size());
+        if (newConfigList.isEmpty()) {
+            node.removeConfigResult(k);
+            removeEmptyPath(path, functionList, keyList);
+            return;
+        }
+        configResult = PriorityMatchResult.ofList(configResult.getUniqueId(), configResult.getName(),
+                configResult.getLevel(), new ArrayList<>(newConfigList));
+        copied.add(configResult);
+        node.putConfigResult(k, configResult);
+    }
+
+    private ProcessorTable<S, C, K> newProcessorTable(List<PriorityMatchProcessor<S, C, K>> processorList) {
+        PriorityBloomFilter[] bloomFilters = new PriorityBloomFilter[processorList.size()];
+        for (int i = 0; i < processorList.size(); i++) {
+            bloomFilters[i] = bloomFilterMap.get(processorList.get(i).getUniqueId());
+        }
+        return new ProcessorTable<>(processorList, bloomFilters);
+    }
+
+    private static <S, C, K> boolean isEqualityProcessor(PriorityMatchProcessor<S, C, K> priorityMatchProcessor) {
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityMatchProcessor.getPriorityMatchFunctionList()) {
+            if (priorityMatchFunction.getType() != PriorityMatchType.COMMON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 转换树处理
+     *
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> tree() {
+        long startTime = System.nanoTime();
+        // 剪枝操作
+        this.priorityMatchProcessorTree = PriorityMatchProcessorTree.build(this.processorTable.processorList);
+        this.treeTimeNanos = System.nanoTime() - startTime;
+        this.useTreePriority = true;
+        this.bitmapEngine = null;
+        this.compiledMatcher = null;
+        this.dictionaryMatcher = null;
+        return this;
+    }
+
+    /**
+     * 转换位图匹配，维度多、配置稀疏时逐层查找子树的开销大，改为按维度位图求交集
+     * 结果与逐层匹配一致，需要在剪枝之后调用
+     *
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> bitmap() {
+        checkNotFrozen();
+        ProcessorTable<S, C, K> processorTable = this.processorTable;
+        this.bitmapEngine = PriorityBitmapEngine.build(this.tree, this.priorityFunctions, processorTable.processorList,
+                processorTable.bloomFilters);
+        this.useTreePriority = false;
+        this.compiledMatcher = null;
+        this.dictionaryMatcher = null;
+        return this;
+    }
+
+    /**
+     * 编译逐层匹配，需要在剪枝之后调用
+     * 按当前Processor结构为每个Processor预先组装匹配步骤链，相等匹配维度直接查节点，结果与逐层匹配一致
+     *
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> compile() {
+        checkNotFrozen();
+        ProcessorTable<S, C, K> processorTable = this.processorTable;
+        this.compiledMatcher = PriorityCompiledMatcher.compile(this.tree, processorTable.processorList, processorTable.bloomFilters);
+        this.useTreePriority = false;
+        this.bitmapEngine = null;
+        this.dictionaryMatcher = null;
+        return this;
+    }
+
+    /**
+     * 字典编码匹配，需要在剪枝之后调用
+     * 相等匹配维度的key编码为int, 匹配时每个维度只查一次字典，需求key不在字典中的Processor直接跳过
+     * 构建时未生成字典的，基于当前优先级树生成，结果与逐层匹配一致
+     * 编码树是相等匹配维度子树的副本，原优先级树仍然保留，常驻内存增加约三分之一，估算值见 stats()
+     *
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> dictionary() {
+        checkNotFrozen();
+        this.dictionaryMatcher = PriorityDictionaryMatcher.build(this.tree, this.priorityFunctions, this.processorTable.processorList, this.dictionaries);
+        this.useTreePriority = false;
+        this.bitmapEngine = null;
+        this.compiledMatcher = null;
+        return this;
+    }
+
+    /**
+     * 冻结优先级树，需要在剪枝之后调用
+     * 全部节点转换为平铺的并行数组(CSR), 不再为每个节点保存两个 LinkedHashMap, 也不再为每个key分配维度数量大小的子树数组
+     * 冻结后释放原优先级树，getTree() 返回空树，逐层匹配与树匹配直接在冻结后的结构上执行，结果不变
+     * 冻结后不能再转换为 bitmap / compile / dictionary
+     *
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> freeze() {
+        if (frozenTree != null) {
+            return this;
+        }
+        this.frozenTree = PriorityFrozenTree.freeze(this.tree, this.priorityFunctions);
+        this.bitmapEngine = null;
+        this.compiledMatcher = null;
+        this.dictionaryMatcher = null;
+        this.dictionaries = null;
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = new PriorityMatchTree<>(1);
+        }
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozenTree != null;
+    }
+
+    private void checkNotFrozen() {
+        if (frozenTree != null) {
+            throw new UnsupportedOperationException("PriorityFetcher is frozen, the match tree has been released!");
+        }
+    }
+
+    /**
+     * 开启匹配结果缓存，按需求维度key向量缓存，LRU淘汰
+     * 适合取值组合集中的场景，开启后 match(S, true) 返回的集合不可修改
+     * 匹配时会一次性取出全部维度的key
+     *
+     * @param maxSize 最大缓存数量，小于等于0关闭缓存
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> cache(int maxSize) {
+        this.resultCache = maxSize > 0 ? new PriorityResultCache<>(maxSize) : null;
+        return this;
+    }
+
+    /**
+     * 匹配结果缓存统计
+     *
+     * @return 统计快照，未开启缓存为null
+     */
+    public PriorityCacheStats getCacheStats() {
+        PriorityResultCache<MatchCacheKey<S, K>, List<PriorityMatchResult<List<C>>>> cache = resultCache;
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * 开启匹配命中统计，按Processor与叶子分别计数，计数器使用 LongAdder, 并发匹配时不争用同一个计数器
+     * 每次匹配只增加一次请求计数与每个结果两次计数，可以在生产环境常开；开启缓存时缓存命中同样计数
+     * 重新开启会清空已有计数
+     *
+     * @param enabled 是否统计
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> recordHits(boolean enabled) {
+        this.hitCounter = enabled ? new PriorityHitCounter<>() : null;
+        return this;
+    }
+
+    /**
+     * 匹配命中统计，叶子路径在生成快照时还原，不要在匹配链路上调用
+     * 可以据此判断哪些优先级层级在实际承担流量，从而决定缓存与剪枝策略
+     *
+     * @return 统计快照，未开启为null
+     */
+    public PriorityHitStats getHitStats() {
+        PriorityHitCounter<C> counter = hitCounter;
+        return counter == null ? null : counter.stats(processorTable.processorList, useRecordMap, this::leafKeyList);
+    }
+
+    /**
+     * 设置匹配监听器，每次实际执行匹配(批量匹配为每个去重后的key向量)后回调一次汇总记录
+     * 记录包括耗时、访问的Processor与树节点数量、BOOLEAN 维度匹配函数调用次数、候选key数量以及产生结果的Processor
+     * 内置实现见 PriorityMatchRecorder; 未设置或设置为 noop 时匹配只多一次 volatile 读取
+     *
+     * @param listener 监听器，null 关闭
+     * @return 当前对象
+     */
+    public PriorityFetcher<S, C, K> matchListener(PriorityMatchListener listener) {
+        this.matchListener = listener == PriorityMatchListener.noop() ? null : listener;
+        return this;
+    }
+
+    /**
+     * @return 当前监听器，未设置为 noop
+     */
+    public PriorityMatchListener getMatchListener() {
+        PriorityMatchListener listener = matchListener;
+        return listener == null ? PriorityMatchListener.noop() : listener;
+    }
+
+    private List<?> leafKeyList(PriorityMatchResult<List<C>> configResult) {
+        List<K> keyList = new ArrayList<>(priorityList.size());
+        if (!configResult.getResult().isEmpty()) {
+            configPath(configResult.getResult().get(0), new ArrayList<>(priorityList.size()), keyList);
+        }
+        return Collections.unmodifiableList(keyList);
+    }
+
+    /**
+     * 结构与内存统计，每次调用都会遍历整棵优先级树，不要在匹配链路上调用
+     * 可以据此判断是否值得转换为树、位图或冻结，以及哪个维度的key过多
+     *
+     * @return 统计快照
+     */
+    public PriorityFetcherStats stats() {
+        PriorityFetcherStats.Builder builder = new PriorityFetcherStats.Builder(priorityList);
+        PriorityFrozenTree<S, C, K> frozenTree = this.frozenTree;
+        if (frozenTree != null) {
+            frozenTree.stats(builder);
+        } else {
+            for (int priority = 0; priority < tree.length; priority++) {
+                tree[priority].stats(priority, builder);
+            }
+        }
+        // 字典编码树是原优先级树之外的副本
+        PriorityDictionaryMatcher<S, C, K> dictionaryMatcher = this.dictionaryMatcher;
+        if (dictionaryMatcher != null) {
+            builder.heap(dictionaryMatcher.heapBytes());
+        }
+        return builder.build(processorCountBeforePruning, processorTable.processorList.size(), fromTimeNanos,
+                useTreePriority ? treeTimeNanos : -1, frozenTree != null);
+    }
+
+    /**
+     * Processor集合与下标对齐的布隆过滤器，非相等匹配的Processor过滤器为null
+     * 创建后不再修改，通过 processorTable 整体发布，读取方不会看到长度或顺序不一致的两者
+     */
+    private static final class ProcessorTable<S, C, K> {
+        private final List<PriorityMatchProcessor<S, C, K>> processorList;
+        private final PriorityBloomFilter[] bloomFilters;
+
+        private ProcessorTable(List<PriorityMatchProcessor<S, C, K>> processorList, PriorityBloomFilter[] bloomFilters) {
+            this.processorList = processorList;
+            this.bloomFilters = bloomFilters;
+        }
+    }
+
+    /**
+     * 缓存key, 同一个key向量的单优先级与全部优先级结果分开缓存
+     */
+    private static final class MatchCacheKey<S, K> {
+        private final PrioritySourceKey<S, K> sourceKey;
+        private final boolean allPriority;
+
+        private MatchCacheKey(PrioritySourceKey<S, K> sourceKey, boolean allPriority) {
+            this.sourceKey = sourceKey;
+            this.allPriority = allPriority;
+        }
+
+        @Override
+        public int hashCode() {
+            return sourceKey.hashCode() * 31 + (allPriority ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MatchCacheKey)) return false;
+            MatchCacheKey<?, ?> cacheKey = (MatchCacheKey<?, ?>) o;
+            return allPriority == cacheKey.allPriority && sourceKey.equals(cacheKey.sourceKey);
+        }
+    }
+
+    /**
+     * 优先级匹配树对象
+     * [0]         [1]          [2]
+     */
+    static class PriorityMatchTree<S, C, K> {
+
+        /**
+         * 树索引，顶层为0
+         */
+        private final Integer index;
+
+        /**
+         * K: 当前树层级数据
+         * V: 子数据集
+         */
+        private final Map<K, PriorityMatchTree<S, C, K>[]> currentTree;
+
+        /**
+         * 叶子节点才存在配置
+         * V: 构建时生成的匹配结果，命中时直接复用，不再拼接uniqueId与名称
+         */
+        private final Map<K, PriorityMatchResult<List<C>>> configMap;
+
+        /**
+         * currentTree / configMap 上key的索引，构建完成后基于节点维度生成，key变化时失效，匹配时只读取
+         */
+        private PriorityKeyIndex<K> keyIndex;
+        private PriorityKeyIndex<K> configKeyIndex;
+
+        PriorityMatchTree(Integer index) {
+            this(index, new LinkedHashMap<>(), new LinkedHashMap<>());
+        }
+
+        private PriorityMatchTree(Integer index,
+                                  Map<K, PriorityMatchTree<S, C, K>[]> currentTree,
+                                  Map<K, PriorityMatchResult<List<C>>> configMap) {
+            this.index = index;
+            this.currentTree = currentTree;
+            this.configMap = configMap;
+        }
+
+        /**
+         * 增量更新时复制节点，子树数组与匹配结果仍然共享，修改前需要替换
+         * key索引同样共享，复制后key变化时失效
+         */
+        PriorityMatchTree<S, C, K> copy() {
+            PriorityMatchTree<S, C, K> copy = new PriorityMatchTree<>(index, new LinkedHashMap<>(currentTree), new LinkedHashMap<>(configMap));
+            copy.keyIndex = keyIndex;
+            copy.configKeyIndex = configKeyIndex;
+            return copy;
+        }
+
+        public Integer getIndex() {
+            return index;
+        }
+
+        Map<K, PriorityMatchTree<S, C, K>[]> getCurrentTree() {
+            return currentTree;
+        }
+
+        Map<K, PriorityMatchResult<List<C>>> getConfigMap() {
+            return configMap;
+        }
+
+        /**
+         * 叶子节点增加配置
+         *
+         * @param k                            叶子key
+         * @param config                       配置
+         * @param usePriorityMatchFunctionList 配置路径上的全部维度
+         * @return 叶子节点的匹配结果
+         */
+        public PriorityMatchResult<List<C>> addConfig(K k, C config, List<PriorityMatchFunction<S, C, K>> usePriorityMatchFunctionList) {
+            PriorityMatchResult<List<C>> configResult = this.configMap.get(k);
+            if (configResult == null) {
+                configResult = PriorityMatchResult.ofList(PriorityMatchProcessor.initUniqueId(usePriorityMatchFunctionList),
+                        PriorityMatchProcessor.initName(usePriorityMatchFunctionList),
+                        index,
+                        new ArrayList<>());
+                this.configMap.put(k, configResult);
+                this.configKeyIndex = null;
+            }
+            configResult.getSource().add(config);
+            return configResult;
+        }
+
+        /**
+         * 匹配子树key
+         *
+         * @param function  当前节点的维度
+         * @param sourceKey 需求key
+         * @return 命中的key
+         */
+        public List<K> matchKey(PriorityMatchFunction<S, C, K> function, K sourceKey) {
+            PriorityKeyIndex<K> index = keyIndex;
+            if (index == null || sourceKey == null) {
+                return function.matchKey(sourceKey, this::getKeyList);
+            }
+            return index.match(sourceKey);
+        }
+
+        /**
+         * 匹配叶子key
+         *
+         * @param function  当前节点的维度
+         * @param sourceKey 需求key
+         * @return 命中的key
+         */
+        public List<K> matchConfigKey(PriorityMatchFunction<S, C, K> function, K sourceKey) {
+            PriorityKeyIndex<K> index = configKeyIndex;
+            if (index == null || sourceKey == null) {
+                return function.matchKey(sourceKey, this::getConfigKeyList);
+            }
+            return index.match(sourceKey);
+        }
+
+        /**
+         * 按节点维度生成当前节点的key索引，并继续处理子节点，已经生成的索引不重复生成
+         *
+         * @param function          当前节点的维度
+         * @param priorityFunctions 下标即优先级的维度
+         * @param copied            不为null时只处理其中的子节点
+         */
+        void initKeyIndex(PriorityMatchFunction<S, C, K> function,
+                          PriorityMatchFunction<S, C, K>[] priorityFunctions,
+                          Set<Object> copied) {
+            PriorityKeyIndexFactory<K> keyIndexFactory = function.getKeyIndexFactory();
+            if (keyIndexFactory != null) {
+                if (keyIndex == null) {
+                    keyIndex = keyIndexFactory.build(currentTree.keySet());
+                }
+                if (configKeyIndex == null) {
+                    configKeyIndex = keyIndexFactory.build(configMap.keySet());
+                }
+            }
+            for (PriorityMatchTree<S, C, K>[] children : currentTree.values()) {
+                for (int childPriority = 0; childPriority < children.length; childPriority++) {
+                    PriorityMatchTree<S, C, K> child = children[childPriority];
+                    if (child != null && (copied == null || copied.contains(child))) {
+                        child.initKeyIndex(priorityFunctions[childPriority], priorityFunctions, copied);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 匹配子树key, 同时在记录上累加节点与key计数
+         */
+        List<K> matchKey(PriorityMatchFunction<S, C, K> function, K sourceKey, PriorityMatchRecord record) {
+            List<K> kList = matchKey(function, sourceKey);
+            if (record != null) {
+                count(record, function, sourceKey, currentTree.size(), kList);
+            }
+            return kList;
+        }
+
+        /**
+         * 匹配叶子key, 同时在记录上累加节点与key计数
+         */
+        List<K> matchConfigKey(PriorityMatchFunction<S, C, K> function, K sourceKey, PriorityMatchRecord record) {
+            List<K> kList = matchConfigKey(function, sourceKey);
+            if (record != null) {
+                count(record, function, sourceKey, configMap.size(), kList);
+            }
+            return kList;
+        }
+
+        private static <S, C, K> void count(PriorityMatchRecord record,
+                                            PriorityMatchFunction<S, C, K> function,
+                                            K sourceKey,
+                                            int keySize,
+                                            List<K> kList) {
+            record.nodeCount++;
+            record.keyCount += kList.size();
+            // 没有索引的自定义匹配维度逐个key调用匹配函数
+            if (sourceKey != null && function.getKeyIndexFactory() == null && function.getKeyMatchFunction() != null) {
+                record.predicateCount += keySize;
+            }
+        }
+
+        public Collection<K> getKeyList() {
+            return currentTree.keySet();
+        }
+
+        public Collection<K> getConfigKeyList() {
+            return configMap.keySet();
+        }
+
+        public List<C> getConfigList(K k) {
+            PriorityMatchResult<List<C>> configResult = configMap.get(k);
+            return configResult == null ? Collections.emptyList() : configResult.getResult();
+        }
+
+        public PriorityMatchResult<List<C>> getConfigResult(K k) {
+            return configMap.get(k);
+        }
+
+
+        public PriorityMatchTree<S, C, K> getChildTree(K k, PriorityMatchFunction<S, C, K> childFunction) {
+            PriorityMatchTree<S, C, K>[] priorityMatchTrees = currentTree.get(k);
+            if (priorityMatchTrees == null) {
+                return null;
+            }
+            return priorityMatchTrees[childFunction.getPriority()];
+        }
+
+        PriorityMatchTree<S, C, K> getChildTree(K k, int childPriority) {
+            PriorityMatchTree<S, C, K>[] priorityMatchTrees = currentTree.get(k);
+            return priorityMatchTrees == null ? null : priorityMatchTrees[childPriority];
+        }
+
+        public PriorityMatchTree<S, C, K> initChildTree(K k, PriorityMatchFunction<S, C, K> childFunction, int prioritySize) {
+            PriorityMatchTree<S, C, K>[] childPriorityMatchTreeArr = currentTree.get(k);
+            if (childPriorityMatchTreeArr == null) {
+                childPriorityMatchTreeArr = new PriorityMatchTree[prioritySize];
+                currentTree.put(k, childPriorityMatchTreeArr);
+                this.keyIndex = null;
+            }
+            PriorityMatchTree<S, C, K> childPriorityMatchTree = childPriorityMatchTreeArr[childFunction.getPriority()];
             // 当前节点没有数据，就做初始化
             if (childPriorityMatchTree == null) {
                 childPriorityMatchTree = new PriorityMatchTree<>(this.index + 1);
@@ -394,5 +1701,145 @@ public class PriorityFetcher<S, C, K> {
 
             return childPriorityMatchTree;
         }
+
+        /**
+         * 替换子节点，子树数组可能被其他版本共享，复制后写入
+         *
+         * @param child 子节点，为null时删除，key下没有子节点后删除key
+         */
+        @SuppressWarnings("unchecked")
+        void setChildTree(K k, int childPriority, PriorityMatchTree<S, C, K> child, int prioritySize) {
+            PriorityMatchTree<S, C, K>[] children = currentTree.get(k);
+            children = children == null ? (PriorityMatchTree<S, C, K>[]) new PriorityMatchTree<?, ?, ?>[prioritySize] : children.clone();
+            children[childPriority] = child;
+            boolean empty = true;
+            for (PriorityMatchTree<S, C, K> priorityMatchTree : children) {
+                empty &= priorityMatchTree == null;
+            }
+            if (empty) {
+                currentTree.remove(k);
+            } else {
+                currentTree.put(k, children);
+            }
+            this.keyIndex = null;
+        }
+
+        /**
+         * 按顺序合并同一位置上由后续配置构建的节点，当前节点没有的key追加在后，相同叶子key的配置追加在原配置之后
+         * 合并后 otherList 中的节点不能再使用
+         *
+         * @param otherList 后续配置依次构建的节点
+         */
+        void merge(List<PriorityMatchTree<S, C, K>> otherList) {
+            Map<PriorityMatchTree<S, C, K>, List<PriorityMatchTree<S, C, K>>> pendingMap = new HashMap<>();
+            for (PriorityMatchTree<S, C, K> other : otherList) {
+                mergeShallow(other, pendingMap);
+            }
+            pendingMap.forEach(PriorityMatchTree::merge);
+        }
+
+        /**
+         * 只合并当前层，两边都存在的子节点不合并，按当前节点的子节点分组放入 pendingMap, 由调用方继续合并
+         *
+         * @param other      后续配置构建的节点
+         * @param pendingMap key为当前节点的子节点，value为需要依次合并到该子节点上的节点
+         */
+        void mergeShallow(PriorityMatchTree<S, C, K> other,
+                          Map<PriorityMatchTree<S, C, K>, List<PriorityMatchTree<S, C, K>>> pendingMap) {
+            for (Map.Entry<K, PriorityMatchResult<List<C>>> entry : other.configMap.entrySet()) {
+                PriorityMatchResult<List<C>> configResult = configMap.get(entry.getKey());
+                if (configResult == null) {
+                    configMap.put(entry.getKey(), entry.getValue());
+                } else {
+                    configResult.getSource().addAll(entry.getValue().getResult());
+                }
+            }
+            for (Map.Entry<K, PriorityMatchTree<S, C, K>[]> entry : other.currentTree.entrySet()) {
+                PriorityMatchTree<S, C, K>[] children = currentTree.get(entry.getKey());
+                if (children == null) {
+                    currentTree.put(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                PriorityMatchTree<S, C, K>[] otherChildren = entry.getValue();
+                for (int childPriority = 0; childPriority < children.length; childPriority++) {
+                    if (otherChildren[childPriority] == null) {
+                        continue;
+                    }
+                    if (children[childPriority] == null) {
+                        children[childPriority] = otherChildren[childPriority];
+                    } else {
+                        pendingMap.computeIfAbsent(children[childPriority], child -> new ArrayList<>()).add(otherChildren[childPriority]);
+                    }
+                }
+            }
+            this.keyIndex = null;
+            this.configKeyIndex = null;
+        }
+
+        void putConfigResult(K k, PriorityMatchResult<List<C>> configResult) {
+            configMap.put(k, configResult);
+            this.configKeyIndex = null;
+        }
+
+        void removeConfigResult(K k) {
+            configMap.remove(k);
+            this.configKeyIndex = null;
+        }
+
+        boolean isEmpty() {
+            return currentTree.isEmpty() && configMap.isEmpty();
+        }
+
+        /**
+         * 收集当前节点及其全部子节点上的叶子结果
+         */
+        void collectConfigResults(List<PriorityMatchResult<List<C>>> configResultList) {
+            configResultList.addAll(configMap.values());
+            for (PriorityMatchTree<S, C, K>[] children : currentTree.values()) {
+                for (PriorityMatchTree<S, C, K> child : children) {
+                    if (child != null) {
+                        child.collectConfigResults(configResultList);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 统计当前节点及其全部子节点
+         *
+         * @param priority 当前节点维度的优先级
+         * @param builder  统计收集
+         */
+        void stats(int priority, PriorityFetcherStats.Builder builder) {
+            int fanOut = currentTree.size();
+            for (K k : configMap.keySet()) {
+                if (!currentTree.containsKey(k)) {
+                    fanOut++;
+                }
+            }
+            builder.node(index, priority, fanOut);
+            builder.heap(PriorityFetcherStats.Builder.TREE_NODE_BYTES
+                    + PriorityFetcherStats.Builder.linkedHashMapBytes(currentTree.size())
+                    + PriorityFetcherStats.Builder.linkedHashMapBytes(configMap.size()));
+            for (Map.Entry<K, PriorityMatchTree<S, C, K>[]> entry : currentTree.entrySet()) {
+                builder.key(index, priority, entry.getKey());
+                PriorityMatchTree<S, C, K>[] children = entry.getValue();
+                builder.heap(PriorityFetcherStats.Builder.arrayBytes(children.length, 4));
+                int emptySlotCount = 0;
+                for (int childPriority = 0; childPriority < children.length; childPriority++) {
+                    if (children[childPriority] == null) {
+                        emptySlotCount++;
+                    } else {
+                        children[childPriority].stats(childPriority, builder);
+                    }
+                }
+                builder.childSlots(children.length, emptySlotCount);
+            }
+            for (Map.Entry<K, PriorityMatchResult<List<C>>> entry : configMap.entrySet()) {
+                builder.key(index, priority, entry.getKey());
+                builder.leaf(index, priority, entry.getValue().getResult().size());
+                builder.heap(PriorityFetcherStats.Builder.resultBytes(entry.getValue()));
+            }
+        }
     }
 }
@@ -0,0 +1,278 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 可热替换的优先级获取器持有者
+ * 匹配只做一次 volatile 读取，拿到当前快照中完整构建(包括剪枝、树、引擎转换)后的获取器，不会等待重建
+ * 重建在执行器上异步进行，构建完成后整体替换快照，替换之前的匹配继续使用旧获取器
+ * 全量重建与增量更新按提交顺序串行执行，同一时刻最多一个；排队中的全量重建会被后续请求共用
+ * @date 2025/8/19 10:00
+ */
+public class PriorityFetcherRef<S, C, K> {
+
+    /**
+     * 默认执行器的线程空闲多久后退出
+     */
+    private static final long DEFAULT_EXECUTOR_KEEP_ALIVE_SECONDS = 60;
+
+    private final PriorityAssembler<S, C, K> assembler;
+
+    private final Supplier<? extends List<C>> configSupplier;
+
+    private final Executor executor;
+
+    /**
+     * 重建与增量更新串成一条任务链，按提交顺序依次在执行器上执行，提交时短暂持有，匹配不使用该锁
+     */
+    private final Object submitLock = new Object();
+
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    /**
+     * 排队中或执行中的全量重建，完成后清空
+     */
+    private final AtomicReference<CompletableFuture<PriorityFetcher<S, C, K>>> pendingRefresh = new AtomicReference<>();
+
+    private volatile Snapshot<S, C, K> snapshot;
+
+    private PriorityFetcherRef(PriorityAssembler<S, C, K> assembler,
+                               Supplier<? extends List<C>> configSupplier,
+                               Executor executor) {
+        this.assembler = Objects.requireNonNull(assembler, "PriorityFetcherRef assembler cannot be null!");
+        this.configSupplier = Objects.requireNonNull(configSupplier, "PriorityFetcherRef configSupplier cannot be null!");
+        this.executor = Objects.requireNonNull(executor, "PriorityFetcherRef executor cannot be null!");
+        this.snapshot = build(0);
+    }
+
+    /**
+     * 创建持有者，当前线程同步完成首次构建
+     * 之后的重建使用持有者独占的单线程执行器，不占用公共 ForkJoinPool (matchAllParallel、fromParallel 默认使用)，
+     * 线程为守护线程，空闲后退出，有任务时重新创建
+     *
+     * @param assembler      装配器，持有者创建后不要再修改
+     * @param configSupplier 每次重建时获取最新的配置集
+     * @return 持有者
+     */
+    public static <S, C, K> PriorityFetcherRef<S, C, K> of(PriorityAssembler<S, C, K> assembler,
+                                                           Supplier<? extends List<C>> configSupplier) {
+        return of(assembler, configSupplier, defaultExecutor());
+    }
+
+    /**
+     * 创建持有者，当前线程同步完成首次构建
+     *
+     * @param assembler      装配器，持有者创建后不要再修改
+     * @param configSupplier 每次重建时获取最新的配置集
+     * @param executor       重建使用的执行器
+     * @return 持有者
+     */
+    public static <S, C, K> PriorityFetcherRef<S, C, K> of(PriorityAssembler<S, C, K> assembler,
+                                                           Supplier<? extends List<C>> configSupplier,
+                                                           Executor executor) {
+        return new PriorityFetcherRef<>(assembler, configSupplier, executor);
+    }
+
+    /**
+     * @return 当前获取器
+     */
+    public PriorityFetcher<S, C, K> get() {
+        return snapshot.getFetcher();
+    }
+
+    /**
+     * @return 当前快照，获取器与版本号等信息来自同一次构建
+     */
+    public Snapshot<S, C, K> getSnapshot() {
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    public long getLastRebuildNanos() {
+        return snapshot.getBuildNanos();
+    }
+
+    public PriorityMatchResult<List<C>> match(S source) {
+        return snapshot.getFetcher().match(source);
+    }
+
+    public List<PriorityMatchResult<List<C>>> match(S source, boolean allPriority) {
+        return snapshot.getFetcher().match(source, allPriority);
+    }
+
+    public List<List<PriorityMatchResult<List<C>>>> matchAll(Collection<S> sourceList, boolean allPriority) {
+        return snapshot.getFetcher().matchAll(sourceList, allPriority);
+    }
+
+    /**
+     * 异步全量重建，重新获取配置集并通过装配器构建
+     * 已经有全量重建在排队时返回同一个结果，已经开始执行的重建可能读到旧配置，不再共用
+     * 构建失败时保留当前快照，异常通过返回值传递
+     *
+     * @return 替换后的获取器
+     */
+    public CompletableFuture<PriorityFetcher<S, C, K>> refresh() {
+        CompletableFuture<PriorityFetcher<S, C, K>> future = new CompletableFuture<>();
+        CompletableFuture<PriorityFetcher<S, C, K>> pending = pendingRefresh.get();
+        while (pending == null) {
+            if (pendingRefresh.compareAndSet(null, future)) {
+                submit(future, () -> {
+                    // 开始构建后的请求需要重新获取配置，不能再共用本次结果
+                    pendingRefresh.compareAndSet(future, null);
+                    return build(snapshot.getVersion() + 1);
+                });
+                return future;
+            }
+            pending = pendingRefresh.get();
+        }
+        return pending;
+    }
+
+    /**
+     * 异步增量更新，基于当前获取器生成新的获取器后替换，例如 fetcher -> fetcher.withConfigsAdded(addList)
+     * 多次提交按顺序执行，每次都基于前一次的结果
+     *
+     * @param updater 更新逻辑，返回的获取器构建完成后才会被替换
+     * @return 替换后的获取器
+     */
+    public CompletableFuture<PriorityFetcher<S, C, K>> update(UnaryOperator<PriorityFetcher<S, C, K>> updater) {
+        Objects.requireNonNull(updater, "PriorityFetcherRef updater cannot be null!");
+        CompletableFuture<PriorityFetcher<S, C, K>> future = new CompletableFuture<>();
+        submit(future, () -> {
+            Snapshot<S, C, K> current = snapshot;
+            long startTime = System.nanoTime();
+            PriorityFetcher<S, C, K> fetcher = Objects.requireNonNull(updater.apply(current.getFetcher()),
+                    "PriorityFetcherRef updater cannot return null!");
+            return new Snapshot<>(fetcher, current.getVersion() + 1, System.nanoTime() - startTime, System.currentTimeMillis());
+        });
+        return future;
+    }
+
+    /**
+     * 定时全量重建，每隔 period 触发一次，上一次触发的重建还没有结束时跳过本次触发
+     * 调度线程只提交重建，不等待重建完成，同一个调度器上的其他任务不受重建耗时影响
+     * 某次重建失败时保留当前快照，下一个周期继续重建
+     *
+     * @param scheduler 调度器，只用于触发，重建仍在执行器上进行
+     * @return 调度结果，取消即停止定时重建
+     */
+    public ScheduledFuture<?> scheduleRefresh(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        AtomicReference<CompletableFuture<PriorityFetcher<S, C, K>>> running = new AtomicReference<>();
+        return scheduler.scheduleWithFixedDelay(() -> {
+            CompletableFuture<PriorityFetcher<S, C, K>> previous = running.get();
+            if (previous == null || previous.isDone()) {
+                running.set(refresh());
+            }
+        }, period, period, unit);
+    }
+
+    private void submit(CompletableFuture<PriorityFetcher<S, C, K>> future, Supplier<Snapshot<S, C, K>> builder) {
+        synchronized (submitLock) {
+            // 前一个任务被执行器拒绝时不影响后续任务
+            tail = tail.handle((v, e) -> (Void) null)
+                    .thenRunAsync(() -> {
+                        Snapshot<S, C, K> next = builder.get();
+                        this.snapshot = next;
+                        future.complete(next.getFetcher());
+                    }, executor)
+                    .whenComplete((v, e) -> {
+                        if (e != null) {
+                            pendingRefresh.compareAndSet(future, null);
+                            future.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 任务链同一时刻最多一个任务，单线程即可
+     */
+    private static Executor defaultExecutor() {
+        return new ThreadPoolExecutor(0, 1, DEFAULT_EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "PriorityFetcherRef-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 只在构造与任务链上执行，装配器不是线程安全的
+     */
+    private Snapshot<S, C, K> build(long version) {
+        long startTime = System.nanoTime();
+        List<C> configList = Objects.requireNonNull(configSupplier.get(), "PriorityFetcherRef config list cannot be null!");
+        PriorityFetcher<S, C, K> fetcher = assembler.initConfig(configList).create();
+        return new Snapshot<>(fetcher, version, System.nanoTime() - startTime, System.currentTimeMillis());
+    }
+
+    /**
+     * 不可变快照
+     */
+    public static final class Snapshot<S, C, K> {
+
+        private final PriorityFetcher<S, C, K> fetcher;
+        private final long version;
+        private final long buildNanos;
+        private final long buildTimeMillis;
+
+        private Snapshot(PriorityFetcher<S, C, K> fetcher, long version, long buildNanos, long buildTimeMillis) {
+            this.fetcher = fetcher;
+            this.version = version;
+            this.buildNanos = buildNanos;
+            this.buildTimeMillis = buildTimeMillis;
+        }
+
+        public PriorityFetcher<S, C, K> getFetcher() {
+            return fetcher;
+        }
+
+        /**
+         * 首次构建为0, 每次替换加1
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * 构建耗时，增量更新为更新耗时
+         */
+        public long getBuildNanos() {
+            return buildNanos;
+        }
+
+        /**
+         * 构建完成的时间戳
+         */
+        public long getBuildTimeMillis() {
+            return buildTimeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "version=" + version +
+                    ", buildNanos=" + buildNanos +
+                    ", buildTimeMillis=" + buildTimeMillis +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.*;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 优先级获取器的结构与内存统计快照，不可变
+ * 按维度与树层级统计节点数量、key数量与节点扇出分布，叶子统计配置集合大小分布
+ * 常驻内存为按64位JVM压缩指针估算的优先级树结构大小，使用 dictionary() 时包括字典编码树副本，不包含配置对象与key本身
+ * @date 2025/8/18 10:10
+ */
+public class PriorityFetcherStats {
+
+    private final int processorCountBeforePruning;
+    private final int processorCount;
+    private final long nodeCount;
+    private final long keyCount;
+    private final long leafCount;
+    private final long configCount;
+    private final long childSlotCount;
+    private final long emptyChildSlotCount;
+    private final long estimatedHeapBytes;
+    private final long fromTimeNanos;
+    private final long treeTimeNanos;
+    private final boolean frozen;
+    private final List<Shape> dimensionList;
+    private final List<Shape> levelList;
+
+    private PriorityFetcherStats(Builder builder, int processorCountBeforePruning, int processorCount,
+                                 long fromTimeNanos, long treeTimeNanos, boolean frozen) {
+        this.processorCountBeforePruning = processorCountBeforePruning;
+        this.processorCount = processorCount;
+        this.nodeCount = builder.nodeCount;
+        this.keyCount = builder.keyCount;
+        this.leafCount = builder.leafCount;
+        this.configCount = builder.configCount;
+        this.childSlotCount = builder.childSlotCount;
+        this.emptyChildSlotCount = builder.emptyChildSlotCount;
+        this.estimatedHeapBytes = builder.heapBytes;
+        this.fromTimeNanos = fromTimeNanos;
+        this.treeTimeNanos = treeTimeNanos;
+        this.frozen = frozen;
+        List<Shape> dimensionList = new ArrayList<>(builder.dimensions.length);
+        for (ShapeBuilder dimension : builder.dimensions) {
+            dimensionList.add(dimension.build());
+        }
+        this.dimensionList = Collections.unmodifiableList(dimensionList);
+        List<Shape> levelList = new ArrayList<>(builder.levels.size());
+        for (ShapeBuilder level : builder.levels.values()) {
+            levelList.add(level.build());
+        }
+        this.levelList = Collections.unmodifiableList(levelList);
+    }
+
+    /**
+     * 构建时的Processor数量，剪枝前
+     */
+    public int getProcessorCountBeforePruning() {
+        return processorCountBeforePruning;
+    }
+
+    /**
+     * 当前参与匹配的Processor数量，剪枝后
+     */
+    public int getProcessorCount() {
+        return processorCount;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 全部节点上的key数量，子树key与叶子key分别计数
+     */
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    public long getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * 叶子上的配置总数，一个配置只会落在一个叶子上
+     */
+    public long getConfigCount() {
+        return configCount;
+    }
+
+    /**
+     * 子树数组的槽位总数，冻结后子节点稀疏存放，没有空槽位
+     */
+    public long getChildSlotCount() {
+        return childSlotCount;
+    }
+
+    public long getEmptyChildSlotCount() {
+        return emptyChildSlotCount;
+    }
+
+    public long getEstimatedHeapBytes() {
+        return estimatedHeapBytes;
+    }
+
+    /**
+     * from() 构建耗时
+     */
+    public long getFromTimeNanos() {
+        return fromTimeNanos;
+    }
+
+    /**
+     * 最近一次 tree() 构建耗时，未转换为树为-1
+     */
+    public long getTreeTimeNanos() {
+        return treeTimeNanos;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * 下标即优先级
+     */
+    public List<Shape> getDimensionList() {
+        return dimensionList;
+    }
+
+    /**
+     * 下标0为顶层
+     */
+    public List<Shape> getLevelList() {
+        return levelList;
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityFetcherStats{" +
+                "processorCountBeforePruning=" + processorCountBeforePruning +
+                ", processorCount=" + processorCount +
+                ", nodeCount=" + nodeCount +
+                ", keyCount=" + keyCount +
+                ", leafCount=" + leafCount +
+                ", configCount=" + configCount +
+                ", childSlotCount=" + childSlotCount +
+                ", emptyChildSlotCount=" + emptyChildSlotCount +
+                ", estimatedHeapBytes=" + estimatedHeapBytes +
+                ", fromTimeNanos=" + fromTimeNanos +
+                ", treeTimeNanos=" + treeTimeNanos +
+                ", frozen=" + frozen +
+                ", dimensionList=" + dimensionList +
+                ", levelList=" + levelList +
+                '}';
+    }
+
+    /**
+     * 单个维度或单个树层级的统计
+     */
+    public static class Shape {
+
+        private final String name;
+        private final long nodeCount;
+        private final long keyCount;
+        private final long distinctKeyCount;
+        private final long leafCount;
+        private final Histogram fanOut;
+        private final Histogram configSize;
+
+        private Shape(String name, long nodeCount, long keyCount, long distinctKeyCount, long leafCount,
+                      Histogram fanOut, Histogram configSize) {
+            this.name = name;
+            this.nodeCount = nodeCount;
+            this.keyCount = keyCount;
+            this.distinctKeyCount = distinctKeyCount;
+            this.leafCount = leafCount;
+            this.fanOut = fanOut;
+            this.configSize = configSize;
+        }
+
+        /**
+         * 维度名称，层级为 level-n, 顶层为 level-1
+         */
+        public String getName() {
+            return name;
+        }
+
+        public long getNodeCount() {
+            return nodeCount;
+        }
+
+        public long getKeyCount() {
+            return keyCount;
+        }
+
+        /**
+         * 不同key的数量，层级统计时不区分维度
+         */
+        public long getDistinctKeyCount() {
+            return distinctKeyCount;
+        }
+
+        public long getLeafCount() {
+            return leafCount;
+        }
+
+        /**
+         * 每个节点上key数量(子树key与叶子key去重)的分布
+         */
+        public Histogram getFanOut() {
+            return fanOut;
+        }
+
+        /**
+         * 每个叶子上配置集合大小的分布
+         */
+        public Histogram getConfigSize() {
+            return configSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Shape{" +
+                    "name='" + name + '\'' +
+                    ", nodeCount=" + nodeCount +
+                    ", keyCount=" + keyCount +
+                    ", distinctKeyCount=" + distinctKeyCount +
+                    ", leafCount=" + leafCount +
+                    ", fanOut=" + fanOut +
+                    ", configSize=" + configSize +
+                    '}';
+        }
+    }
+
+    /**
+     * 按2的幂分桶的分布，桶0只包含0, 桶i包含 [2^(i-1), 2^i)
+     */
+    public static class Histogram {
+
+        private final long[] buckets;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Histogram(long[] buckets, long count, long total, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * 平均值，没有样本时为0
+         */
+        public double getMean() {
+            return count == 0 ? 0D : (double) total / count;
+        }
+
+        /**
+         * K: 桶的下界
+         * V: 落在桶内的数量，只包含非空的桶
+         */
+        public SortedMap<Long, Long> getBuckets() {
+            SortedMap<Long, Long> bucketMap = new TreeMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] > 0) {
+                    bucketMap.put(i == 0 ? 0L : 1L << (i - 1), buckets[i]);
+                }
+            }
+            return bucketMap;
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{" +
+                    "count=" + count +
+                    ", mean=" + String.format("%.2f", getMean()) +
+                    ", max=" + max +
+                    ", buckets=" + getBuckets() +
+                    '}';
+        }
+    }
+
+    /**
+     * 统计收集，由优先级树与冻结后的优先级树遍历时写入
+     */
+    static final class Builder {
+
+        /**
+         * PriorityMatchTree 对象: 对象头与5个引用
+         */
+        static final long TREE_NODE_BYTES = 32;
+
+        private final ShapeBuilder[] dimensions;
+        private final Map<Integer, ShapeBuilder> levels = new TreeMap<>();
+        private long nodeCount;
+        private long keyCount;
+        private long leafCount;
+        private long configCount;
+        private long childSlotCount;
+        private long emptyChildSlotCount;
+        private long heapBytes;
+
+        <S, C, K> Builder(List<PriorityMatchFunction<S, C, K>> priorityList) {
+            this.dimensions = new ShapeBuilder[priorityList.size()];
+            for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityList) {
+                dimensions[priorityMatchFunction.getPriority()] = new ShapeBuilder(priorityMatchFunction.getName());
+            }
+        }
+
+        /**
+         * 记录节点
+         *
+         * @param level    层级，顶层为1
+         * @param priority 节点维度的优先级
+         * @param fanOut   节点上去重后的key数量
+         */
+        void node(int level, int priority, int fanOut) {
+            nodeCount++;
+            dimensions[priority].node(fanOut);
+            level(level).node(fanOut);
+        }
+
+        void key(int level, int priority, Object k) {
+            keyCount++;
+            dimensions[priority].key(k);
+            level(level).key(k);
+        }
+
+        void leaf(int level, int priority, int configSize) {
+            leafCount++;
+            configCount += configSize;
+            dimensions[priority].leaf(configSize);
+            level(level).leaf(configSize);
+        }
+
+        void childSlots(int slotCount, int emptySlotCount) {
+            childSlotCount += slotCount;
+            emptyChildSlotCount += emptySlotCount;
+        }
+
+        void heap(long bytes) {
+            heapBytes += bytes;
+        }
+
+        private ShapeBuilder level(int level) {
+            return levels.computeIfAbsent(level, l -> new ShapeBuilder("level-" + l));
+        }
+
+        /**
+         * 对象按8字节对齐
+         */
+        static long alignBytes(long bytes) {
+            return (bytes + 7) & ~7L;
+        }
+
+        /**
+         * 数组头16字节，引用与int均为4字节
+         */
+        static long arrayBytes(int length, int elementBytes) {
+            return alignBytes(16L + (long) length * elementBytes);
+        }
+
+        /**
+         * LinkedHashMap 对象56字节，每个条目40字节，哈希表按负载因子0.75扩容，空map不分配哈希表
+         */
+        static long linkedHashMapBytes(int size) {
+            if (size == 0) {
+                return 56;
+            }
+            int capacity = 16;
+            while (capacity * 3 / 4 < size) {
+                capacity <<= 1;
+            }
+            return 56 + arrayBytes(capacity, 4) + 40L * size;
+        }
+
+        /**
+         * 叶子匹配结果: 结果对象、配置集合及其只读视图与构建时拼接的 uniqueId / name
+         */
+        static long resultBytes(PriorityMatchResult<? extends List<?>> configResult) {
+            return 32 + 24 + 16 + arrayBytes(configResult.getResult().size(), 4)
+                    + stringBytes(configResult.getUniqueId()) + stringBytes(configResult.getName());
+        }
+
+        private static long stringBytes(String s) {
+            return s == null ? 0 : 24 + arrayBytes(s.length(), 2);
+        }
+
+        PriorityFetcherStats build(int processorCountBeforePruning, int processorCount,
+                                   long fromTimeNanos, long treeTimeNanos, boolean frozen) {
+            return new PriorityFetcherStats(this, processorCountBeforePruning, processorCount,
+                    fromTimeNanos, treeTimeNanos, frozen);
+        }
+    }
+
+    private static final class ShapeBuilder {
+
+        private final String name;
+        private final Set<Object> keySet = new HashSet<>();
+        private final HistogramBuilder fanOut = new HistogramBuilder();
+        private final HistogramBuilder configSize = new HistogramBuilder();
+        private long keyCount;
+
+        private ShapeBuilder(String name) {
+            this.name = name;
+        }
+
+        void node(int fanOut) {
+            this.fanOut.add(fanOut);
+        }
+
+        void key(Object k) {
+            keyCount++;
+            keySet.add(k);
+        }
+
+        void leaf(int configSize) {
+            this.configSize.add(configSize);
+        }
+
+        Shape build() {
+            return new Shape(name, fanOut.count, keyCount, keySet.size(), configSize.count,
+                    fanOut.build(), configSize.build());
+        }
+    }
+
+    private static final class HistogramBuilder {
+
+        private final long[] buckets = new long[Integer.SIZE + 1];
+        private long count;
+        private long total;
+        private long max;
+
+        void add(int value) {
+            buckets[Integer.SIZE - Integer.numberOfLeadingZeros(value)]++;
+            count++;
+            total += value;
+            max = Math.max(max, value);
+        }
+
+        Histogram build() {
+            return new Histogram(buckets.clone(), count, total, max);
+        }
+    }
+}
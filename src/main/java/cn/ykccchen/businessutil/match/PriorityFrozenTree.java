@@ -0,0 +1,454 @@
+package cn.ykccchen.businessutil.match;
+
+import cn.ykccchen.businessutil.match.index.PriorityKeyIndex;
+import cn.ykccchen.businessutil.match.index.PriorityKeyIndexFactory;
+
+import java.util.*;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 冻结后的优先级树，构建后只读
+ * 按压缩稀疏行(CSR)的方式把全部节点放入平铺的并行数组:
+ * 每个节点有两张表，子树表(2n)与叶子表(2n+1), 表内条目在 [tableStart[t], tableStart[t + 1]) 区间内连续存放，保持原节点的写入顺序
+ * 子树条目的子节点在 [childStart[e], childStart[e + 1]) 区间内按优先级存放，不再为每个key分配维度数量大小的数组
+ * 叶子条目直接存放构建时生成的匹配结果
+ * 相等匹配通过每张表的开放寻址槽位查找条目，其他匹配方式按写入顺序遍历条目或使用节点索引，结果与原优先级树一致
+ * @date 2025/8/17 10:40
+ */
+final class PriorityFrozenTree<S, C, K> {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * 下标即优先级，头部维度所在的节点
+     */
+    private final int[] roots;
+
+    /**
+     * 长度为表数量 + 1, 表 t 的条目区间为 [tableStart[t], tableStart[t + 1])
+     */
+    private final int[] tableStart;
+
+    /**
+     * 长度为表数量 + 1, 表 t 的槽位区间为 [slotStart[t], slotStart[t + 1]), 区间长度为0或2的幂
+     */
+    private final int[] slotStart;
+
+    /**
+     * 槽位存放条目下标 + 1, 0为空槽位
+     */
+    private final int[] slots;
+
+    /**
+     * 下标为表，节点维度存在索引时生成
+     */
+    private final PriorityKeyIndex<K>[] tableIndex;
+
+    /**
+     * 以下为条目的并行数组
+     */
+    private final Object[] keys;
+    private final int[] hashes;
+    /**
+     * 长度为条目数量 + 1, 条目 e 的子节点区间为 [childStart[e], childStart[e + 1]), 叶子条目区间为空
+     */
+    private final int[] childStart;
+    /**
+     * 子树条目为null
+     */
+    private final PriorityMatchResult<List<C>>[] results;
+
+    /**
+     * 以下为子节点的并行数组，同一个条目内按优先级升序
+     */
+    private final int[] childPriorities;
+    private final int[] childNodes;
+
+    @SuppressWarnings("unchecked")
+    private PriorityFrozenTree(PriorityFetcher.PriorityMatchTree<S, C, K>[] tree,
+                               PriorityMatchFunction<S, C, K>[] priorityFunctions) {
+        // 第一遍: 节点编号并统计数量
+        List<PriorityFetcher.PriorityMatchTree<S, C, K>> nodeList = new ArrayList<>();
+        List<Integer> nodePriorityList = new ArrayList<>();
+        Map<PriorityFetcher.PriorityMatchTree<S, C, K>, Integer> nodeIdMap = new IdentityHashMap<>();
+        this.roots = new int[tree.length];
+        for (int priority = 0; priority < tree.length; priority++) {
+            roots[priority] = number(tree[priority], priority, nodeList, nodePriorityList, nodeIdMap);
+        }
+        int tableSize = nodeList.size() * 2;
+        int entrySize = 0;
+        int childSize = 0;
+        int slotSize = 0;
+        for (PriorityFetcher.PriorityMatchTree<S, C, K> node : nodeList) {
+            entrySize += node.getCurrentTree().size() + node.getConfigMap().size();
+            slotSize += slotSize(node.getCurrentTree().size()) + slotSize(node.getConfigMap().size());
+            for (PriorityFetcher.PriorityMatchTree<S, C, K>[] children : node.getCurrentTree().values()) {
+                for (PriorityFetcher.PriorityMatchTree<S, C, K> child : children) {
+                    childSize += child == null ? 0 : 1;
+                }
+            }
+        }
+        this.tableStart = new int[tableSize + 1];
+        this.slotStart = new int[tableSize + 1];
+        this.slots = new int[slotSize];
+        this.tableIndex = (PriorityKeyIndex<K>[]) new PriorityKeyIndex<?>[tableSize];
+        this.keys = new Object[entrySize];
+        this.hashes = new int[entrySize];
+        this.childStart = new int[entrySize + 1];
+        this.results = (PriorityMatchResult<List<C>>[]) new PriorityMatchResult<?>[entrySize];
+        this.childPriorities = new int[childSize];
+        this.childNodes = new int[childSize];
+
+        // 第二遍: 按节点顺序写入两张表
+        int entry = 0;
+        int child = 0;
+        int slot = 0;
+        for (int n = 0; n < nodeList.size(); n++) {
+            PriorityFetcher.PriorityMatchTree<S, C, K> node = nodeList.get(n);
+            PriorityKeyIndexFactory<K> keyIndexFactory = priorityFunctions[nodePriorityList.get(n)].getKeyIndexFactory();
+
+            int table = childTable(n);
+            tableStart[table] = entry;
+            slotStart[table] = slot;
+            for (Map.Entry<K, PriorityFetcher.PriorityMatchTree<S, C, K>[]> nodeEntry : node.getCurrentTree().entrySet()) {
+                keys[entry] = nodeEntry.getKey();
+                hashes[entry] = hash(nodeEntry.getKey());
+                childStart[entry] = child;
+                PriorityFetcher.PriorityMatchTree<S, C, K>[] children = nodeEntry.getValue();
+                for (int childPriority = 0; childPriority < children.length; childPriority++) {
+                    if (children[childPriority] != null) {
+                        childPriorities[child] = childPriority;
+                        childNodes[child] = nodeIdMap.get(children[childPriority]);
+                        child++;
+                    }
+                }
+                entry++;
+            }
+            slot = fillSlots(table, entry, slot, node.getCurrentTree().size());
+            if (keyIndexFactory != null && !node.getCurrentTree().isEmpty()) {
+                tableIndex[table] = keyIndexFactory.build(node.getCurrentTree().keySet());
+            }
+
+            table = leafTable(n);
+            tableStart[table] = entry;
+            slotStart[table] = slot;
+            for (Map.Entry<K, PriorityMatchResult<List<C>>> nodeEntry : node.getConfigMap().entrySet()) {
+                keys[entry] = nodeEntry.getKey();
+                hashes[entry] = hash(nodeEntry.getKey());
+                childStart[entry] = child;
+                results[entry] = nodeEntry.getValue();
+                entry++;
+            }
+            slot = fillSlots(table, entry, slot, node.getConfigMap().size());
+            if (keyIndexFactory != null && !node.getConfigMap().isEmpty()) {
+                tableIndex[table] = keyIndexFactory.build(node.getConfigMap().keySet());
+            }
+        }
+        tableStart[tableSize] = entry;
+        slotStart[tableSize] = slot;
+        childStart[entrySize] = child;
+    }
+
+    /**
+     * 冻结优先级树，冻结后原优先级树可以释放
+     *
+     * @param tree         优先级树，下标为头部维度优先级
+     * @param priorityFunctions 配置优先级函数，下标即优先级
+     * @return 冻结后的优先级树
+     */
+    static <S, C, K> PriorityFrozenTree<S, C, K> freeze(PriorityFetcher.PriorityMatchTree<S, C, K>[] tree,
+                                                         PriorityMatchFunction<S, C, K>[] priorityFunctions) {
+        return new PriorityFrozenTree<>(tree, priorityFunctions);
+    }
+
+    private static <S, C, K> int number(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                                        int priority,
+                                        List<PriorityFetcher.PriorityMatchTree<S, C, K>> nodeList,
+                                        List<Integer> nodePriorityList,
+                                        Map<PriorityFetcher.PriorityMatchTree<S, C, K>, Integer> nodeIdMap) {
+        int id = nodeList.size();
+        nodeList.add(node);
+        nodePriorityList.add(priority);
+        nodeIdMap.put(node, id);
+        for (PriorityFetcher.PriorityMatchTree<S, C, K>[] children : node.getCurrentTree().values()) {
+            for (int childPriority = 0; childPriority < children.length; childPriority++) {
+                if (children[childPriority] != null) {
+                    number(children[childPriority], childPriority, nodeList, nodePriorityList, nodeIdMap);
+                }
+            }
+        }
+        return id;
+    }
+
+    private static int slotSize(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        // 负载因子不超过 0.5
+        int slotSize = 2;
+        while (slotSize < size * 2) {
+            slotSize <<= 1;
+        }
+        return slotSize;
+    }
+
+    private int fillSlots(int table, int entryEnd, int slot, int size) {
+        int slotSize = slotSize(size);
+        int mask = slotSize - 1;
+        for (int e = tableStart[table]; e < entryEnd; e++) {
+            int index = hashes[e] & mask;
+            while (slots[slot + index] != 0) {
+                index = (index + 1) & mask;
+            }
+            slots[slot + index] = e + 1;
+        }
+        return slot + slotSize;
+    }
+
+    private static int hash(Object k) {
+        int h = k.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int childTable(int node) {
+        return node << 1;
+    }
+
+    private static int leafTable(int node) {
+        return (node << 1) + 1;
+    }
+
+    /**
+     * 相等查找条目
+     *
+     * @return 条目下标，不存在为-1
+     */
+    private int find(int table, Object k) {
+        int start = slotStart[table];
+        int mask = slotStart[table + 1] - start - 1;
+        if (mask < 0) {
+            return -1;
+        }
+        int h = hash(k);
+        int index = h & mask;
+        int e;
+        while ((e = slots[start + index] - 1) >= 0) {
+            if (hashes[e] == h && k.equals(keys[e])) {
+                return e;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 表内命中需求key的条目，顺序与 PriorityMatchTree.matchKey / matchConfigKey 一致
+     */
+    @SuppressWarnings("unchecked")
+    private int[] matchEntries(int table, PriorityMatchFunction<S, C, K> function, K sourceKey) {
+        if (sourceKey == null || tableStart[table] == tableStart[table + 1]) {
+            return EMPTY;
+        }
+        if (function.getKeyIndexFactory() != null) {
+            List<K> kList = tableIndex[table].match(sourceKey);
+            int[] entries = new int[kList.size()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = find(table, kList.get(i));
+            }
+            return entries;
+        }
+        if (function.getKeyMatchFunction() != null) {
+            int[] entries = new int[tableStart[table + 1] - tableStart[table]];
+            int size = 0;
+            for (int e = tableStart[table]; e < tableStart[table + 1]; e++) {
+                if (function.getKeyMatchFunction().test(sourceKey, (K) keys[e])) {
+                    entries[size++] = e;
+                }
+            }
+            return size == entries.length ? entries : Arrays.copyOf(entries, size);
+        }
+        int e = find(table, sourceKey);
+        return e < 0 ? EMPTY : new int[]{e};
+    }
+
+    /**
+     * 条目下指定优先级的子节点
+     *
+     * @return 子节点，不存在为-1
+     */
+    private int childNode(int entry, int childPriority) {
+        for (int c = childStart[entry]; c < childStart[entry + 1]; c++) {
+            if (childPriorities[c] == childPriority) {
+                return childNodes[c];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 逐层匹配，与 PriorityFetcher.matchLevel 一致
+     *
+     * @param processorList Processor集合，按优先级排列
+     * @param bloomFilters  与 processorList 下标对齐的布隆过滤器
+     * @param sourceKey     需求维度key向量
+     * @param allPriority   是否获取全部优先级
+     * @return 匹配结果
+     */
+    List<PriorityMatchResult<List<C>>> matchLevel(List<PriorityMatchProcessor<S, C, K>> processorList,
+                                                  PriorityBloomFilter[] bloomFilters,
+                                                  PrioritySourceKey<S, K> sourceKey,
+                                                  boolean allPriority) {
+        List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>();
+        for (int i = 0; i < processorList.size(); i++) {
+            if (!sourceKey.containsAll(processorList.get(i).getDimensionMask())) {
+                continue;
+            }
+            List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList = processorList.get(i).getPriorityMatchFunctionList();
+            if (bloomFilters[i] != null && !bloomFilters[i].mightMatch(priorityMatchFunctionList, sourceKey)) {
+                continue;
+            }
+            int root = roots[priorityMatchFunctionList.get(0).getPriority()];
+            if (matchLevel(root, priorityMatchFunctionList, 0, sourceKey, resultList, allPriority)) {
+                return resultList;
+            }
+        }
+        return resultList;
+    }
+
+    private boolean matchLevel(int node,
+                               List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList,
+                               int index,
+                               PrioritySourceKey<S, K> sourceKey,
+                               List<PriorityMatchResult<List<C>>> resultList,
+                               boolean allPriority) {
+        PriorityMatchFunction<S, C, K> function = priorityMatchFunctionList.get(index);
+        if (index == priorityMatchFunctionList.size() - 1) {
+            return matchLeaf(node, function, sourceKey, resultList, allPriority);
+        }
+        int childPriority = priorityMatchFunctionList.get(index + 1).getPriority();
+        for (int e : matchEntries(childTable(node), function, sourceKey.get(function))) {
+            int child = childNode(e, childPriority);
+            if (child >= 0 && matchLevel(child, priorityMatchFunctionList, index + 1, sourceKey, resultList, allPriority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchLeaf(int node,
+                              PriorityMatchFunction<S, C, K> function,
+                              PrioritySourceKey<S, K> sourceKey,
+                              List<PriorityMatchResult<List<C>>> resultList,
+                              boolean allPriority) {
+        for (int e : matchEntries(leafTable(node), function, sourceKey.get(function))) {
+            resultList.add(results[e]);
+            if (!allPriority) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 树匹配，与 PriorityFetcher.matchTree 一致
+     *
+     * @param priorityMatchProcessorTree Processor树
+     * @param sourceKey                  需求维度key向量
+     * @param allPriority                是否获取全部优先级
+     * @return 匹配结果
+     */
+    List<PriorityMatchResult<List<C>>> matchTree(PriorityMatchProcessorTree<S, C, K> priorityMatchProcessorTree,
+                                                 PrioritySourceKey<S, K> sourceKey,
+                                                 boolean allPriority) {
+        List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>();
+        for (PriorityMatchProcessorTree<S, C, K> value : priorityMatchProcessorTree.getPriorityMatchFunctionTree().values()) {
+            if (!sourceKey.containsAll(value.getDimensionMask())) {
+                continue;
+            }
+            PriorityMatchFunction<S, C, K> functionNode = value.getFunctionNode();
+            int node = roots[functionNode.getPriority()];
+            if (matchTree(node, value, sourceKey, resultList, allPriority)) {
+                return resultList;
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * 在节点上匹配当前维度，再匹配Processor树的子维度
+     */
+    private boolean matchTree(int node,
+                              PriorityMatchProcessorTree<S, C, K> priorityMatchFunctionTree,
+                              PrioritySourceKey<S, K> sourceKey,
+                              List<PriorityMatchResult<List<C>>> resultList,
+                              boolean allPriority) {
+        PriorityMatchFunction<S, C, K> functionNode = priorityMatchFunctionTree.getFunctionNode();
+        int[] entries = matchEntries(childTable(node), functionNode, sourceKey.get(functionNode));
+        for (PriorityMatchProcessorTree<S, C, K> childPriorityMatchFunctionTree : priorityMatchFunctionTree.getPriorityMatchFunctionTree().values()) {
+            PriorityMatchFunction<S, C, K> childFunction = childPriorityMatchFunctionTree.getFunctionNode();
+            if (childPriorityMatchFunctionTree.isBottom()) {
+                if (matchLeaf(node, childFunction, sourceKey, resultList, allPriority)) {
+                    return true;
+                }
+                continue;
+            }
+            if (!sourceKey.containsAll(childPriorityMatchFunctionTree.getDimensionMask())) {
+                continue;
+            }
+            for (int e : entries) {
+                int child = childNode(e, childFunction.getPriority());
+                if (child >= 0 && matchTree(child, childPriorityMatchFunctionTree, sourceKey, resultList, allPriority)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 统计全部节点，子节点稀疏存放，没有空槽位
+     *
+     * @param builder 统计收集
+     */
+    void stats(PriorityFetcherStats.Builder builder) {
+        builder.heap(PriorityFetcherStats.Builder.arrayBytes(roots.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(tableStart.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(slotStart.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(slots.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(tableIndex.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(keys.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(hashes.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(childStart.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(results.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(childPriorities.length, 4)
+                + PriorityFetcherStats.Builder.arrayBytes(childNodes.length, 4));
+        for (int priority = 0; priority < roots.length; priority++) {
+            stats(roots[priority], priority, 1, builder);
+        }
+    }
+
+    private void stats(int node, int priority, int level, PriorityFetcherStats.Builder builder) {
+        int childTable = childTable(node);
+        int leafTable = leafTable(node);
+        int fanOut = tableStart[childTable + 1] - tableStart[childTable];
+        for (int e = tableStart[leafTable]; e < tableStart[leafTable + 1]; e++) {
+            if (find(childTable, keys[e]) < 0) {
+                fanOut++;
+            }
+        }
+        builder.node(level, priority, fanOut);
+        for (int e = tableStart[childTable]; e < tableStart[childTable + 1]; e++) {
+            builder.key(level, priority, keys[e]);
+            builder.childSlots(childStart[e + 1] - childStart[e], 0);
+            for (int c = childStart[e]; c < childStart[e + 1]; c++) {
+                stats(childNodes[c], childPriorities[c], level + 1, builder);
+            }
+        }
+        for (int e = tableStart[leafTable]; e < tableStart[leafTable + 1]; e++) {
+            builder.key(level, priority, keys[e]);
+            builder.leaf(level, priority, results[e].getResult().size());
+            builder.heap(PriorityFetcherStats.Builder.resultBytes(results[e]));
+        }
+    }
+}
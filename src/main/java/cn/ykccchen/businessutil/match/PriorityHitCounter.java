@@ -0,0 +1,70 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 匹配命中计数，按Processor与叶子结果分别计数
+ * 叶子结果构建后不再变化，同一个叶子的命中共享同一个实例，直接按实例计数，匹配时不需要还原路径
+ * @date 2025/8/20 14:00
+ */
+final class PriorityHitCounter<C> {
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final PriorityCounterMap<String> processorHitMap = new PriorityCounterMap<>();
+    private final PriorityCounterMap<PriorityMatchResult<List<C>>> leafHitMap = new PriorityCounterMap<>();
+
+    /**
+     * 记录一次匹配，返回的每个结果都计一次命中
+     *
+     * @param resultList 匹配结果
+     */
+    void record(List<PriorityMatchResult<List<C>>> resultList) {
+        requestCount.increment();
+        if (resultList.isEmpty()) {
+            missCount.increment();
+            return;
+        }
+        for (int i = 0; i < resultList.size(); i++) {
+            PriorityMatchResult<List<C>> configResult = resultList.get(i);
+            processorHitMap.increment(configResult.getUniqueId());
+            leafHitMap.increment(configResult);
+        }
+    }
+
+    /**
+     * @param processorList 当前Processor集合，下标即层级
+     * @param useRecordMap  构建时各Processor加载的配置数量
+     * @param pathFunction  叶子结果对应的维度key路径，只在生成快照时调用
+     */
+    PriorityHitStats stats(List<? extends PriorityMatchProcessor<?, ?, ?>> processorList,
+                           PriorityCounterMap<String> useRecordMap,
+                           Function<PriorityMatchResult<List<C>>, List<?>> pathFunction) {
+        long request = requestCount.sum();
+        long miss = missCount.sum();
+        Map<String, Long> processorHits = processorHitMap.snapshot();
+        List<PriorityHitStats.ProcessorHit> processorHitList = new ArrayList<>(processorList.size());
+        for (int level = 0; level < processorList.size(); level++) {
+            PriorityMatchProcessor<?, ?, ?> processor = processorList.get(level);
+            processorHitList.add(new PriorityHitStats.ProcessorHit(processor.getUniqueId(), processor.getName(), level,
+                    useRecordMap.get(processor.getUniqueId()), processorHits.getOrDefault(processor.getUniqueId(), 0L)));
+        }
+        Map<PriorityMatchResult<List<C>>, Long> leafHits = leafHitMap.snapshot();
+        List<PriorityHitStats.LeafHit> leafHitList = new ArrayList<>(leafHits.size());
+        for (Map.Entry<PriorityMatchResult<List<C>>, Long> entry : leafHits.entrySet()) {
+            PriorityMatchResult<List<C>> configResult = entry.getKey();
+            leafHitList.add(new PriorityHitStats.LeafHit(configResult.getUniqueId(), configResult.getName(),
+                    pathFunction.apply(configResult), configResult.getResult().size(), entry.getValue()));
+        }
+        leafHitList.sort((a, b) -> Long.compare(b.getHitCount(), a.getHitCount()));
+        return new PriorityHitStats(request, miss, Collections.unmodifiableList(processorHitList),
+                Collections.unmodifiableList(leafHitList));
+    }
+}
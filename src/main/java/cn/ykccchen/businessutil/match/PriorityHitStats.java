@@ -0,0 +1,187 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.List;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 匹配命中统计快照，不可变
+ * 各计数分别读取，并发匹配时快照之间不保证严格一致
+ * @date 2025/8/20 14:00
+ */
+public class PriorityHitStats {
+
+    private final long requestCount;
+    private final long missCount;
+    private final List<ProcessorHit> processorList;
+    private final List<LeafHit> leafList;
+
+    public PriorityHitStats(long requestCount, long missCount, List<ProcessorHit> processorList, List<LeafHit> leafList) {
+        this.requestCount = requestCount;
+        this.missCount = missCount;
+        this.processorList = processorList;
+        this.leafList = leafList;
+    }
+
+    /**
+     * 匹配次数，批量匹配按需求个数计
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * 没有匹配到任何配置的次数
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 匹配到配置的比例，没有请求时为0
+     */
+    public double getHitRate() {
+        return requestCount == 0 ? 0D : (double) (requestCount - missCount) / requestCount;
+    }
+
+    /**
+     * 当前各Processor的命中情况，按优先级从高到低
+     */
+    public List<ProcessorHit> getProcessorList() {
+        return processorList;
+    }
+
+    /**
+     * 命中过的叶子，按命中次数从高到低
+     */
+    public List<LeafHit> getLeafList() {
+        return leafList;
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityHitStats{" +
+                "requestCount=" + requestCount +
+                ", missCount=" + missCount +
+                ", processorList=" + processorList +
+                ", leafSize=" + leafList.size() +
+                '}';
+    }
+
+    /**
+     * 单个Processor的命中情况
+     */
+    public static class ProcessorHit {
+
+        private final String uniqueId;
+        private final String name;
+        private final int level;
+        private final long configCount;
+        private final long hitCount;
+
+        public ProcessorHit(String uniqueId, String name, int level, long configCount, long hitCount) {
+            this.uniqueId = uniqueId;
+            this.name = name;
+            this.level = level;
+            this.configCount = configCount;
+            this.hitCount = hitCount;
+        }
+
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 在当前Processor集合中的下标，0为最高优先级
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * 构建时加载的配置数量
+         */
+        public long getConfigCount() {
+            return configCount;
+        }
+
+        /**
+         * 匹配结果中出现的次数，match(S, true) 一次匹配可能命中多个Processor
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        @Override
+        public String toString() {
+            return "ProcessorHit{" +
+                    "name='" + name + '\'' +
+                    ", level=" + level +
+                    ", configCount=" + configCount +
+                    ", hitCount=" + hitCount +
+                    '}';
+        }
+    }
+
+    /**
+     * 单个叶子(配置路径)的命中情况
+     */
+    public static class LeafHit {
+
+        private final String uniqueId;
+        private final String name;
+        private final List<?> keyList;
+        private final int configCount;
+        private final long hitCount;
+
+        public LeafHit(String uniqueId, String name, List<?> keyList, int configCount, long hitCount) {
+            this.uniqueId = uniqueId;
+            this.name = name;
+            this.keyList = keyList;
+            this.configCount = configCount;
+            this.hitCount = hitCount;
+        }
+
+        /**
+         * 所属Processor的uniqueId
+         */
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 路径上的配置维度key, 与Processor的维度顺序一致
+         */
+        public List<?> getKeyList() {
+            return keyList;
+        }
+
+        /**
+         * 叶子上的配置数量
+         */
+        public int getConfigCount() {
+            return configCount;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        @Override
+        public String toString() {
+            return "LeafHit{" +
+                    "name='" + name + '\'' +
+                    ", keyList=" + keyList +
+                    ", hitCount=" + hitCount +
+                    '}';
+        }
+    }
+}
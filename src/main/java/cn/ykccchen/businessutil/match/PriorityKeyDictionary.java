@@ -0,0 +1,111 @@
+package cn.ykccchen.businessutil.match;
+
+import cn.ykccchen.businessutil.match.handler.PriorityMatchType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 单个相等匹配维度的key字典，构建时把每个不同的key编码为从0开始的连续int
+ * 同一个key只保留第一次出现的实例，配置中内容相同的长字符串在树上共享同一个对象
+ * 需求key不在字典中时，该维度一定不能命中
+ * @date 2025/8/16 10:20
+ */
+final class PriorityKeyDictionary<K> {
+
+    /**
+     * 不在字典中的key
+     */
+    static final int MISSING = -1;
+
+    private final Map<K, Integer> codeMap = new HashMap<>();
+    private final List<K> keyList = new ArrayList<>();
+
+    /**
+     * 加入字典
+     *
+     * @param k 维度key, 不为空
+     * @return 字典中的key实例
+     */
+    K intern(K k) {
+        Integer code = codeMap.get(k);
+        if (code == null) {
+            codeMap.put(k, keyList.size());
+            keyList.add(k);
+            return k;
+        }
+        return keyList.get(code);
+    }
+
+    /**
+     * @param k 维度key
+     * @return 编码，不在字典中为 MISSING
+     */
+    int code(K k) {
+        Integer code = k == null ? null : codeMap.get(k);
+        return code == null ? MISSING : code;
+    }
+
+    int size() {
+        return keyList.size();
+    }
+
+    /**
+     * 为相等匹配的维度创建空字典
+     *
+     * @param priorityList 配置优先级集合，顺序可以与优先级不同
+     * @return 下标即优先级，非相等匹配的维度为null
+     */
+    @SuppressWarnings("unchecked")
+    static <S, C, K> PriorityKeyDictionary<K>[] of(List<PriorityMatchFunction<S, C, K>> priorityList) {
+        PriorityKeyDictionary<K>[] dictionaries = (PriorityKeyDictionary<K>[]) new PriorityKeyDictionary<?>[priorityList.size()];
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityList) {
+            if (priorityMatchFunction.getType() == PriorityMatchType.COMMON) {
+                dictionaries[priorityMatchFunction.getPriority()] = new PriorityKeyDictionary<>();
+            }
+        }
+        return dictionaries;
+    }
+
+    /**
+     * 基于已经构建的优先级树生成字典
+     *
+     * @param tree         优先级树，下标为头部维度优先级
+     * @param priorityList 配置优先级集合，顺序可以与优先级不同
+     * @return 下标即优先级，非相等匹配的维度为null
+     */
+    static <S, C, K> PriorityKeyDictionary<K>[] build(PriorityFetcher.PriorityMatchTree<S, C, K>[] tree,
+                                                      List<PriorityMatchFunction<S, C, K>> priorityList) {
+        PriorityKeyDictionary<K>[] dictionaries = of(priorityList);
+        for (int priority = 0; priority < tree.length; priority++) {
+            collect(tree[priority], priority, dictionaries);
+        }
+        return dictionaries;
+    }
+
+    private static <S, C, K> void collect(PriorityFetcher.PriorityMatchTree<S, C, K> node,
+                                          int priority,
+                                          PriorityKeyDictionary<K>[] dictionaries) {
+        PriorityKeyDictionary<K> dictionary = dictionaries[priority];
+        if (dictionary != null) {
+            for (K k : node.getConfigMap().keySet()) {
+                dictionary.intern(k);
+            }
+        }
+        for (Map.Entry<K, PriorityFetcher.PriorityMatchTree<S, C, K>[]> entry : node.getCurrentTree().entrySet()) {
+            if (dictionary != null) {
+                dictionary.intern(entry.getKey());
+            }
+            PriorityFetcher.PriorityMatchTree<S, C, K>[] children = entry.getValue();
+            for (int childPriority = 0; childPriority < children.length; childPriority++) {
+                if (children[childPriority] != null) {
+                    collect(children[childPriority], childPriority, dictionaries);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package cn.ykccchen.businessutil.match;
+
+import cn.ykccchen.businessutil.match.handler.PriorityMatchEngine;
+import cn.ykccchen.businessutil.match.handler.PriorityMatchType;
+
+import java.util.List;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 单个需求的匹配过程解释，不可变
+ * 按逐层匹配的顺序记录尝试过的每个Processor、每个维度取出的key、经过的树节点与候选key、每一步的耗时以及停止的位置
+ * 用于排查个别需求匹配慢的原因，例如某个维度在一个节点上扫描了大量key, 不要在匹配链路上使用
+ * @date 2025/8/22 10:00
+ */
+public class PriorityMatchExplain {
+
+    private final boolean allPriority;
+    private final PriorityMatchEngine engine;
+    private final List<Dimension> dimensionList;
+    private final List<ProcessorTrace> processorList;
+    private final List<PriorityMatchResult<?>> resultList;
+    private final int stopLevel;
+    private final long totalNanos;
+
+    PriorityMatchExplain(boolean allPriority,
+                         PriorityMatchEngine engine,
+                         List<Dimension> dimensionList,
+                         List<ProcessorTrace> processorList,
+                         List<PriorityMatchResult<?>> resultList,
+                         int stopLevel,
+                         long totalNanos) {
+        this.allPriority = allPriority;
+        this.engine = engine;
+        this.dimensionList = dimensionList;
+        this.processorList = processorList;
+        this.resultList = resultList;
+        this.stopLevel = stopLevel;
+        this.totalNanos = totalNanos;
+    }
+
+    public boolean isAllPriority() {
+        return allPriority;
+    }
+
+    /**
+     * 获取器实际匹配使用的引擎，解释过程固定按逐层匹配执行，结果与逐层匹配一致
+     */
+    public PriorityMatchEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * 各维度从需求中取出的key, 下标即优先级
+     */
+    public List<Dimension> getDimensionList() {
+        return dimensionList;
+    }
+
+    /**
+     * 按顺序尝试过的Processor, 停止之后的Processor不在其中
+     */
+    public List<ProcessorTrace> getProcessorList() {
+        return processorList;
+    }
+
+    public List<PriorityMatchResult<?>> getResultList() {
+        return resultList;
+    }
+
+    /**
+     * 找到结果后停止的Processor层级，遍历完全部Processor为-1
+     */
+    public int getStopLevel() {
+        return stopLevel;
+    }
+
+    /**
+     * 解释全过程耗时，包括记录本身的开销，只用于与各步骤耗时对比
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 多行文本，每个Processor一段，步骤按深度缩进
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("engine=").append(engine)
+                .append(", allPriority=").append(allPriority)
+                .append(", stopLevel=").append(stopLevel)
+                .append(", results=").append(resultList.size())
+                .append(", totalNanos=").append(totalNanos)
+                .append('\n');
+        builder.append("dimensions:");
+        for (Dimension dimension : dimensionList) {
+            builder.append(' ').append(dimension.getName()).append('=').append(dimension.getSourceKey())
+                    .append('(').append(dimension.getExtractNanos()).append("ns)");
+        }
+        builder.append('\n');
+        for (ProcessorTrace processorTrace : processorList) {
+            builder.append('[').append(processorTrace.getLevel()).append("] ").append(processorTrace.getName());
+            if (processorTrace.isFiltered()) {
+                builder.append(" filtered");
+            } else {
+                builder.append(" results=").append(processorTrace.getResultCount());
+            }
+            if (processorTrace.isStopped()) {
+                builder.append(" stopped");
+            }
+            builder.append(' ').append(processorTrace.getElapsedNanos()).append("ns\n");
+            for (Step step : processorTrace.getStepList()) {
+                for (int i = 0; i <= step.getDepth(); i++) {
+                    builder.append("  ");
+                }
+                builder.append(step.getDimension()).append(step.isLeaf() ? "(leaf)" : "")
+                        .append(" path=").append(step.getPath())
+                        .append(" key=").append(step.getSourceKey())
+                        .append(" nodeKeys=").append(step.getNodeKeyCount())
+                        .append(" predicates=").append(step.getPredicateCount())
+                        .append(" matched=").append(step.getMatchedKeyList().size())
+                        .append(" missed=").append(step.getMissCount())
+                        .append(' ').append(step.getElapsedNanos()).append("ns\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityMatchExplain{" +
+                "engine=" + engine +
+                ", processorCount=" + processorList.size() +
+                ", stopLevel=" + stopLevel +
+                ", resultCount=" + resultList.size() +
+                ", totalNanos=" + totalNanos +
+                '}';
+    }
+
+    /**
+     * 维度取值
+     */
+    public static class Dimension {
+
+        private final String name;
+        private final int priority;
+        private final PriorityMatchType type;
+        private final Object sourceKey;
+        private final long extractNanos;
+
+        Dimension(String name, int priority, PriorityMatchType type, Object sourceKey, long extractNanos) {
+            this.name = name;
+            this.priority = priority;
+            this.type = type;
+            this.sourceKey = sourceKey;
+            this.extractNanos = extractNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public PriorityMatchType getType() {
+            return type;
+        }
+
+        /**
+         * 取出的key, 为null说明该维度不参与匹配
+         */
+        public Object getSourceKey() {
+            return sourceKey;
+        }
+
+        /**
+         * 取值函数耗时
+         */
+        public long getExtractNanos() {
+            return extractNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Dimension{" +
+                    "name='" + name + '\'' +
+                    ", sourceKey=" + sourceKey +
+                    ", extractNanos=" + extractNanos +
+                    '}';
+        }
+    }
+
+    /**
+     * 单个Processor的查找过程
+     */
+    public static class ProcessorTrace {
+
+        private final String uniqueId;
+        private final String name;
+        private final int level;
+        private final boolean filtered;
+        private final List<Step> stepList;
+        private final int resultCount;
+        private final long elapsedNanos;
+        private final boolean stopped;
+
+        ProcessorTrace(String uniqueId, String name, int level, boolean filtered, List<Step> stepList,
+                       int resultCount, long elapsedNanos, boolean stopped) {
+            this.uniqueId = uniqueId;
+            this.name = name;
+            this.level = level;
+            this.filtered = filtered;
+            this.stepList = stepList;
+            this.resultCount = resultCount;
+            this.elapsedNanos = elapsedNanos;
+            this.stopped = stopped;
+        }
+
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 在当前Processor集合中的下标，0为最高优先级
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * 是否因需求缺少该Processor的维度或被布隆过滤器排除而跳过，跳过时没有步骤
+         */
+        public boolean isFiltered() {
+            return filtered;
+        }
+
+        /**
+         * 经过的树节点，深度优先顺序
+         */
+        public List<Step> getStepList() {
+            return stepList;
+        }
+
+        public int getResultCount() {
+            return resultCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * 是否在该Processor找到结果后停止
+         */
+        public boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public String toString() {
+            return "ProcessorTrace{" +
+                    "name='" + name + '\'' +
+                    ", level=" + level +
+                    ", filtered=" + filtered +
+                    ", stepCount=" + stepList.size() +
+                    ", resultCount=" + resultCount +
+                    ", stopped=" + stopped +
+                    '}';
+        }
+    }
+
+    /**
+     * 在一个树节点上匹配一个维度
+     */
+    public static class Step {
+
+        private final int depth;
+        private final String dimension;
+        private final int priority;
+        private final List<?> path;
+        private final Object sourceKey;
+        private final boolean leaf;
+        private final boolean indexed;
+        private final int nodeKeyCount;
+        private final int predicateCount;
+        private final List<?> matchedKeyList;
+        private final int missCount;
+        private final long elapsedNanos;
+
+        Step(int depth, String dimension, int priority, List<?> path, Object sourceKey, boolean leaf, boolean indexed,
+             int nodeKeyCount, int predicateCount, List<?> matchedKeyList, int missCount, long elapsedNanos) {
+            this.depth = depth;
+            this.dimension = dimension;
+            this.priority = priority;
+            this.path = path;
+            this.sourceKey = sourceKey;
+            this.leaf = leaf;
+            this.indexed = indexed;
+            this.nodeKeyCount = nodeKeyCount;
+            this.predicateCount = predicateCount;
+            this.matchedKeyList = matchedKeyList;
+            this.missCount = missCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * 在Processor维度中的下标，0为头节点
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        public String getDimension() {
+            return dimension;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * 到达该节点经过的配置key
+         */
+        public List<?> getPath() {
+            return path;
+        }
+
+        public Object getSourceKey() {
+            return sourceKey;
+        }
+
+        /**
+         * 是否为Processor的最后一个维度，匹配的是叶子key
+         */
+        public boolean isLeaf() {
+            return leaf;
+        }
+
+        /**
+         * 是否通过区间/前缀/正则索引匹配
+         */
+        public boolean isIndexed() {
+            return indexed;
+        }
+
+        /**
+         * 节点上的key数量
+         */
+        public int getNodeKeyCount() {
+            return nodeKeyCount;
+        }
+
+        /**
+         * 逐个调用匹配函数的次数，BOOLEAN 维度没有索引时等于节点key数量
+         */
+        public int getPredicateCount() {
+            return predicateCount;
+        }
+
+        /**
+         * 维度匹配返回的候选key, 相等匹配为需求key本身
+         */
+        public List<?> getMatchedKeyList() {
+            return matchedKeyList;
+        }
+
+        /**
+         * 候选key中没有子节点或叶子结果的数量
+         */
+        public int getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * 该节点上key匹配的耗时，不包括子节点
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Step{" +
+                    "dimension='" + dimension + '\'' +
+                    ", path=" + path +
+                    ", sourceKey=" + sourceKey +
+                    ", nodeKeyCount=" + nodeKeyCount +
+                    ", matchedKeyCount=" + matchedKeyList.size() +
+                    ", missCount=" + missCount +
+                    ", elapsedNanos=" + elapsedNanos +
+                    '}';
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package cn.ykccchen.businessutil.match;
 
 import cn.ykccchen.businessutil.match.handler.PriorityMatchType;
+import cn.ykccchen.businessutil.match.index.PriorityKeyIndexFactory;
+import cn.ykccchen.businessutil.match.index.PriorityPrefixIndex;
+import cn.ykccchen.businessutil.match.index.PriorityRangeIndex;
+import cn.ykccchen.businessutil.match.index.PriorityRegexIndex;
 
 import java.util.*;
 import java.util.function.BiPredicate;
@@ -38,13 +42,19 @@ public class PriorityMatchFunction<S, C, K> {
      */
     private final BiPredicate<K, K> keyMatchFunction;
 
+    /**
+     * 树节点key索引，存在时节点上的key通过索引匹配，不再逐个调用 keyMatchFunction
+     */
+    private final PriorityKeyIndexFactory<K> keyIndexFactory;
+
 
     private PriorityMatchFunction(String name,
                                   Integer priority,
                                   PriorityMatchType type,
                                   Function<S, K> sourceGetter,
                                   Function<C, K> configGetter,
-                                  BiPredicate<K, K> keyMatchFunction) {
+                                  BiPredicate<K, K> keyMatchFunction,
+                                  PriorityKeyIndexFactory<K> keyIndexFactory) {
         if (priority < 0) {
             throw new UnsupportedOperationException("Priority must be greater than to 0");
         }
@@ -55,6 +65,7 @@ public class PriorityMatchFunction<S, C, K> {
         this.sourceGetter = sourceGetter;
         this.configGetter = configGetter;
         this.keyMatchFunction = keyMatchFunction;
+        this.keyIndexFactory = keyIndexFactory;
     }
 
     /**
@@ -66,7 +77,7 @@ public class PriorityMatchFunction<S, C, K> {
                                                               Integer priority,
                                                               Function<S, K> sourceGetter,
                                                               Function<C, K> configGetter) {
-        return new PriorityMatchFunction<>(name, priority, PriorityMatchType.COMMON, sourceGetter, configGetter, null);
+        return new PriorityMatchFunction<>(name, priority, PriorityMatchType.COMMON, sourceGetter, configGetter, null, null);
     }
 
     public static <S, C, K> PriorityMatchFunction<S, C, K> of(Integer priority,
@@ -80,7 +91,7 @@ public class PriorityMatchFunction<S, C, K> {
                                                                      Function<S, K> sourceGetter,
                                                                      Function<C, K> configGetter,
                                                                      BiPredicate<K, K> keyMatchFunction) {
-        return new PriorityMatchFunction<>(name, priority, PriorityMatchType.BOOLEAN, sourceGetter, configGetter, keyMatchFunction);
+        return new PriorityMatchFunction<>(name, priority, PriorityMatchType.BOOLEAN, sourceGetter, configGetter, keyMatchFunction, null);
     }
 
     public static <S, C, K> PriorityMatchFunction<S, C, K> ofBoolean(Integer priority,
@@ -90,6 +101,85 @@ public class PriorityMatchFunction<S, C, K> {
         return PriorityMatchFunction.ofBoolean(null, priority, sourceGetter, configGetter, keyMatchFunction);
     }
 
+    /**
+     * 区间匹配，配置key为区间，需求key为区间端点同类型的值，两端为闭区间
+     * 树节点上的区间使用区间树索引，单次查找复杂度 O(log n + 命中数)
+     *
+     * @param name         键的描述性名称，方便调试
+     * @param priority     优先级
+     * @param sourceGetter 需求值获取方式，值类型需与区间端点一致
+     * @param configGetter 区间获取方式
+     * @param minGetter    区间下界，null为无下界
+     * @param maxGetter    区间上界，null为无上界
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, C, K, T extends Comparable<? super T>> PriorityMatchFunction<S, C, K> ofRange(String name,
+                                                                                                   Integer priority,
+                                                                                                   Function<S, K> sourceGetter,
+                                                                                                   Function<C, K> configGetter,
+                                                                                                   Function<K, T> minGetter,
+                                                                                                   Function<K, T> maxGetter) {
+        BiPredicate<K, K> keyMatchFunction = (sourceKey, configKey) ->
+                PriorityRangeIndex.contains((T) sourceKey, minGetter.apply(configKey), maxGetter.apply(configKey));
+        return new PriorityMatchFunction<>(name, priority, PriorityMatchType.RANGE, sourceGetter, configGetter,
+                keyMatchFunction, PriorityRangeIndex.factory(minGetter, maxGetter));
+    }
+
+    public static <S, C, K, T extends Comparable<? super T>> PriorityMatchFunction<S, C, K> ofRange(Integer priority,
+                                                                                                   Function<S, K> sourceGetter,
+                                                                                                   Function<C, K> configGetter,
+                                                                                                   Function<K, T> minGetter,
+                                                                                                   Function<K, T> maxGetter) {
+        return PriorityMatchFunction.ofRange(null, priority, sourceGetter, configGetter, minGetter, maxGetter);
+    }
+
+    /**
+     * 前缀匹配，配置key为前缀，需求key以配置key开头即命中，key按 String.valueOf 比较
+     * 树节点上的前缀使用字典树索引，单次查找复杂度与需求key长度相关，命中结果按前缀从长到短排列
+     *
+     * @param name         键的描述性名称，方便调试
+     * @param priority     优先级
+     * @param sourceGetter 需求值获取方式
+     * @param configGetter 前缀获取方式
+     */
+    public static <S, C, K> PriorityMatchFunction<S, C, K> ofPrefix(String name,
+                                                                    Integer priority,
+                                                                    Function<S, K> sourceGetter,
+                                                                    Function<C, K> configGetter) {
+        return new PriorityMatchFunction<>(name, priority, PriorityMatchType.PREFIX, sourceGetter, configGetter,
+                PriorityPrefixIndex::startsWith, PriorityPrefixIndex.factory());
+    }
+
+    public static <S, C, K> PriorityMatchFunction<S, C, K> ofPrefix(Integer priority,
+                                                                    Function<S, K> sourceGetter,
+                                                                    Function<C, K> configGetter) {
+        return PriorityMatchFunction.ofPrefix(null, priority, sourceGetter, configGetter);
+    }
+
+    /**
+     * 正则匹配，配置key为正则表达式，需求key整串匹配即命中，key按 String.valueOf 比较
+     * 树节点上的正则只编译一次，并按字面量前缀预筛，命中结果按节点顺序排列
+     * 正则在构建时编译，不合法的正则在 create() / 增量更新时抛出 PatternSyntaxException
+     *
+     * @param name         键的描述性名称，方便调试
+     * @param priority     优先级
+     * @param sourceGetter 需求值获取方式
+     * @param configGetter 正则获取方式
+     */
+    public static <S, C, K> PriorityMatchFunction<S, C, K> ofRegex(String name,
+                                                                   Integer priority,
+                                                                   Function<S, K> sourceGetter,
+                                                                   Function<C, K> configGetter) {
+        return new PriorityMatchFunction<>(name, priority, PriorityMatchType.REGEX, sourceGetter, configGetter,
+                PriorityRegexIndex::matches, PriorityRegexIndex.factory());
+    }
+
+    public static <S, C, K> PriorityMatchFunction<S, C, K> ofRegex(Integer priority,
+                                                                   Function<S, K> sourceGetter,
+                                                                   Function<C, K> configGetter) {
+        return PriorityMatchFunction.ofRegex(null, priority, sourceGetter, configGetter);
+    }
+
 
     /**
      * 匹配对应key
@@ -101,8 +191,17 @@ public class PriorityMatchFunction<S, C, K> {
         if (source == null) {
             return Collections.emptyList();
         }
-        K sourceKey = sourceGetter.apply(source);
-        if (sourceKey == null || Objects.equals("", sourceKey)){
+        return matchKey(getSourceKey(source), kListSupplier);
+    }
+
+    /**
+     * 基于已取出的资源key匹配对应key
+     * @param sourceKey 资源key, 为空说明不参与匹配
+     * @param kListSupplier 批量存在的key值，用于模糊匹配的场景，可以为空
+     * @return 匹配K
+     */
+    public List<K> matchKey(K sourceKey, Supplier<Collection<K>> kListSupplier) {
+        if (sourceKey == null){
             return Collections.emptyList();
         }
         // key匹配模式存在，走key匹配模式
@@ -118,6 +217,22 @@ public class PriorityMatchFunction<S, C, K> {
         return Collections.singletonList(sourceKey);
     }
 
+    /**
+     * 获取资源key, 空值与空字符统一返回null
+     * @param source 资源
+     * @return 资源key
+     */
+    public K getSourceKey(S source) {
+        if (source == null) {
+            return null;
+        }
+        K sourceKey = sourceGetter.apply(source);
+        if (sourceKey == null || Objects.equals("", sourceKey)){
+            return null;
+        }
+        return sourceKey;
+    }
+
     public K matchConfig(C config) {
         if (config == null) {
             return null;
@@ -125,6 +240,14 @@ public class PriorityMatchFunction<S, C, K> {
         return configGetter.apply(config);
     }
 
+    BiPredicate<K, K> getKeyMatchFunction() {
+        return keyMatchFunction;
+    }
+
+    public PriorityKeyIndexFactory<K> getKeyIndexFactory() {
+        return keyIndexFactory;
+    }
+
     public PriorityMatchType getType() {
         return type;
     }
@@ -146,6 +269,26 @@ public class PriorityMatchFunction<S, C, K> {
     }
 
 
+    /**
+     * 按优先级建立下标，维度集合中的顺序可以与优先级不同
+     *
+     * @param priorityList 配置优先级集合，优先级需要在 [0, size) 内且不重复
+     * @return 下标即优先级
+     */
+    static <S, C, K> PriorityMatchFunction<S, C, K>[] indexByPriority(List<PriorityMatchFunction<S, C, K>> priorityList) {
+        @SuppressWarnings("unchecked")
+        PriorityMatchFunction<S, C, K>[] priorityFunctions = (PriorityMatchFunction<S, C, K>[]) new PriorityMatchFunction<?, ?, ?>[priorityList.size()];
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityList) {
+            int priority = priorityMatchFunction.getPriority();
+            if (priority >= priorityFunctions.length || priorityFunctions[priority] != null) {
+                throw new IllegalArgumentException("PriorityMatchFunction priority must be unique and less than "
+                        + priorityFunctions.length + ", but was " + priority);
+            }
+            priorityFunctions[priority] = priorityMatchFunction;
+        }
+        return priorityFunctions;
+    }
+
     public Integer getPriority() {
         return priority;
     }
@@ -0,0 +1,39 @@
+package cn.ykccchen.businessutil.match;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 匹配监听器，每次实际执行匹配后收到一条汇总记录
+ * 回调在匹配线程上同步执行，并行匹配时会被并发调用，实现需要线程安全且足够轻量
+ * 回调抛出的异常会传给匹配的调用方
+ * @date 2025/8/21 10:00
+ */
+@FunctionalInterface
+public interface PriorityMatchListener {
+
+    /**
+     * 匹配完成
+     *
+     * @param record 本次匹配的耗时与工作量
+     */
+    void onMatch(PriorityMatchRecord record);
+
+    /**
+     * 空实现，设置到获取器上等同于不设置监听器，匹配时不会生成记录
+     */
+    static PriorityMatchListener noop() {
+        return NoopListener.INSTANCE;
+    }
+
+    final class NoopListener implements PriorityMatchListener {
+
+        static final NoopListener INSTANCE = new NoopListener();
+
+        private NoopListener() {
+        }
+
+        @Override
+        public void onMatch(PriorityMatchRecord record) {
+        }
+    }
+}
@@ -17,10 +17,24 @@ public class PriorityMatchProcessor<S, C, K> {
 
     private final List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList;
 
+    /**
+     * 维度掩码，第n位表示优先级为n的维度，需求在其中任一维度为空时该Processor一定不能命中
+     */
+    private final long dimensionMask;
+
     public PriorityMatchProcessor(List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList) {
         this.priorityMatchFunctionList = priorityMatchFunctionList;
         this.name = initName(priorityMatchFunctionList);
         this.uniqueId = initUniqueId(priorityMatchFunctionList);
+        this.dimensionMask = initDimensionMask(priorityMatchFunctionList);
+    }
+
+    public static <S, C, K> long initDimensionMask(List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList) {
+        long dimensionMask = 0L;
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityMatchFunctionList) {
+            dimensionMask |= PrioritySourceKey.dimensionBit(priorityMatchFunction.getPriority());
+        }
+        return dimensionMask;
     }
 
     public static <S, C, K> String initUniqueId(List<PriorityMatchFunction<S, C, K>> priorityMatchFunctionList){
@@ -52,6 +66,10 @@ public class PriorityMatchProcessor<S, C, K> {
         return priorityMatchFunctionList;
     }
 
+    public long getDimensionMask() {
+        return dimensionMask;
+    }
+
 
     @Override
     public int hashCode() {
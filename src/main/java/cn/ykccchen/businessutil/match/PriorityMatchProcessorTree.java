@@ -17,6 +17,11 @@ public class PriorityMatchProcessorTree<S, C, K> {
     private final PriorityMatchFunction<S, C, K> node;
     private final Map<String, PriorityMatchProcessorTree<S, C, K>> priorityMatchFunctionTree;
 
+    /**
+     * 从顶层到当前节点路径上的维度掩码，分支下的全部Processor都包含这些维度
+     */
+    private final long dimensionMask;
+
     public static  <S, C, K>  PriorityMatchProcessorTree<S, C, K>  build(List<PriorityMatchProcessor<S, C, K>> priorityMatchProcessorList) {
         PriorityMatchProcessorTree<S, C, K> tree = new PriorityMatchProcessorTree<>(0, null);
         // 初始化头
@@ -34,15 +39,23 @@ public class PriorityMatchProcessorTree<S, C, K> {
     }
     public PriorityMatchProcessorTree(int level,
                                       PriorityMatchFunction<S, C, K> node) {
+        this(level, node, node == null ? 0L : PrioritySourceKey.dimensionBit(node.getPriority()));
+    }
+
+    private PriorityMatchProcessorTree(int level,
+                                       PriorityMatchFunction<S, C, K> node,
+                                       long dimensionMask) {
         this.level = level;
         this.priorityMatchFunctionTree = new LinkedHashMap<>();
         this.node = node;
+        this.dimensionMask = dimensionMask;
     }
 
     public PriorityMatchProcessorTree<S, C, K> addChildNode(PriorityMatchFunction<S, C, K> priorityMatchFunction) {
         PriorityMatchProcessorTree<S, C, K> sckPriorityMatchProcessorTree = priorityMatchFunctionTree.get(priorityMatchFunction.getUniqueId());
         if (sckPriorityMatchProcessorTree == null) {
-            sckPriorityMatchProcessorTree = new PriorityMatchProcessorTree<>(level + 1, priorityMatchFunction);
+            sckPriorityMatchProcessorTree = new PriorityMatchProcessorTree<>(level + 1, priorityMatchFunction,
+                    dimensionMask | PrioritySourceKey.dimensionBit(priorityMatchFunction.getPriority()));
             priorityMatchFunctionTree.put(priorityMatchFunction.getUniqueId(), sckPriorityMatchProcessorTree);
         }
         return sckPriorityMatchProcessorTree;
@@ -65,5 +78,9 @@ public class PriorityMatchProcessorTree<S, C, K> {
         return priorityMatchFunctionTree;
     }
 
+    public long getDimensionMask() {
+        return dimensionMask;
+    }
+
 
 }
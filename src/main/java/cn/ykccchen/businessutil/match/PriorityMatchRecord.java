@@ -0,0 +1,140 @@
+package cn.ykccchen.businessutil.match;
+
+import cn.ykccchen.businessutil.match.handler.PriorityMatchEngine;
+
+import java.util.List;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 单次匹配的汇总记录，匹配过程中累加，回调时已经完成，之后不再变化
+ * 工作量计数只在原优先级树上的逐层匹配与树匹配中统计，其他引擎、冻结后以及缓存命中时 isWorkCounted 为false, 计数为0
+ * @date 2025/8/21 10:00
+ */
+public final class PriorityMatchRecord {
+
+    private final boolean allPriority;
+    private PriorityMatchEngine engine;
+    private boolean workCounted;
+    private boolean cacheHit;
+    private long latencyNanos;
+
+    int processorCount;
+    int filteredProcessorCount;
+    int nodeCount;
+    int predicateCount;
+    int keyCount;
+
+    private int resultCount;
+    private PriorityMatchResult<?> winner;
+
+    PriorityMatchRecord(boolean allPriority) {
+        this.allPriority = allPriority;
+    }
+
+    void engine(PriorityMatchEngine engine, boolean workCounted) {
+        this.engine = engine;
+        this.workCounted = workCounted;
+    }
+
+    void cacheHit() {
+        this.cacheHit = true;
+    }
+
+    void finish(long latencyNanos, List<? extends PriorityMatchResult<?>> resultList) {
+        this.latencyNanos = latencyNanos;
+        this.resultCount = resultList.size();
+        this.winner = resultList.isEmpty() ? null : resultList.get(0);
+    }
+
+    public boolean isAllPriority() {
+        return allPriority;
+    }
+
+    /**
+     * 执行匹配的引擎，缓存命中时为null
+     */
+    public PriorityMatchEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * 是否统计了工作量计数
+     */
+    public boolean isWorkCounted() {
+        return workCounted;
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * 匹配耗时，包括缓存查找，不包括取需求维度key以外的调用方逻辑
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * 访问的Processor数量，树匹配为到达的Processor末端数量，包括被跳过的
+     */
+    public int getProcessorCount() {
+        return processorCount;
+    }
+
+    /**
+     * 需求缺少Processor的维度或被布隆过滤器排除，没有查找优先级树就跳过的Processor数量
+     */
+    public int getFilteredProcessorCount() {
+        return filteredProcessorCount;
+    }
+
+    /**
+     * 做过key匹配的树节点数量，递归越深越多
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * BOOLEAN 等自定义匹配维度逐个调用匹配函数的次数，即节点上没有索引时扫描的key数量
+     */
+    public int getPredicateCount() {
+        return predicateCount;
+    }
+
+    /**
+     * 各节点key匹配返回的候选key数量之和，即继续向下查找的分支数量
+     */
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * 优先级最高的结果，未命中为null, getUniqueId 即产生该结果的Processor
+     */
+    public PriorityMatchResult<?> getWinner() {
+        return winner;
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityMatchRecord{" +
+                "engine=" + engine +
+                ", cacheHit=" + cacheHit +
+                ", latencyNanos=" + latencyNanos +
+                ", processorCount=" + processorCount +
+                ", filteredProcessorCount=" + filteredProcessorCount +
+                ", nodeCount=" + nodeCount +
+                ", predicateCount=" + predicateCount +
+                ", keyCount=" + keyCount +
+                ", resultCount=" + resultCount +
+                ", winner=" + (winner == null ? null : winner.getUniqueId()) +
+                '}';
+    }
+}
@@ -0,0 +1,222 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 内置的匹配监听器，把耗时与工作量记录到直方图
+ * 直方图按2的幂分段，每段再等分为4个桶，分位数误差不超过25%; 计数使用 LongAdder, 并发匹配时不争用同一个计数器
+ * 命中时按产生结果的Processor分别记录耗时，p99 变差时可以对比各Processor的耗时与工作量分布，
+ * 判断是 BOOLEAN 维度扫描(predicateCount)还是逐层递归过深(nodeCount)
+ * @date 2025/8/21 10:00
+ */
+public class PriorityMatchRecorder implements PriorityMatchListener {
+
+    private final Histogram latency = new Histogram();
+    private final Histogram missLatency = new Histogram();
+    private final Histogram processorCount = new Histogram();
+    private final Histogram nodeCount = new Histogram();
+    private final Histogram predicateCount = new Histogram();
+    private final Histogram keyCount = new Histogram();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final ConcurrentHashMap<String, Histogram> winnerLatencyMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void onMatch(PriorityMatchRecord record) {
+        long latencyNanos = record.getLatencyNanos();
+        latency.record(latencyNanos);
+        if (record.isCacheHit()) {
+            cacheHitCount.increment();
+        }
+        if (record.isWorkCounted()) {
+            processorCount.record(record.getProcessorCount());
+            nodeCount.record(record.getNodeCount());
+            predicateCount.record(record.getPredicateCount());
+            keyCount.record(record.getKeyCount());
+        }
+        PriorityMatchResult<?> winner = record.getWinner();
+        if (winner == null) {
+            missLatency.record(latencyNanos);
+            return;
+        }
+        Histogram histogram = winnerLatencyMap.get(winner.getUniqueId());
+        if (histogram == null) {
+            histogram = winnerLatencyMap.computeIfAbsent(winner.getUniqueId(), k -> new Histogram());
+        }
+        histogram.record(latencyNanos);
+    }
+
+    /**
+     * 全部匹配的耗时，单位纳秒
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * 未命中的匹配耗时，单位纳秒
+     */
+    public Histogram getMissLatency() {
+        return missLatency;
+    }
+
+    public Histogram getProcessorCount() {
+        return processorCount;
+    }
+
+    public Histogram getNodeCount() {
+        return nodeCount;
+    }
+
+    public Histogram getPredicateCount() {
+        return predicateCount;
+    }
+
+    public Histogram getKeyCount() {
+        return keyCount;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.sum();
+    }
+
+    /**
+     * 按产生结果的Processor uniqueId 分别记录的耗时
+     */
+    public Map<String, Histogram> getWinnerLatency() {
+        return Collections.unmodifiableMap(new TreeMap<>(winnerLatencyMap));
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityMatchRecorder{" +
+                "latency=" + latency +
+                ", processorCount=" + processorCount +
+                ", nodeCount=" + nodeCount +
+                ", predicateCount=" + predicateCount +
+                ", keyCount=" + keyCount +
+                ", cacheHitCount=" + cacheHitCount.sum() +
+                '}';
+    }
+
+    /**
+     * 并发直方图，只记录非负值
+     * 各计数分别读取，并发记录时读取结果之间不保证严格一致
+     */
+    public static final class Histogram {
+
+        /**
+         * 每个2的幂区间再等分的位数
+         */
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKET_SIZE = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKET_SIZE];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0L);
+
+        Histogram() {
+            for (int i = 0; i < BUCKET_SIZE; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            long v = Math.max(0L, value);
+            buckets[bucketIndex(v)].increment();
+            count.increment();
+            total.add(v);
+            max.accumulate(v);
+        }
+
+        static int bucketIndex(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+        }
+
+        /**
+         * 桶内的最大值
+         */
+        static long bucketUpperBound(int index) {
+            if (index < SUB_BUCKET_COUNT) {
+                return index;
+            }
+            int shift = index / SUB_BUCKET_COUNT - 1;
+            long lower = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+            return lower + (1L << shift) - 1;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotal() {
+            return total.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * 平均值，没有记录时为0
+         */
+        public double getMean() {
+            long c = count.sum();
+            return c == 0 ? 0D : (double) total.sum() / c;
+        }
+
+        /**
+         * 分位数，返回所在桶的上界，不超过最大值
+         *
+         * @param percentile 0~100
+         * @return 没有记录时为0
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("PriorityMatchRecorder percentile must be between 0 and 100");
+            }
+            long[] counts = new long[BUCKET_SIZE];
+            long c = 0;
+            for (int i = 0; i < BUCKET_SIZE; i++) {
+                counts[i] = buckets[i].sum();
+                c += counts[i];
+            }
+            if (c == 0) {
+                return 0L;
+            }
+            long target = Math.max(1L, (long) Math.ceil(percentile / 100D * c));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_SIZE; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return Math.min(bucketUpperBound(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{" +
+                    "count=" + getCount() +
+                    ", mean=" + String.format("%.1f", getMean()) +
+                    ", p50=" + getPercentile(50) +
+                    ", p99=" + getPercentile(99) +
+                    ", max=" + getMax() +
+                    '}';
+        }
+    }
+}
@@ -1,26 +1,51 @@
 package cn.ykccchen.businessutil.match;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author ykccchen
  * @version 1.0
- * @description 匹配结果对象
+ * @description 匹配结果对象, 不可变, 同一个叶子节点的命中共享同一个实例
  * @date 2025/2/5 14:28
  */
 public class PriorityMatchResult<T> {
 
-    private String uniqueId;
-    private String name;
-    private Integer level;
-    private T result;
+    private final String uniqueId;
+    private final String name;
+    private final Integer level;
+    /**
+     * 对外的结果，配置集合为只读视图
+     */
+    private final T result;
+    /**
+     * 结果的可修改原对象，只在包内构建、合并与复制叶子时写入
+     */
+    private final T source;
 
     public PriorityMatchResult(String uniqueId, String name, Integer level, T result) {
+        this(uniqueId, name, level, result, result);
+    }
+
+    private PriorityMatchResult(String uniqueId, String name, Integer level, T result, T source) {
         this.uniqueId = uniqueId;
         this.name = name;
         this.result = result;
         this.level = level;
+        this.source = source;
     }
 
     private PriorityMatchResult() {
+        this(null, null, null, null);
+    }
+
+    /**
+     * 创建配置集合结果，getResult 返回 configList 的只读视图
+     *
+     * @param configList 配置集合，由创建方在构建期间写入，发布后不再修改
+     */
+    public static <E> PriorityMatchResult<List<E>> ofList(String uniqueId, String name, Integer level, List<E> configList) {
+        return new PriorityMatchResult<>(uniqueId, name, level, Collections.unmodifiableList(configList), configList);
     }
 
     public String getName() {
@@ -35,6 +60,13 @@ public class PriorityMatchResult<T> {
         return result;
     }
 
+    /**
+     * 可修改的原结果，调用方需保证该结果尚未发布或已经复制
+     */
+    T getSource() {
+        return source;
+    }
+
     public Integer getLevel() {
         return level;
     }
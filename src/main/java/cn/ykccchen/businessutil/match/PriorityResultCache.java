@@ -0,0 +1,126 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 有界匹配结果缓存，LRU淘汰
+ * 按key的hash分段，每段是一个访问顺序的 LinkedHashMap, 段内加锁，不同段的读写互不阻塞
+ * 命中、未命中、淘汰次数使用 LongAdder 统计，高并发下不争用同一个计数器
+ * @date 2025/8/11 10:30
+ */
+final class PriorityResultCache<K, V> {
+
+    /**
+     * 容量足够时的最大分段数
+     */
+    private static final int MAX_SEGMENT_SIZE = 16;
+
+    /**
+     * 单段最少容量，容量过小时减少分段，避免分段后单段只能存很少的数据
+     */
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final int maxSize;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    PriorityResultCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("PriorityResultCache maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        int segmentSize = 1;
+        while (segmentSize < MAX_SEGMENT_SIZE && maxSize / (segmentSize << 1) >= MIN_SEGMENT_CAPACITY) {
+            segmentSize <<= 1;
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Segment<K, V>[] segmentArray = new Segment[segmentSize];
+        this.segments = segmentArray;
+        this.segmentMask = segmentSize - 1;
+        // 余数分给前面的段，总容量与 maxSize 一致
+        for (int i = 0; i < segmentSize; i++) {
+            segments[i] = new Segment<>(maxSize / segmentSize + (i < maxSize % segmentSize ? 1 : 0), evictionCount);
+        }
+    }
+
+    /**
+     * 获取缓存，同时记录命中情况
+     *
+     * @param key 缓存key
+     * @return 缓存值，未命中为null
+     */
+    V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    PriorityCacheStats stats() {
+        return new PriorityCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size(), maxSize);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        // 高位参与分段，避免低位相同的hash集中在同一段
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    /**
+     * 缓存分段，访问顺序排列，超出容量时淘汰最久未访问的数据
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final LongAdder evictionCount;
+
+        private Segment(int capacity, LongAdder evictionCount) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package cn.ykccchen.businessutil.match;
+
+import java.util.Arrays;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 需求维度key向量，按维度优先级存放每个维度从需求对象取出的key
+ * 每个维度的key只取一次，空值与空字符统一记为null, 表示该维度不参与匹配
+ * key向量相同的需求匹配结果一定相同，可以作为批量匹配的去重依据
+ * 单次匹配内使用，非线程安全; 全部维度取值完成后只读，可以作为缓存key共享
+ * 同时按位记录已取值与非空的维度(优先级小于64的维度)，任一维度为空的Processor一定不能命中，匹配前用一次位运算跳过
+ * @date 2025/8/5 16:20
+ */
+final class PrioritySourceKey<S, K> {
+
+    /**
+     * 尚未取值的维度占位
+     */
+    private static final Object UNRESOLVED = new Object();
+
+    /**
+     * 下标即优先级
+     */
+    private final PriorityMatchFunction<S, ?, K>[] priorityFunctions;
+
+    private final Object[] keys;
+
+    /**
+     * 全部维度取值完成后释放，避免去重集合持有需求对象
+     */
+    private S source;
+
+    private int hash;
+
+    private boolean resolved;
+
+    /**
+     * 已取值的维度，需求为null时全部维度都为空
+     */
+    private long resolvedMask = -1L;
+
+    /**
+     * 已取值且非空的维度
+     */
+    private long presentMask;
+
+    private PrioritySourceKey(S source, PriorityMatchFunction<S, ?, K>[] priorityFunctions) {
+        this.priorityFunctions = priorityFunctions;
+        this.keys = new Object[priorityFunctions.length];
+        if (source != null) {
+            this.source = source;
+            this.resolvedMask = 0L;
+            Arrays.fill(keys, UNRESOLVED);
+        }
+    }
+
+    /**
+     * 维度在掩码中的位，优先级大于等于64的维度不参与掩码判断
+     */
+    static long dimensionBit(int priority) {
+        return priority < Long.SIZE ? 1L << priority : 0L;
+    }
+
+    /**
+     * 延迟取值，只有匹配过程中用到的维度才会调用取值函数
+     *
+     * @param source            需求信息
+     * @param priorityFunctions 配置优先级集合, 下标即优先级
+     * @return key向量
+     */
+    static <S, C, K> PrioritySourceKey<S, K> lazy(S source, PriorityMatchFunction<S, C, K>[] priorityFunctions) {
+        return new PrioritySourceKey<>(source, priorityFunctions);
+    }
+
+    /**
+     * 一次性取出全部维度的key
+     *
+     * @param source            需求信息
+     * @param priorityFunctions 配置优先级集合, 下标即优先级
+     * @return key向量
+     */
+    static <S, C, K> PrioritySourceKey<S, K> of(S source, PriorityMatchFunction<S, C, K>[] priorityFunctions) {
+        PrioritySourceKey<S, K> sourceKey = new PrioritySourceKey<>(source, priorityFunctions);
+        sourceKey.resolveAll();
+        return sourceKey;
+    }
+
+    /**
+     * 获取维度对应的key
+     *
+     * @param priorityMatchFunction 维度
+     * @return key, 为null说明该维度不参与匹配
+     */
+    @SuppressWarnings("unchecked")
+    <C> K get(PriorityMatchFunction<S, C, K> priorityMatchFunction) {
+        int priority = priorityMatchFunction.getPriority();
+        Object k = keys[priority];
+        if (k == UNRESOLVED) {
+            k = priorityMatchFunction.getSourceKey(source);
+            keys[priority] = k;
+            long bit = dimensionBit(priority);
+            resolvedMask |= bit;
+            if (k != null) {
+                presentMask |= bit;
+            }
+        }
+        return (K) k;
+    }
+
+    /**
+     * 掩码中的维度是否全部非空，只对尚未取值的维度取值
+     *
+     * @param dimensionMask 维度掩码
+     * @return 任一维度为空时为false
+     */
+    boolean containsAll(long dimensionMask) {
+        long unresolved = dimensionMask & ~resolvedMask;
+        while (unresolved != 0) {
+            get(priorityFunctions[Long.numberOfTrailingZeros(unresolved)]);
+            unresolved &= unresolved - 1;
+        }
+        return (dimensionMask & ~presentMask) == 0;
+    }
+
+    private void resolveAll() {
+        if (resolved) {
+            return;
+        }
+        if (source != null) {
+            for (PriorityMatchFunction<S, ?, K> priorityMatchFunction : priorityFunctions) {
+                get(priorityMatchFunction);
+            }
+            source = null;
+        }
+        hash = Arrays.hashCode(keys);
+        resolved = true;
+    }
+
+    @Override
+    public int hashCode() {
+        resolveAll();
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PrioritySourceKey<?, ?> sourceKey = (PrioritySourceKey<?, ?>) o;
+        resolveAll();
+        sourceKey.resolveAll();
+        return hash == sourceKey.hash && Arrays.equals(keys, sourceKey.keys);
+    }
+
+    @Override
+    public String toString() {
+        resolveAll();
+        return "PrioritySourceKey{" +
+                "keys=" + Arrays.toString(keys) +
+                '}';
+    }
+}
@@ -0,0 +1,358 @@
+package cn.ykccchen.businessutil.match;
+
+import cn.ykccchen.businessutil.match.PriorityFetcher.PriorityMatchTree;
+import cn.ykccchen.businessutil.match.handler.PriorityMatchType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 优先级树构建器，把配置逐个挂到头部维度对应的树上
+ * 同时记录每个Processor加载的配置数量，以及相等匹配路径上的组合key hash
+ * 并行构建时配置集按顺序切分为多个分片，每个分片使用独立的构建器，构建完成后按分片顺序依次合并到第一个分片上:
+ * 后一个分片的新key追加在后，相同叶子的配置追加在前一个分片的配置之后，
+ * 因此合并后节点key顺序与叶子配置顺序都与单线程按配置集顺序构建一致
+ * @date 2025/8/23 10:00
+ */
+final class PriorityTreeBuilder<S, C, K> {
+
+    /**
+     * 合并时在前几层把两边都存在的子节点拆成独立任务并行合并，更深的节点数据量小，直接串行合并
+     */
+    private static final int PARALLEL_MERGE_DEPTH = 2;
+
+    /**
+     * 并行构建时每个线程最多对应的未合并分片数量，超过后读取线程等待最早的分片构建完成并合并
+     */
+    private static final int PENDING_CHUNKS_PER_THREAD = 2;
+
+    private final List<PriorityMatchFunction<S, C, K>> priorityList;
+
+    /**
+     * 下标为头部维度的优先级
+     */
+    private final PriorityMatchTree<S, C, K>[] tree;
+
+    /**
+     * Processor加载的配置数量，并行构建时各分片共用
+     */
+    private final PriorityCounterMap<String> useRecordMap;
+
+    /**
+     * 相等匹配路径上的组合key hash, uniqueId为标识
+     */
+    private final Map<String, List<Long>> pathHashMap = new HashMap<>();
+
+    /**
+     * 单线程构建时的key字典，下标即优先级
+     */
+    private final PriorityKeyDictionary<K>[] dictionaries;
+
+    /**
+     * 并行构建时各分片共用的key实例，下标即优先级，内容相同的key共享同一个实例，构建完成后基于树生成字典
+     */
+    private final ConcurrentMap<K, K>[] sharedKeys;
+
+    PriorityTreeBuilder(List<PriorityMatchFunction<S, C, K>> priorityList,
+                        PriorityMatchTree<S, C, K>[] tree,
+                        PriorityCounterMap<String> useRecordMap,
+                        PriorityKeyDictionary<K>[] dictionaries) {
+        this(priorityList, tree, useRecordMap, dictionaries, null);
+    }
+
+    private PriorityTreeBuilder(List<PriorityMatchFunction<S, C, K>> priorityList,
+                                PriorityMatchTree<S, C, K>[] tree,
+                                PriorityCounterMap<String> useRecordMap,
+                                PriorityKeyDictionary<K>[] dictionaries,
+                                ConcurrentMap<K, K>[] sharedKeys) {
+        this.priorityList = priorityList;
+        this.tree = tree;
+        this.useRecordMap = useRecordMap;
+        this.dictionaries = dictionaries;
+        this.sharedKeys = sharedKeys;
+    }
+
+    PriorityMatchTree<S, C, K>[] getTree() {
+        return tree;
+    }
+
+    Map<String, List<Long>> getPathHashMap() {
+        return pathHashMap;
+    }
+
+    void addAll(Iterator<? extends C> configIterator) {
+        while (configIterator.hasNext()) {
+            add(configIterator.next());
+        }
+    }
+
+    /**
+     * 按配置上各维度的key生成路径，挂到叶子节点上
+     *
+     * @param config 配置
+     */
+    void add(C config) {
+        K k = null;
+        PriorityMatchFunction<S, C, K> functionHead = null;
+        PriorityMatchTree<S, C, K> priorityMatchTree = null;
+        List<PriorityMatchFunction<S, C, K>> usePriorityMatchFunctionList = new ArrayList<>(priorityList.size());
+        long pathHash = PriorityBloomFilter.SEED;
+        boolean equalityPath = true;
+        for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityList) {
+            K newK = priorityMatchFunction.matchConfig(config);
+            // 如果为空说明该路由不匹配, 或者是空字符, 应该匹配其他场景的优先级
+            if (newK == null || Objects.equals("", newK)) {
+                continue;
+            }
+            newK = intern(priorityMatchFunction.getPriority(), newK);
+            usePriorityMatchFunctionList.add(priorityMatchFunction);
+            pathHash = PriorityBloomFilter.combine(pathHash, newK);
+            equalityPath &= priorityMatchFunction.getType() == PriorityMatchType.COMMON;
+            // 初始化头
+            if (functionHead == null) {
+                functionHead = priorityMatchFunction;
+                priorityMatchTree = tree[functionHead.getPriority()];
+                k = newK;
+                continue;
+            }
+            // 基于顶层k生成子树节点数据
+            priorityMatchTree = priorityMatchTree.initChildTree(k, priorityMatchFunction, priorityList.size());
+            // 将K替换为子节点的K
+            k = newK;
+        }
+        // 当前 priorityMatchTree 已经是叶子节点数据, 增加数据
+        if (k != null) {
+            PriorityMatchResult<List<C>> configResult = priorityMatchTree.addConfig(k, config, usePriorityMatchFunctionList);
+            // 记录使用, 叶子结果的uniqueId即该配置所属Processor的uniqueId
+            useRecordMap.increment(configResult.getUniqueId());
+            if (equalityPath) {
+                pathHashMap.computeIfAbsent(configResult.getUniqueId(), id -> new ArrayList<>()).add(pathHash);
+            }
+        }
+    }
+
+    private K intern(int priority, K k) {
+        if (dictionaries != null && dictionaries[priority] != null) {
+            return dictionaries[priority].intern(k);
+        }
+        if (sharedKeys != null && sharedKeys[priority] != null) {
+            K shared = sharedKeys[priority].putIfAbsent(k, k);
+            return shared == null ? k : shared;
+        }
+        return k;
+    }
+
+    /**
+     * 按顺序合并由后续配置构建的构建器，只能在 ForkJoinPool 中调用，合并后 otherList 中的构建器不能再使用
+     *
+     * @param otherList 配置依次位于当前构建器之后的构建器
+     */
+    private void merge(List<PriorityTreeBuilder<S, C, K>> otherList) {
+        List<MergeTask<S, C, K>> taskList = new ArrayList<>(tree.length);
+        for (int priority = 0; priority < tree.length; priority++) {
+            List<PriorityMatchTree<S, C, K>> otherTreeList = new ArrayList<>(otherList.size());
+            for (PriorityTreeBuilder<S, C, K> other : otherList) {
+                otherTreeList.add(other.tree[priority]);
+            }
+            taskList.add(new MergeTask<>(tree[priority], otherTreeList, 0));
+        }
+        ForkJoinTask.invokeAll(taskList);
+        for (PriorityTreeBuilder<S, C, K> other : otherList) {
+            other.pathHashMap.forEach((uniqueId, hashList) ->
+                    pathHashMap.computeIfAbsent(uniqueId, id -> new ArrayList<>()).addAll(hashList));
+        }
+    }
+
+    /**
+     * 并行构建，调用线程按顺序读取配置，每读满一个分片就提交到线程池构建，并按分片顺序把已经构建完成的分片合并到第一个分片上
+     * 未合并的分片(排队、构建中与已构建等待合并)最多为线程池并行度的 PENDING_CHUNKS_PER_THREAD 倍，
+     * 达到上限时调用线程等待最早的分片构建完成并合并后再继续读取，因此除合并结果外额外持有的分片与局部树有上限，与配置总数无关
+     *
+     * @param configIterator 配置迭代器，只在调用线程上读取
+     * @param useRecordMap   Processor使用记录
+     * @param dictionary     是否共享相等匹配维度的key实例
+     * @param chunkSize      单个分片的配置数量
+     * @param pool           执行构建与合并的线程池
+     * @return 合并后的构建器，树的key顺序与叶子配置顺序与单线程构建一致
+     */
+    static <S, C, K> PriorityTreeBuilder<S, C, K> buildParallel(List<PriorityMatchFunction<S, C, K>> priorityList,
+                                                                Iterator<? extends C> configIterator,
+                                                                PriorityCounterMap<String> useRecordMap,
+                                                                boolean dictionary,
+                                                                int chunkSize,
+                                                                ForkJoinPool pool) {
+        ConcurrentMap<K, K>[] sharedKeys = null;
+        if (dictionary) {
+            sharedKeys = newSharedKeys(priorityList.size());
+            for (PriorityMatchFunction<S, C, K> priorityMatchFunction : priorityList) {
+                if (priorityMatchFunction.getType() == PriorityMatchType.COMMON) {
+                    sharedKeys[priorityMatchFunction.getPriority()] = new ConcurrentHashMap<>();
+                }
+            }
+        }
+        int maxPending = Math.max(2, pool.getParallelism() * PENDING_CHUNKS_PER_THREAD);
+        Deque<ChunkTask<S, C, K>> pendingQueue = new ArrayDeque<>(maxPending + 1);
+        PriorityTreeBuilder<S, C, K> builder = null;
+        try {
+            do {
+                List<C> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && configIterator.hasNext()) {
+                    chunk.add(configIterator.next());
+                }
+                ChunkTask<S, C, K> chunkTask = new ChunkTask<>(priorityList, chunk, useRecordMap, sharedKeys);
+                pool.execute(chunkTask);
+                pendingQueue.add(chunkTask);
+                builder = mergeCompleted(builder, pendingQueue, maxPending, pool);
+            } while (configIterator.hasNext());
+            // 全部读取完成，等待剩余分片并一次合并
+            return mergeCompleted(builder, pendingQueue, 0, pool);
+        } catch (RuntimeException | Error e) {
+            // 读取配置或构建失败时未合并的分片不再需要
+            pendingQueue.forEach(chunkTask -> chunkTask.cancel(false));
+            throw e;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K> ConcurrentMap<K, K>[] newSharedKeys(int size) {
+        return new ConcurrentMap[size];
+    }
+
+    /**
+     * 从队列头部按分片顺序取出已经构建完成的分片合并到 builder 上，未合并的分片超过 maxPending 时等待最早的分片
+     *
+     * @param builder      第一个分片的构建器，还没有取出任何分片时为null
+     * @param pendingQueue 按分片顺序排列的未合并分片
+     * @param maxPending   合并后队列中最多保留的分片数量
+     * @return 合并后的构建器，还没有任何分片构建完成时为null
+     */
+    private static <S, C, K> PriorityTreeBuilder<S, C, K> mergeCompleted(PriorityTreeBuilder<S, C, K> builder,
+                                                                      Deque<ChunkTask<S, C, K>> pendingQueue,
+                                                                      int maxPending,
+                                                                      ForkJoinPool pool) {
+        List<PriorityTreeBuilder<S, C, K>> otherList = new ArrayList<>();
+        while (!pendingQueue.isEmpty() && (pendingQueue.size() > maxPending || pendingQueue.peek().isDone())) {
+            // 先 join 再出队，构建失败时该分片仍在队列中由调用方取消
+            otherList.add(pendingQueue.peek().join());
+            pendingQueue.poll();
+        }
+        if (builder == null) {
+            if (otherList.isEmpty()) {
+                return null;
+            }
+            builder = otherList.remove(0);
+        }
+        if (!otherList.isEmpty()) {
+            pool.invoke(new BuildMergeTask<>(builder, otherList));
+        }
+        return builder;
+    }
+
+    /**
+     * 把已经构建完成的分片按顺序合并到前面分片合并结果上
+     */
+    private static final class BuildMergeTask<S, C, K> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PriorityTreeBuilder<S, C, K> builder;
+        private final List<PriorityTreeBuilder<S, C, K>> otherList;
+
+        private BuildMergeTask(PriorityTreeBuilder<S, C, K> builder, List<PriorityTreeBuilder<S, C, K>> otherList) {
+            this.builder = builder;
+            this.otherList = otherList;
+        }
+
+        @Override
+        protected void compute() {
+            builder.merge(otherList);
+        }
+    }
+
+    /**
+     * 单个分片内单线程构建
+     */
+    private static final class ChunkTask<S, C, K> extends RecursiveTask<PriorityTreeBuilder<S, C, K>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<PriorityMatchFunction<S, C, K>> priorityList;
+        private final PriorityCounterMap<String> useRecordMap;
+        private final ConcurrentMap<K, K>[] sharedKeys;
+
+        /**
+         * 构建完成后置空，任务对象在合并前一直被持有，分片集合不需要
+         */
+        private List<C> chunk;
+
+        private ChunkTask(List<PriorityMatchFunction<S, C, K>> priorityList,
+                          List<C> chunk,
+                          PriorityCounterMap<String> useRecordMap,
+                          ConcurrentMap<K, K>[] sharedKeys) {
+            this.priorityList = priorityList;
+            this.chunk = chunk;
+            this.useRecordMap = useRecordMap;
+            this.sharedKeys = sharedKeys;
+        }
+
+        @Override
+        protected PriorityTreeBuilder<S, C, K> compute() {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            PriorityMatchTree<S, C, K>[] tree = new PriorityMatchTree[priorityList.size()];
+            for (int i = 0; i < tree.length; i++) {
+                tree[i] = new PriorityMatchTree<>(1);
+            }
+            PriorityTreeBuilder<S, C, K> builder = new PriorityTreeBuilder<>(priorityList, tree, useRecordMap, null, sharedKeys);
+            builder.addAll(chunk.iterator());
+            chunk = null;
+            return builder;
+        }
+    }
+
+    /**
+     * 把同一位置上的多个节点按顺序合并到 node 上，前几层按子节点拆分为子任务，每个节点上的key只被合并一次
+     */
+    private static final class MergeTask<S, C, K> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PriorityMatchTree<S, C, K> node;
+        private final List<PriorityMatchTree<S, C, K>> otherList;
+        private final int depth;
+
+        private MergeTask(PriorityMatchTree<S, C, K> node, List<PriorityMatchTree<S, C, K>> otherList, int depth) {
+            this.node = node;
+            this.otherList = otherList;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth >= PARALLEL_MERGE_DEPTH) {
+                node.merge(otherList);
+                return;
+            }
+            Map<PriorityMatchTree<S, C, K>, List<PriorityMatchTree<S, C, K>>> pendingMap = new HashMap<>();
+            for (PriorityMatchTree<S, C, K> other : otherList) {
+                node.mergeShallow(other, pendingMap);
+            }
+            List<MergeTask<S, C, K>> taskList = new ArrayList<>(pendingMap.size());
+            pendingMap.forEach((child, childOtherList) -> taskList.add(new MergeTask<>(child, childOtherList, depth + 1)));
+            ForkJoinTask.invokeAll(taskList);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package cn.ykccchen.businessutil.match.handler;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 匹配引擎枚举类
+ * @date 2025/8/13 10:10
+ */
+public enum PriorityMatchEngine {
+
+    /**
+     * 按Processor顺序逐层查找优先级树
+     */
+    LEVEL("LEVEL", "逐层匹配"),
+    /**
+     * Processor转换为前缀树，相同前缀的维度只匹配一次
+     */
+    TREE("TREE", "树匹配"),
+    /**
+     * 按维度位图求交集，适合维度多、配置稀疏的场景
+     */
+    BITMAP("BITMAP", "位图匹配"),
+    /**
+     * 逐层匹配，按Processor结构预先组装匹配步骤链
+     */
+    COMPILED("COMPILED", "编译匹配"),
+    /**
+     * 相等匹配维度的key在构建时编码为int, 优先级树按int查找，适合key为长字符串的场景
+     */
+    DICTIONARY("DICTIONARY", "字典编码匹配"),
+    ;
+
+    private final String type;
+    private final String desc;
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    PriorityMatchEngine(String type, String desc) {
+        this.type = type;
+        this.desc = desc;
+    }
+}
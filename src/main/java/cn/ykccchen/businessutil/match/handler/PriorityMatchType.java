@@ -17,6 +17,18 @@ public enum PriorityMatchType {
      * 布尔类型模式
      */
     BOOLEAN("BOOLEAN", "布尔类型模式"),
+    /**
+     * 区间匹配模式，节点key使用区间索引
+     */
+    RANGE("RANGE", "区间匹配模式"),
+    /**
+     * 前缀匹配模式，节点key使用前缀索引
+     */
+    PREFIX("PREFIX", "前缀匹配模式"),
+    /**
+     * 正则匹配模式，节点key使用正则索引
+     */
+    REGEX("REGEX", "正则匹配模式"),
     ;
 
 
@@ -0,0 +1,21 @@
+package cn.ykccchen.businessutil.match.index;
+
+import java.util.List;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 树节点维度key索引，构建后只读
+ * 用于替代 BOOLEAN 模式下逐个key判断的线性扫描
+ * @date 2025/8/8 14:05
+ */
+public interface PriorityKeyIndex<K> {
+
+    /**
+     * 匹配需求key命中的节点key
+     *
+     * @param sourceKey 需求key, 不为空
+     * @return 命中的节点key, 顺序由具体索引约定
+     */
+    List<K> match(K sourceKey);
+}
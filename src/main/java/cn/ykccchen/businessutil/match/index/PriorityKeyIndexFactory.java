@@ -0,0 +1,21 @@
+package cn.ykccchen.businessutil.match.index;
+
+import java.util.Collection;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 维度key索引工厂，基于树节点上的全部key构建索引
+ * @date 2025/8/8 14:05
+ */
+@FunctionalInterface
+public interface PriorityKeyIndexFactory<K> {
+
+    /**
+     * 构建索引
+     *
+     * @param keyList 节点上的全部key, 按节点顺序
+     * @return 索引
+     */
+    PriorityKeyIndex<K> build(Collection<K> keyList);
+}
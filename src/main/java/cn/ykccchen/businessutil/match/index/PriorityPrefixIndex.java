@@ -0,0 +1,131 @@
+package cn.ykccchen.businessutil.match.index;
+
+import java.util.*;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 前缀索引，字典树实现
+ * 节点key作为前缀存入字典树，查找时沿需求key逐字符下行，收集途经的全部前缀，复杂度只与需求key长度相关
+ * 命中结果按前缀长度从长到短返回，长度相同(toString一致的不同key)按节点顺序
+ * key统一按 String.valueOf 参与比较
+ * @date 2025/8/8 17:30
+ */
+public class PriorityPrefixIndex<K> implements PriorityKeyIndex<K> {
+
+    private static final char[] EMPTY_LABELS = new char[0];
+
+    private final TrieNode<K> root;
+
+    private PriorityPrefixIndex(Collection<K> keyList) {
+        BuildNode<K> buildRoot = new BuildNode<>();
+        for (K key : keyList) {
+            String prefix = String.valueOf(key);
+            BuildNode<K> node = buildRoot;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new BuildNode<>());
+            }
+            node.keyList.add(key);
+        }
+        this.root = buildRoot.freeze();
+    }
+
+    /**
+     * 前缀索引工厂
+     *
+     * @return 索引工厂
+     */
+    public static <K> PriorityKeyIndexFactory<K> factory() {
+        return PriorityPrefixIndex::new;
+    }
+
+    /**
+     * 需求值是否以配置值为前缀
+     *
+     * @param sourceKey 需求值
+     * @param prefix    配置前缀
+     * @return 是否匹配
+     */
+    public static boolean startsWith(Object sourceKey, Object prefix) {
+        return String.valueOf(sourceKey).startsWith(String.valueOf(prefix));
+    }
+
+    @Override
+    public List<K> match(K sourceKey) {
+        String source = String.valueOf(sourceKey);
+        // 途经的前缀由短到长入栈
+        List<TrieNode<K>> hitList = null;
+        TrieNode<K> node = root;
+        int i = 0;
+        while (true) {
+            if (node.keys != null) {
+                if (hitList == null) {
+                    hitList = new ArrayList<>(4);
+                }
+                hitList.add(node);
+            }
+            if (i == source.length()) {
+                break;
+            }
+            node = node.child(source.charAt(i++));
+            if (node == null) {
+                break;
+            }
+        }
+        if (hitList == null) {
+            return Collections.emptyList();
+        }
+        if (hitList.size() == 1 && hitList.get(0).keys.length == 1) {
+            return Collections.singletonList(hitList.get(0).keys[0]);
+        }
+        List<K> keyList = new ArrayList<>();
+        for (int j = hitList.size() - 1; j >= 0; j--) {
+            Collections.addAll(keyList, hitList.get(j).keys);
+        }
+        return keyList;
+    }
+
+    /**
+     * 只读字典树节点，子节点按字符排序后二分查找
+     */
+    private static final class TrieNode<K> {
+        private final char[] labels;
+        private final TrieNode<K>[] children;
+        /**
+         * 以该节点结尾的前缀key, 没有为null
+         */
+        private final K[] keys;
+
+        private TrieNode(char[] labels, TrieNode<K>[] children, K[] keys) {
+            this.labels = labels;
+            this.children = children;
+            this.keys = keys;
+        }
+
+        private TrieNode<K> child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    /**
+     * 构建期字典树节点
+     */
+    private static final class BuildNode<K> {
+        private final TreeMap<Character, BuildNode<K>> children = new TreeMap<>();
+        private final List<K> keyList = new ArrayList<>(1);
+
+        @SuppressWarnings("unchecked")
+        private TrieNode<K> freeze() {
+            char[] labels = children.isEmpty() ? EMPTY_LABELS : new char[children.size()];
+            TrieNode<K>[] childArr = (TrieNode<K>[]) new TrieNode<?>[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuildNode<K>> entry : children.entrySet()) {
+                labels[i] = entry.getKey();
+                childArr[i++] = entry.getValue().freeze();
+            }
+            K[] keys = keyList.isEmpty() ? null : (K[]) keyList.toArray();
+            return new TrieNode<>(labels, childArr, keys);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package cn.ykccchen.businessutil.match.index;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 区间索引，静态区间树实现
+ * 区间按下界排序后视为一棵隐式平衡二叉树(中点为根)，每个节点记录子树内的最大上界
+ * 查询时跳过最大上界小于需求值的子树、下界大于需求值的右子树，复杂度 O(log n + 命中数)
+ * 区间两端均为闭区间，端点为null表示无界
+ * @date 2025/8/8 14:05
+ */
+public class PriorityRangeIndex<K, T extends Comparable<? super T>> implements PriorityKeyIndex<K> {
+
+    private final K[] keys;
+    private final T[] lows;
+    private final T[] highs;
+    /**
+     * 区间在节点中的原始顺序
+     */
+    private final int[] orders;
+    /**
+     * 以该位置为根的子树内的最大上界
+     */
+    private final T[] maxHighs;
+
+    @SuppressWarnings("unchecked")
+    private PriorityRangeIndex(Collection<K> keyList, Function<K, T> minGetter, Function<K, T> maxGetter) {
+        int size = keyList.size();
+        Integer[] sortIndex = new Integer[size];
+        Object[] keyArr = keyList.toArray();
+        Object[] lowArr = new Object[size];
+        Object[] highArr = new Object[size];
+        for (int i = 0; i < size; i++) {
+            sortIndex[i] = i;
+            lowArr[i] = minGetter.apply((K) keyArr[i]);
+            highArr[i] = maxGetter.apply((K) keyArr[i]);
+        }
+        Arrays.sort(sortIndex, (i1, i2) -> compareLow((T) lowArr[i1], (T) lowArr[i2]));
+        this.keys = (K[]) new Object[size];
+        this.lows = (T[]) new Comparable<?>[size];
+        this.highs = (T[]) new Comparable<?>[size];
+        this.orders = new int[size];
+        this.maxHighs = (T[]) new Comparable<?>[size];
+        for (int i = 0; i < size; i++) {
+            int index = sortIndex[i];
+            keys[i] = (K) keyArr[index];
+            lows[i] = (T) lowArr[index];
+            highs[i] = (T) highArr[index];
+            orders[i] = index;
+        }
+        initMaxHigh(0, size - 1);
+    }
+
+    /**
+     * 区间索引工厂
+     *
+     * @param minGetter 区间下界，null为无下界
+     * @param maxGetter 区间上界，null为无上界
+     * @return 索引工厂
+     */
+    public static <K, T extends Comparable<? super T>> PriorityKeyIndexFactory<K> factory(Function<K, T> minGetter,
+                                                                                       Function<K, T> maxGetter) {
+        return keyList -> new PriorityRangeIndex<>(keyList, minGetter, maxGetter);
+    }
+
+    /**
+     * 区间是否包含需求值
+     *
+     * @param point 需求值
+     * @param low   区间下界，null为无下界
+     * @param high  区间上界，null为无上界
+     * @return 是否包含
+     */
+    public static <T extends Comparable<? super T>> boolean contains(T point, T low, T high) {
+        return (low == null || low.compareTo(point) <= 0) && (high == null || high.compareTo(point) >= 0);
+    }
+
+    private T initMaxHigh(int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        T max = highs[mid];
+        if (lo < mid) {
+            max = maxHigh(max, initMaxHigh(lo, mid - 1));
+        }
+        if (mid < hi) {
+            max = maxHigh(max, initMaxHigh(mid + 1, hi));
+        }
+        maxHighs[mid] = max;
+        return max;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<K> match(K sourceKey) {
+        T point = (T) sourceKey;
+        HitList hitList = new HitList();
+        search(point, 0, keys.length - 1, hitList);
+        if (hitList.size == 0) {
+            return Collections.emptyList();
+        }
+        if (hitList.size == 1) {
+            return Collections.singletonList(keys[hitList.hits[0]]);
+        }
+        // 按节点原始顺序返回，与 BOOLEAN 模式的结果顺序一致
+        long[] sortArr = new long[hitList.size];
+        for (int i = 0; i < hitList.size; i++) {
+            sortArr[i] = ((long) orders[hitList.hits[i]] << 32) | hitList.hits[i];
+        }
+        Arrays.sort(sortArr);
+        List<K> keyList = new ArrayList<>(hitList.size);
+        for (long sort : sortArr) {
+            keyList.add(keys[(int) sort]);
+        }
+        return keyList;
+    }
+
+    private void search(T point, int lo, int hi, HitList hitList) {
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            // 子树内没有上界大于等于需求值的区间
+            if (maxHighs[mid] != null && maxHighs[mid].compareTo(point) < 0) {
+                return;
+            }
+            if (lo < mid) {
+                search(point, lo, mid - 1, hitList);
+            }
+            // 当前及右侧区间的下界都大于需求值
+            if (lows[mid] != null && lows[mid].compareTo(point) > 0) {
+                return;
+            }
+            if (highs[mid] == null || highs[mid].compareTo(point) >= 0) {
+                hitList.add(mid);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    private int compareLow(T low1, T low2) {
+        if (low1 == low2) {
+            return 0;
+        }
+        if (low1 == null) {
+            return -1;
+        }
+        if (low2 == null) {
+            return 1;
+        }
+        return low1.compareTo(low2);
+    }
+
+    private T maxHigh(T high1, T high2) {
+        if (high1 == null || high2 == null) {
+            return null;
+        }
+        return high1.compareTo(high2) >= 0 ? high1 : high2;
+    }
+
+    /**
+     * 命中位置集合
+     */
+    private static final class HitList {
+        private int[] hits = new int[8];
+        private int size;
+
+        private void add(int hit) {
+            if (size == hits.length) {
+                hits = Arrays.copyOf(hits, size << 1);
+            }
+            hits[size++] = hit;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package cn.ykccchen.businessutil.match.index;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 正则索引，节点key为正则表达式，构建时统一预编译
+ * 每个正则取出开头的字面量前缀放入前缀索引做预筛，需求key不以该前缀开头的正则直接跳过，
+ * 只有无法确定字面量前缀的正则(以元字符开头、含 | 等)每次都参与判断
+ * 匹配语义为整串匹配 Matcher.matches(), 命中结果按节点顺序返回
+ * key统一按 String.valueOf 参与比较
+ * @date 2025/8/9 10:20
+ */
+public class PriorityRegexIndex<K> implements PriorityKeyIndex<K> {
+
+    private static final String META_CHARS = "\\^$.|?*+()[]{}";
+    private static final String QUANTIFIER_CHARS = "?*+{";
+
+    private final K[] keys;
+    private final Pattern[] patterns;
+    /**
+     * 字面量前缀 -> 以该前缀开头的正则下标
+     */
+    private final Map<String, int[]> prefixOrdinalMap;
+    private final PriorityKeyIndex<String> prefixIndex;
+    /**
+     * 没有字面量前缀的正则下标
+     */
+    private final int[] unfilteredOrdinals;
+
+    @SuppressWarnings("unchecked")
+    private PriorityRegexIndex(Collection<K> keyList) {
+        int size = keyList.size();
+        this.keys = (K[]) keyList.toArray();
+        this.patterns = new Pattern[size];
+        Map<String, List<Integer>> prefixMap = new LinkedHashMap<>();
+        List<Integer> unfilteredList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String regex = String.valueOf(keys[i]);
+            patterns[i] = Pattern.compile(regex);
+            String prefix = literalPrefix(regex);
+            if (prefix.isEmpty()) {
+                unfilteredList.add(i);
+            } else {
+                prefixMap.computeIfAbsent(prefix, k -> new ArrayList<>()).add(i);
+            }
+        }
+        this.prefixOrdinalMap = new HashMap<>(prefixMap.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<Integer>> entry : prefixMap.entrySet()) {
+            prefixOrdinalMap.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        this.prefixIndex = prefixMap.isEmpty() ? null : PriorityPrefixIndex.<String>factory().build(prefixMap.keySet());
+        this.unfilteredOrdinals = toArray(unfilteredList);
+    }
+
+    /**
+     * 正则索引工厂
+     *
+     * @return 索引工厂
+     */
+    public static <K> PriorityKeyIndexFactory<K> factory() {
+        return PriorityRegexIndex::new;
+    }
+
+    /**
+     * 需求值是否整串匹配配置正则
+     *
+     * @param sourceKey 需求值
+     * @param regex     配置正则
+     * @return 是否匹配
+     */
+    public static boolean matches(Object sourceKey, Object regex) {
+        return Pattern.matches(String.valueOf(regex), String.valueOf(sourceKey));
+    }
+
+    /**
+     * 取出正则开头的字面量前缀，整串匹配的结果一定以该前缀开头
+     * 含 | 的正则可能从任意分支开始匹配，不取前缀
+     *
+     * @param regex 正则
+     * @return 字面量前缀，没有为空字符
+     */
+    static String literalPrefix(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (META_CHARS.indexOf(c) >= 0) {
+                break;
+            }
+            // 后面跟量词的字符不一定出现
+            if (i + 1 < regex.length() && QUANTIFIER_CHARS.indexOf(regex.charAt(i + 1)) >= 0) {
+                break;
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
+    }
+
+    @Override
+    public List<K> match(K sourceKey) {
+        String source = String.valueOf(sourceKey);
+        int[] candidates = unfilteredOrdinals;
+        if (prefixIndex != null) {
+            List<String> prefixList = prefixIndex.match(source);
+            if (!prefixList.isEmpty()) {
+                candidates = merge(prefixList);
+            }
+        }
+        List<K> keyList = null;
+        for (int ordinal : candidates) {
+            if (patterns[ordinal].matcher(source).matches()) {
+                if (keyList == null) {
+                    keyList = new ArrayList<>(2);
+                }
+                keyList.add(keys[ordinal]);
+            }
+        }
+        return keyList == null ? Collections.emptyList() : keyList;
+    }
+
+    /**
+     * 合并预筛命中的正则下标与无前缀的正则下标，按节点顺序排列
+     */
+    private int[] merge(List<String> prefixList) {
+        int size = unfilteredOrdinals.length;
+        for (String prefix : prefixList) {
+            size += prefixOrdinalMap.get(prefix).length;
+        }
+        int[] candidates = Arrays.copyOf(unfilteredOrdinals, size);
+        int index = unfilteredOrdinals.length;
+        for (String prefix : prefixList) {
+            int[] ordinals = prefixOrdinalMap.get(prefix);
+            System.arraycopy(ordinals, 0, candidates, index, ordinals.length);
+            index += ordinals.length;
+        }
+        Arrays.sort(candidates);
+        return candidates;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] arr = new int[list.size()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = list.get(i);
+        }
+        return arr;
+    }
+}
@@ -0,0 +1,103 @@
+package cn.ykccchen.businessutil.match.primitive;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityMatchFunction;
+import cn.ykccchen.businessutil.match.PriorityMatchProcessor;
+import cn.ykccchen.businessutil.match.handler.PriorityHandler;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description int 维度key的优先级处理器，维度全部为相等匹配
+ * 默认 Integer.MIN_VALUE 视为维度为空，可以通过 initEmptyKey 修改，例如id从1开始时可以使用0
+ * @date 2025/8/15 10:30
+ */
+public class IntPriorityAssembler<S, C> {
+
+    private final List<String> nameList;
+    private final List<ToIntFunction<S>> sourceGetterList;
+    private final List<ToIntFunction<C>> configGetterList;
+    private List<C> configList;
+    private PriorityHandler priorityHandler;
+    private int emptyKey = Integer.MIN_VALUE;
+
+    private IntPriorityAssembler(PriorityHandler priorityHandler) {
+        this.nameList = new ArrayList<>();
+        this.sourceGetterList = new ArrayList<>();
+        this.configGetterList = new ArrayList<>();
+        this.priorityHandler = priorityHandler;
+    }
+
+    public static <S, C> IntPriorityAssembler<S, C> from(Class<S> s,
+                                                         Class<C> c) {
+        return new IntPriorityAssembler<>(PriorityMode.NUMBER_OF_MATCHES);
+    }
+
+    public static <S, C> IntPriorityAssembler<S, C> from(PriorityAssembler.TypeReference<S> s,
+                                                         PriorityAssembler.TypeReference<C> c) {
+        return new IntPriorityAssembler<>(PriorityMode.NUMBER_OF_MATCHES);
+    }
+
+    public IntPriorityAssembler<S, C> initConfig(List<C> configList) {
+        this.configList = configList;
+        return this;
+    }
+
+    public IntPriorityAssembler<S, C> initPriorityHandler(PriorityHandler priorityHandler) {
+        this.priorityHandler = priorityHandler;
+        return this;
+    }
+
+    /**
+     * @param emptyKey 维度为空时的key, 需求与配置一致
+     */
+    public IntPriorityAssembler<S, C> initEmptyKey(int emptyKey) {
+        this.emptyKey = emptyKey;
+        return this;
+    }
+
+    public IntPriorityAssembler<S, C> addPriorityMatchFunction(String name,
+                                                               ToIntFunction<S> sourceGetter,
+                                                               ToIntFunction<C> configGetter) {
+        this.nameList.add(name);
+        this.sourceGetterList.add(sourceGetter);
+        this.configGetterList.add(configGetter);
+        return this;
+    }
+
+    public IntPriorityAssembler<S, C> addPriorityMatchFunction(ToIntFunction<S> sourceGetter,
+                                                               ToIntFunction<C> configGetter) {
+        return addPriorityMatchFunction(null, sourceGetter, configGetter);
+    }
+
+    public IntPriorityFetcher<S, C> create() {
+        if (configList == null) {
+            throw new NullPointerException("IntPriorityAssembler Config list cannot be null!");
+        }
+        int emptyKey = this.emptyKey;
+        // 装箱的维度函数只用于生成Processor与结果名称，匹配过程不会调用
+        List<PriorityMatchFunction<S, C, Integer>> priorityList = new ArrayList<>(nameList.size());
+        for (int i = 0; i < nameList.size(); i++) {
+            ToIntFunction<S> sourceGetter = sourceGetterList.get(i);
+            ToIntFunction<C> configGetter = configGetterList.get(i);
+            priorityList.add(PriorityMatchFunction.of(nameList.get(i), i,
+                    s -> boxed(sourceGetter.applyAsInt(s), emptyKey),
+                    c -> boxed(configGetter.applyAsInt(c), emptyKey)));
+        }
+        List<PriorityMatchProcessor<S, C, Integer>> processorList = priorityHandler.initPriorityHandlerList(priorityList);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ToIntFunction<S>[] sourceGetters = sourceGetterList.toArray(new ToIntFunction[0]);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ToIntFunction<C>[] configGetters = configGetterList.toArray(new ToIntFunction[0]);
+        return IntPriorityFetcher.from(processorList, configList, priorityList, sourceGetters, configGetters, emptyKey);
+    }
+
+    private static Integer boxed(int k, int emptyKey) {
+        return k == emptyKey ? null : k;
+    }
+}
@@ -0,0 +1,273 @@
+package cn.ykccchen.businessutil.match.primitive;
+
+import cn.ykccchen.businessutil.match.PriorityMatchFunction;
+import cn.ykccchen.businessutil.match.PriorityMatchProcessor;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description int 维度key的优先级匹配，维度全部为相等匹配
+ * 树的每层使用开放寻址的 int map 存储，需求key只取一次放入 int 数组，匹配过程没有装箱
+ * 与 emptyKey 相等的key视为维度为空，优先级顺序、结果名称与层级与 PriorityFetcher 一致
+ * 构建完成后只读，可以被多线程并发使用
+ * @date 2025/8/15 10:30
+ */
+public class IntPriorityFetcher<S, C> {
+
+    private final IntPriorityMatchTree<C>[] tree;
+
+    /**
+     * 剪枝后的Processor集合，不可修改
+     */
+    private final List<PriorityMatchProcessor<S, C, Integer>> processorList;
+
+    /**
+     * 与 processorList 下标对齐，Processor各维度的优先级
+     */
+    private final int[][] processorPriorities;
+
+    /**
+     * 下标即优先级
+     */
+    private final ToIntFunction<S>[] sourceGetters;
+
+    private final int emptyKey;
+
+    private IntPriorityFetcher(IntPriorityMatchTree<C>[] tree,
+                               List<PriorityMatchProcessor<S, C, Integer>> processorList,
+                               ToIntFunction<S>[] sourceGetters,
+                               int emptyKey) {
+        this.tree = tree;
+        this.processorList = Collections.unmodifiableList(processorList);
+        this.processorPriorities = new int[processorList.size()][];
+        for (int i = 0; i < processorList.size(); i++) {
+            List<PriorityMatchFunction<S, C, Integer>> priorityMatchFunctionList = processorList.get(i).getPriorityMatchFunctionList();
+            processorPriorities[i] = new int[priorityMatchFunctionList.size()];
+            for (int j = 0; j < priorityMatchFunctionList.size(); j++) {
+                processorPriorities[i][j] = priorityMatchFunctionList.get(j).getPriority();
+            }
+        }
+        this.sourceGetters = sourceGetters;
+        this.emptyKey = emptyKey;
+    }
+
+    /**
+     * 构建，没有加载配置的Processor会被剪枝
+     *
+     * @param processorList 优先级处理后的Processor集合
+     * @param configList    配置集合
+     * @param priorityList  配置优先级集合，下标即优先级
+     * @param sourceGetters 需求key获取方式，下标即优先级
+     * @param configGetters 配置key获取方式，下标即优先级
+     * @param emptyKey      维度为空时的key
+     */
+    static <S, C> IntPriorityFetcher<S, C> from(List<PriorityMatchProcessor<S, C, Integer>> processorList,
+                                                List<C> configList,
+                                                List<PriorityMatchFunction<S, C, Integer>> priorityList,
+                                                ToIntFunction<S>[] sourceGetters,
+                                                ToIntFunction<C>[] configGetters,
+                                                int emptyKey) {
+        IntPriorityMatchTree<C>[] tree = IntPriorityMatchTree.newArray(configGetters.length);
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = new IntPriorityMatchTree<>(1);
+        }
+        Set<String> useRecordSet = new HashSet<>();
+        // 叶子结果对外只读，构建期间通过该表写入配置
+        Map<PriorityMatchResult<List<C>>, List<C>> configListMap = new IdentityHashMap<>();
+        for (C config : configList) {
+            int k = emptyKey;
+            IntPriorityMatchTree<C> priorityMatchTree = null;
+            List<PriorityMatchFunction<S, C, Integer>> usePriorityMatchFunctionList = new ArrayList<>(priorityList.size());
+            for (int priority = 0; priority < configGetters.length; priority++) {
+                int newK = configGetters[priority].applyAsInt(config);
+                // 维度为空，应该匹配其他场景的优先级
+                if (newK == emptyKey) {
+                    continue;
+                }
+                usePriorityMatchFunctionList.add(priorityList.get(priority));
+                if (priorityMatchTree == null) {
+                    priorityMatchTree = tree[priority];
+                } else {
+                    priorityMatchTree = priorityMatchTree.initChildTree(k, priority, configGetters.length);
+                }
+                k = newK;
+            }
+            if (priorityMatchTree != null) {
+                useRecordSet.add(priorityMatchTree.addConfig(k, config, usePriorityMatchFunctionList, configListMap).getUniqueId());
+            }
+        }
+        // 剪枝，移除没有加载配置的Processor
+        return new IntPriorityFetcher<>(tree, processorList.stream()
+                .filter(v -> useRecordSet.contains(v.getUniqueId()))
+                .collect(Collectors.toList()), sourceGetters, emptyKey);
+    }
+
+    public List<PriorityMatchProcessor<S, C, Integer>> getProcessorList() {
+        return processorList;
+    }
+
+    /**
+     * 需求匹配配置集，返回单优先级最高的配置集，可能是多个
+     *
+     * @param source 需求信息
+     * @return 单个优先级配置，没有命中为null
+     */
+    public PriorityMatchResult<List<C>> match(S source) {
+        int[] keys = sourceKeys(source);
+        for (int[] priorities : processorPriorities) {
+            PriorityMatchResult<List<C>> configResult = match(priorities, keys);
+            if (configResult != null) {
+                return configResult;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 需求匹配配置集
+     *
+     * @param source      需求信息
+     * @param allPriority 是否获取全部优先级
+     * @return 匹配结果
+     */
+    public List<PriorityMatchResult<List<C>>> match(S source, boolean allPriority) {
+        return matchKeys(sourceKeys(source), allPriority);
+    }
+
+    /**
+     * 基于已经取出的需求key匹配配置集
+     *
+     * @param keys        需求key, 下标即优先级，与 emptyKey 相等视为维度为空
+     * @param allPriority 是否获取全部优先级
+     * @return 匹配结果
+     */
+    public List<PriorityMatchResult<List<C>>> matchKeys(int[] keys, boolean allPriority) {
+        if (keys.length != sourceGetters.length) {
+            throw new IllegalArgumentException("IntPriorityFetcher keys length must be " + sourceGetters.length);
+        }
+        List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>();
+        for (int[] priorities : processorPriorities) {
+            PriorityMatchResult<List<C>> configResult = match(priorities, keys);
+            if (configResult != null) {
+                resultList.add(configResult);
+                if (!allPriority) {
+                    return resultList;
+                }
+            }
+        }
+        return resultList;
+    }
+
+    private int[] sourceKeys(S source) {
+        int[] keys = new int[sourceGetters.length];
+        for (int i = 0; i < sourceGetters.length; i++) {
+            keys[i] = sourceGetters[i].applyAsInt(source);
+        }
+        return keys;
+    }
+
+    /**
+     * 匹配单个Processor, 相等匹配每层最多命中一个key
+     */
+    private PriorityMatchResult<List<C>> match(int[] priorities, int[] keys) {
+        IntPriorityMatchTree<C> priorityMatchTree = tree[priorities[0]];
+        int last = priorities.length - 1;
+        for (int i = 0; i < last; i++) {
+            int k = keys[priorities[i]];
+            if (k == emptyKey) {
+                return null;
+            }
+            priorityMatchTree = priorityMatchTree.getChildTree(k, priorities[i + 1]);
+            if (priorityMatchTree == null) {
+                return null;
+            }
+        }
+        int k = keys[priorities[last]];
+        return k == emptyKey ? null : priorityMatchTree.getConfigResult(k);
+    }
+
+    /**
+     * 优先级匹配树对象，结构与 PriorityFetcher.PriorityMatchTree 一致
+     * 子树与叶子在第一次写入时才创建
+     */
+    static final class IntPriorityMatchTree<C> {
+
+        /**
+         * 树索引，顶层为1
+         */
+        private final int index;
+
+        /**
+         * K: 当前树层级数据
+         * V: 子数据集，下标为子节点维度的优先级
+         */
+        private IntPriorityMap<IntPriorityMatchTree<C>[]> currentTree;
+
+        /**
+         * 叶子节点才存在配置
+         */
+        private IntPriorityMap<PriorityMatchResult<List<C>>> configMap;
+
+        IntPriorityMatchTree(int index) {
+            this.index = index;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static <C> IntPriorityMatchTree<C>[] newArray(int size) {
+            return new IntPriorityMatchTree[size];
+        }
+
+        <S> PriorityMatchResult<List<C>> addConfig(int k, C config, List<PriorityMatchFunction<S, C, Integer>> usePriorityMatchFunctionList,
+                                                   Map<PriorityMatchResult<List<C>>, List<C>> configListMap) {
+            if (configMap == null) {
+                configMap = new IntPriorityMap<>();
+            }
+            PriorityMatchResult<List<C>> configResult = configMap.get(k);
+            if (configResult == null) {
+                List<C> configList = new ArrayList<>();
+                configResult = PriorityMatchResult.ofList(PriorityMatchProcessor.initUniqueId(usePriorityMatchFunctionList),
+                        PriorityMatchProcessor.initName(usePriorityMatchFunctionList),
+                        index,
+                        configList);
+                configMap.put(k, configResult);
+                configListMap.put(configResult, configList);
+            }
+            configListMap.get(configResult).add(config);
+            return configResult;
+        }
+
+        PriorityMatchResult<List<C>> getConfigResult(int k) {
+            return configMap == null ? null : configMap.get(k);
+        }
+
+        IntPriorityMatchTree<C> getChildTree(int k, int childPriority) {
+            if (currentTree == null) {
+                return null;
+            }
+            IntPriorityMatchTree<C>[] priorityMatchTrees = currentTree.get(k);
+            return priorityMatchTrees == null ? null : priorityMatchTrees[childPriority];
+        }
+
+        IntPriorityMatchTree<C> initChildTree(int k, int childPriority, int prioritySize) {
+            if (currentTree == null) {
+                currentTree = new IntPriorityMap<>();
+            }
+            IntPriorityMatchTree<C>[] childPriorityMatchTreeArr = currentTree.get(k);
+            if (childPriorityMatchTreeArr == null) {
+                childPriorityMatchTreeArr = newArray(prioritySize);
+                currentTree.put(k, childPriorityMatchTreeArr);
+            }
+            IntPriorityMatchTree<C> childPriorityMatchTree = childPriorityMatchTreeArr[childPriority];
+            if (childPriorityMatchTree == null) {
+                childPriorityMatchTree = new IntPriorityMatchTree<>(index + 1);
+                childPriorityMatchTreeArr[childPriority] = childPriorityMatchTree;
+            }
+            return childPriorityMatchTree;
+        }
+    }
+}
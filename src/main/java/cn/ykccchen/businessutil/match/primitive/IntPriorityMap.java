@@ -0,0 +1,95 @@
+package cn.ykccchen.businessutil.match.primitive;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description int key 的开放寻址 map, 线性探测，value 不能为空
+ * key 直接存放在 int 数组，没有装箱与 Entry 对象，槽位是否占用由 value 是否为空判断
+ * 构建后只读时可以被多线程并发读取，也用于字典编码后的优先级树
+ * @date 2025/8/15 10:30
+ */
+public final class IntPriorityMap<V> {
+
+    /**
+     * 树的深层节点大多只有一个key, 初始容量取最小
+     */
+    private static final int MIN_CAPACITY = 2;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    public IntPriorityMap() {
+        this.keys = new int[MIN_CAPACITY];
+        this.values = new Object[MIN_CAPACITY];
+        this.mask = MIN_CAPACITY - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = hash(key) & mask;
+        Object value;
+        while ((value = values[index]) != null) {
+            if (keys[index] == key) {
+                return (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public void put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntPriorityMap value cannot be null!");
+        }
+        int index = hash(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        // 负载因子 0.75
+        if (++size * 4 > values.length * 3) {
+            resize(values.length << 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 哈希表容量，用于估算内存
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = hash(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
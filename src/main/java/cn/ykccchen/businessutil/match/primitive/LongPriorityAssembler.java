@@ -0,0 +1,103 @@
+package cn.ykccchen.businessutil.match.primitive;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityMatchFunction;
+import cn.ykccchen.businessutil.match.PriorityMatchProcessor;
+import cn.ykccchen.businessutil.match.handler.PriorityHandler;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description long 维度key的优先级处理器，维度全部为相等匹配
+ * 默认 Long.MIN_VALUE 视为维度为空，可以通过 initEmptyKey 修改，例如id从1开始时可以使用0
+ * @date 2025/8/15 10:30
+ */
+public class LongPriorityAssembler<S, C> {
+
+    private final List<String> nameList;
+    private final List<ToLongFunction<S>> sourceGetterList;
+    private final List<ToLongFunction<C>> configGetterList;
+    private List<C> configList;
+    private PriorityHandler priorityHandler;
+    private long emptyKey = Long.MIN_VALUE;
+
+    private LongPriorityAssembler(PriorityHandler priorityHandler) {
+        this.nameList = new ArrayList<>();
+        this.sourceGetterList = new ArrayList<>();
+        this.configGetterList = new ArrayList<>();
+        this.priorityHandler = priorityHandler;
+    }
+
+    public static <S, C> LongPriorityAssembler<S, C> from(Class<S> s,
+                                                         Class<C> c) {
+        return new LongPriorityAssembler<>(PriorityMode.NUMBER_OF_MATCHES);
+    }
+
+    public static <S, C> LongPriorityAssembler<S, C> from(PriorityAssembler.TypeReference<S> s,
+                                                         PriorityAssembler.TypeReference<C> c) {
+        return new LongPriorityAssembler<>(PriorityMode.NUMBER_OF_MATCHES);
+    }
+
+    public LongPriorityAssembler<S, C> initConfig(List<C> configList) {
+        this.configList = configList;
+        return this;
+    }
+
+    public LongPriorityAssembler<S, C> initPriorityHandler(PriorityHandler priorityHandler) {
+        this.priorityHandler = priorityHandler;
+        return this;
+    }
+
+    /**
+     * @param emptyKey 维度为空时的key, 需求与配置一致
+     */
+    public LongPriorityAssembler<S, C> initEmptyKey(long emptyKey) {
+        this.emptyKey = emptyKey;
+        return this;
+    }
+
+    public LongPriorityAssembler<S, C> addPriorityMatchFunction(String name,
+                                                               ToLongFunction<S> sourceGetter,
+                                                               ToLongFunction<C> configGetter) {
+        this.nameList.add(name);
+        this.sourceGetterList.add(sourceGetter);
+        this.configGetterList.add(configGetter);
+        return this;
+    }
+
+    public LongPriorityAssembler<S, C> addPriorityMatchFunction(ToLongFunction<S> sourceGetter,
+                                                               ToLongFunction<C> configGetter) {
+        return addPriorityMatchFunction(null, sourceGetter, configGetter);
+    }
+
+    public LongPriorityFetcher<S, C> create() {
+        if (configList == null) {
+            throw new NullPointerException("LongPriorityAssembler Config list cannot be null!");
+        }
+        long emptyKey = this.emptyKey;
+        // 装箱的维度函数只用于生成Processor与结果名称，匹配过程不会调用
+        List<PriorityMatchFunction<S, C, Long>> priorityList = new ArrayList<>(nameList.size());
+        for (int i = 0; i < nameList.size(); i++) {
+            ToLongFunction<S> sourceGetter = sourceGetterList.get(i);
+            ToLongFunction<C> configGetter = configGetterList.get(i);
+            priorityList.add(PriorityMatchFunction.of(nameList.get(i), i,
+                    s -> boxed(sourceGetter.applyAsLong(s), emptyKey),
+                    c -> boxed(configGetter.applyAsLong(c), emptyKey)));
+        }
+        List<PriorityMatchProcessor<S, C, Long>> processorList = priorityHandler.initPriorityHandlerList(priorityList);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ToLongFunction<S>[] sourceGetters = sourceGetterList.toArray(new ToLongFunction[0]);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ToLongFunction<C>[] configGetters = configGetterList.toArray(new ToLongFunction[0]);
+        return LongPriorityFetcher.from(processorList, configList, priorityList, sourceGetters, configGetters, emptyKey);
+    }
+
+    private static Long boxed(long k, long emptyKey) {
+        return k == emptyKey ? null : k;
+    }
+}
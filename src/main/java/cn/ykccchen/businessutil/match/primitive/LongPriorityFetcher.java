@@ -0,0 +1,273 @@
+package cn.ykccchen.businessutil.match.primitive;
+
+import cn.ykccchen.businessutil.match.PriorityMatchFunction;
+import cn.ykccchen.businessutil.match.PriorityMatchProcessor;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description long 维度key的优先级匹配，维度全部为相等匹配
+ * 树的每层使用开放寻址的 long map 存储，需求key只取一次放入 long 数组，匹配过程没有装箱
+ * 与 emptyKey 相等的key视为维度为空，优先级顺序、结果名称与层级与 PriorityFetcher 一致
+ * 构建完成后只读，可以被多线程并发使用
+ * @date 2025/8/15 10:30
+ */
+public class LongPriorityFetcher<S, C> {
+
+    private final LongPriorityMatchTree<C>[] tree;
+
+    /**
+     * 剪枝后的Processor集合，不可修改
+     */
+    private final List<PriorityMatchProcessor<S, C, Long>> processorList;
+
+    /**
+     * 与 processorList 下标对齐，Processor各维度的优先级
+     */
+    private final int[][] processorPriorities;
+
+    /**
+     * 下标即优先级
+     */
+    private final ToLongFunction<S>[] sourceGetters;
+
+    private final long emptyKey;
+
+    private LongPriorityFetcher(LongPriorityMatchTree<C>[] tree,
+                               List<PriorityMatchProcessor<S, C, Long>> processorList,
+                               ToLongFunction<S>[] sourceGetters,
+                               long emptyKey) {
+        this.tree = tree;
+        this.processorList = Collections.unmodifiableList(processorList);
+        this.processorPriorities = new int[processorList.size()][];
+        for (int i = 0; i < processorList.size(); i++) {
+            List<PriorityMatchFunction<S, C, Long>> priorityMatchFunctionList = processorList.get(i).getPriorityMatchFunctionList();
+            processorPriorities[i] = new int[priorityMatchFunctionList.size()];
+            for (int j = 0; j < priorityMatchFunctionList.size(); j++) {
+                processorPriorities[i][j] = priorityMatchFunctionList.get(j).getPriority();
+            }
+        }
+        this.sourceGetters = sourceGetters;
+        this.emptyKey = emptyKey;
+    }
+
+    /**
+     * 构建，没有加载配置的Processor会被剪枝
+     *
+     * @param processorList 优先级处理后的Processor集合
+     * @param configList    配置集合
+     * @param priorityList  配置优先级集合，下标即优先级
+     * @param sourceGetters 需求key获取方式，下标即优先级
+     * @param configGetters 配置key获取方式，下标即优先级
+     * @param emptyKey      维度为空时的key
+     */
+    static <S, C> LongPriorityFetcher<S, C> from(List<PriorityMatchProcessor<S, C, Long>> processorList,
+                                                List<C> configList,
+                                                List<PriorityMatchFunction<S, C, Long>> priorityList,
+                                                ToLongFunction<S>[] sourceGetters,
+                                                ToLongFunction<C>[] configGetters,
+                                                long emptyKey) {
+        LongPriorityMatchTree<C>[] tree = LongPriorityMatchTree.newArray(configGetters.length);
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = new LongPriorityMatchTree<>(1);
+        }
+        Set<String> useRecordSet = new HashSet<>();
+        // 叶子结果对外只读，构建期间通过该表写入配置
+        Map<PriorityMatchResult<List<C>>, List<C>> configListMap = new IdentityHashMap<>();
+        for (C config : configList) {
+            long k = emptyKey;
+            LongPriorityMatchTree<C> priorityMatchTree = null;
+            List<PriorityMatchFunction<S, C, Long>> usePriorityMatchFunctionList = new ArrayList<>(priorityList.size());
+            for (int priority = 0; priority < configGetters.length; priority++) {
+                long newK = configGetters[priority].applyAsLong(config);
+                // 维度为空，应该匹配其他场景的优先级
+                if (newK == emptyKey) {
+                    continue;
+                }
+                usePriorityMatchFunctionList.add(priorityList.get(priority));
+                if (priorityMatchTree == null) {
+                    priorityMatchTree = tree[priority];
+                } else {
+                    priorityMatchTree = priorityMatchTree.initChildTree(k, priority, configGetters.length);
+                }
+                k = newK;
+            }
+            if (priorityMatchTree != null) {
+                useRecordSet.add(priorityMatchTree.addConfig(k, config, usePriorityMatchFunctionList, configListMap).getUniqueId());
+            }
+        }
+        // 剪枝，移除没有加载配置的Processor
+        return new LongPriorityFetcher<>(tree, processorList.stream()
+                .filter(v -> useRecordSet.contains(v.getUniqueId()))
+                .collect(Collectors.toList()), sourceGetters, emptyKey);
+    }
+
+    public List<PriorityMatchProcessor<S, C, Long>> getProcessorList() {
+        return processorList;
+    }
+
+    /**
+     * 需求匹配配置集，返回单优先级最高的配置集，可能是多个
+     *
+     * @param source 需求信息
+     * @return 单个优先级配置，没有命中为null
+     */
+    public PriorityMatchResult<List<C>> match(S source) {
+        long[] keys = sourceKeys(source);
+        for (int[] priorities : processorPriorities) {
+            PriorityMatchResult<List<C>> configResult = match(priorities, keys);
+            if (configResult != null) {
+                return configResult;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 需求匹配配置集
+     *
+     * @param source      需求信息
+     * @param allPriority 是否获取全部优先级
+     * @return 匹配结果
+     */
+    public List<PriorityMatchResult<List<C>>> match(S source, boolean allPriority) {
+        return matchKeys(sourceKeys(source), allPriority);
+    }
+
+    /**
+     * 基于已经取出的需求key匹配配置集
+     *
+     * @param keys        需求key, 下标即优先级，与 emptyKey 相等视为维度为空
+     * @param allPriority 是否获取全部优先级
+     * @return 匹配结果
+     */
+    public List<PriorityMatchResult<List<C>>> matchKeys(long[] keys, boolean allPriority) {
+        if (keys.length != sourceGetters.length) {
+            throw new IllegalArgumentException("LongPriorityFetcher keys length must be " + sourceGetters.length);
+        }
+        List<PriorityMatchResult<List<C>>> resultList = new ArrayList<>();
+        for (int[] priorities : processorPriorities) {
+            PriorityMatchResult<List<C>> configResult = match(priorities, keys);
+            if (configResult != null) {
+                resultList.add(configResult);
+                if (!allPriority) {
+                    return resultList;
+                }
+            }
+        }
+        return resultList;
+    }
+
+    private long[] sourceKeys(S source) {
+        long[] keys = new long[sourceGetters.length];
+        for (int i = 0; i < sourceGetters.length; i++) {
+            keys[i] = sourceGetters[i].applyAsLong(source);
+        }
+        return keys;
+    }
+
+    /**
+     * 匹配单个Processor, 相等匹配每层最多命中一个key
+     */
+    private PriorityMatchResult<List<C>> match(int[] priorities, long[] keys) {
+        LongPriorityMatchTree<C> priorityMatchTree = tree[priorities[0]];
+        int last = priorities.length - 1;
+        for (int i = 0; i < last; i++) {
+            long k = keys[priorities[i]];
+            if (k == emptyKey) {
+                return null;
+            }
+            priorityMatchTree = priorityMatchTree.getChildTree(k, priorities[i + 1]);
+            if (priorityMatchTree == null) {
+                return null;
+            }
+        }
+        long k = keys[priorities[last]];
+        return k == emptyKey ? null : priorityMatchTree.getConfigResult(k);
+    }
+
+    /**
+     * 优先级匹配树对象，结构与 PriorityFetcher.PriorityMatchTree 一致
+     * 子树与叶子在第一次写入时才创建
+     */
+    static final class LongPriorityMatchTree<C> {
+
+        /**
+         * 树索引，顶层为1
+         */
+        private final int index;
+
+        /**
+         * K: 当前树层级数据
+         * V: 子数据集，下标为子节点维度的优先级
+         */
+        private LongPriorityMap<LongPriorityMatchTree<C>[]> currentTree;
+
+        /**
+         * 叶子节点才存在配置
+         */
+        private LongPriorityMap<PriorityMatchResult<List<C>>> configMap;
+
+        LongPriorityMatchTree(int index) {
+            this.index = index;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static <C> LongPriorityMatchTree<C>[] newArray(int size) {
+            return new LongPriorityMatchTree[size];
+        }
+
+        <S> PriorityMatchResult<List<C>> addConfig(long k, C config, List<PriorityMatchFunction<S, C, Long>> usePriorityMatchFunctionList,
+                                                   Map<PriorityMatchResult<List<C>>, List<C>> configListMap) {
+            if (configMap == null) {
+                configMap = new LongPriorityMap<>();
+            }
+            PriorityMatchResult<List<C>> configResult = configMap.get(k);
+            if (configResult == null) {
+                List<C> configList = new ArrayList<>();
+                configResult = PriorityMatchResult.ofList(PriorityMatchProcessor.initUniqueId(usePriorityMatchFunctionList),
+                        PriorityMatchProcessor.initName(usePriorityMatchFunctionList),
+                        index,
+                        configList);
+                configMap.put(k, configResult);
+                configListMap.put(configResult, configList);
+            }
+            configListMap.get(configResult).add(config);
+            return configResult;
+        }
+
+        PriorityMatchResult<List<C>> getConfigResult(long k) {
+            return configMap == null ? null : configMap.get(k);
+        }
+
+        LongPriorityMatchTree<C> getChildTree(long k, int childPriority) {
+            if (currentTree == null) {
+                return null;
+            }
+            LongPriorityMatchTree<C>[] priorityMatchTrees = currentTree.get(k);
+            return priorityMatchTrees == null ? null : priorityMatchTrees[childPriority];
+        }
+
+        LongPriorityMatchTree<C> initChildTree(long k, int childPriority, int prioritySize) {
+            if (currentTree == null) {
+                currentTree = new LongPriorityMap<>();
+            }
+            LongPriorityMatchTree<C>[] childPriorityMatchTreeArr = currentTree.get(k);
+            if (childPriorityMatchTreeArr == null) {
+                childPriorityMatchTreeArr = newArray(prioritySize);
+                currentTree.put(k, childPriorityMatchTreeArr);
+            }
+            LongPriorityMatchTree<C> childPriorityMatchTree = childPriorityMatchTreeArr[childPriority];
+            if (childPriorityMatchTree == null) {
+                childPriorityMatchTree = new LongPriorityMatchTree<>(index + 1);
+                childPriorityMatchTreeArr[childPriority] = childPriorityMatchTree;
+            }
+            return childPriorityMatchTree;
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package cn.ykccchen.businessutil.util.match;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+import cn.ykccchen.businessutil.match.handler.PriorityMatchEngine;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.apache.commons.lang3.Range;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 索引维度测试用例
+ * 索引维度的结果必须与等价的 BOOLEAN 维度完全一致
+ * @author ykccchen
+ */
+@DisplayName("PriorityFetcher 索引维度测试")
+class PriorityFetcherIndexTest {
+
+    static class IndexSource {
+        private final String region;
+        private final Integer weight;
+
+        IndexSource(String region, Integer weight) {
+            this.region = region;
+            this.weight = weight;
+        }
+
+        public String getRegion() { return region; }
+        public Integer getWeight() { return weight; }
+    }
+
+    static class IndexConfig {
+        private final String region;
+        private final Range<Integer> weight;
+        private final String value;
+
+        IndexConfig(String region, Range<Integer> weight, String value) {
+            this.region = region;
+            this.weight = weight;
+            this.value = value;
+        }
+
+        public String getRegion() { return region; }
+        public Range<Integer> getWeight() { return weight; }
+        public String getValue() { return value; }
+    }
+
+    static class PrefixConfig {
+        private final String region;
+        private final String code;
+        private final String value;
+
+        PrefixConfig(String region, String code, String value) {
+            this.region = region;
+            this.code = code;
+            this.value = value;
+        }
+
+        public String getRegion() { return region; }
+        public String getCode() { return code; }
+        public String getValue() { return value; }
+    }
+
+    private static final String[] REGIONS = {"US", "EU", "CN", null};
+
+    @SuppressWarnings("unchecked")
+    private static Integer min(Object range) {
+        return ((Range<Integer>) range).getMinimum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Integer max(Object range) {
+        return ((Range<Integer>) range).getMaximum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean contains(Object range, Object value) {
+        return ((Range<Integer>) range).contains((Integer) value);
+    }
+
+    private static PriorityAssembler<IndexSource, IndexConfig, Object> assembler(List<IndexConfig> configList, boolean range) {
+        PriorityAssembler<IndexSource, IndexConfig, Object> assembler = PriorityAssembler.from(IndexSource.class, IndexConfig.class, Object.class)
+                .initConfig(configList)
+                .initPriorityHandler(PriorityMode.ABSOLUTE_VALUE)
+                .addPriorityMatchFunction("region", IndexSource::getRegion, IndexConfig::getRegion);
+        if (range) {
+            assembler.addRangePriorityMatchFunction("weight", IndexSource::getWeight, IndexConfig::getWeight,
+                    PriorityFetcherIndexTest::min, PriorityFetcherIndexTest::max);
+        } else {
+            assembler.addPriorityMatchFunction("weight", IndexSource::getWeight, IndexConfig::getWeight,
+                    (source, config) -> contains(config, source));
+        }
+        return assembler;
+    }
+
+    private static PriorityAssembler<IndexSource, PrefixConfig, Object> prefixAssembler(List<PrefixConfig> configList, boolean prefix) {
+        PriorityAssembler<IndexSource, PrefixConfig, Object> assembler = PriorityAssembler.from(IndexSource.class, PrefixConfig.class, Object.class)
+                .initConfig(configList)
+                .initPriorityHandler(PriorityMode.ABSOLUTE_VALUE)
+                .addPriorityMatchFunction("region", IndexSource::getRegion, PrefixConfig::getRegion);
+        if (prefix) {
+            assembler.addPrefixPriorityMatchFunction("code", source -> String.valueOf(source.getWeight()), PrefixConfig::getCode);
+        } else {
+            assembler.addPriorityMatchFunction("code", source -> String.valueOf(source.getWeight()), PrefixConfig::getCode,
+                    (source, config) -> ((String) source).startsWith((String) config));
+        }
+        return assembler;
+    }
+
+    private static PriorityAssembler<IndexSource, PrefixConfig, Object> regexAssembler(List<PrefixConfig> configList, boolean regex) {
+        PriorityAssembler<IndexSource, PrefixConfig, Object> assembler = PriorityAssembler.from(IndexSource.class, PrefixConfig.class, Object.class)
+                .initConfig(configList)
+                .initPriorityHandler(PriorityMode.ABSOLUTE_VALUE)
+                .addPriorityMatchFunction("region", IndexSource::getRegion, PrefixConfig::getRegion);
+        if (regex) {
+            assembler.addRegexPriorityMatchFunction("code", source -> String.valueOf(source.getWeight()), PrefixConfig::getCode);
+        } else {
+            assembler.addPriorityMatchFunction("code", source -> String.valueOf(source.getWeight()), PrefixConfig::getCode,
+                    (source, config) -> ((String) source).matches((String) config));
+        }
+        return assembler;
+    }
+
+    private static <C> void assertSameResult(List<PriorityMatchResult<List<C>>> expected,
+                                             List<PriorityMatchResult<List<C>>> actual) {
+        // 不同装配器的维度uniqueId不同，比较名称、层级与配置
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getLevel(), actual.get(i).getLevel());
+            assertEquals(expected.get(i).getResult(), actual.get(i).getResult());
+        }
+    }
+
+    @Nested
+    @DisplayName("区间维度测试")
+    class RangeTests {
+
+        @Test
+        @DisplayName("区间边界与优先级")
+        void testRangeBoundary() {
+            List<IndexConfig> configList = Arrays.asList(
+                    new IndexConfig("US", Range.of(0, 10), "US-0-10"),
+                    new IndexConfig("US", Range.of(10, 20), "US-10-20"),
+                    new IndexConfig(null, Range.of(5, 15), "5-15"),
+                    new IndexConfig("US", null, "US")
+            );
+            PriorityFetcher<IndexSource, IndexConfig, Object> fetcher = assembler(configList, true).create();
+
+            List<PriorityMatchResult<List<IndexConfig>>> results = fetcher.match(new IndexSource("US", 10), true);
+            assertEquals(4, results.size());
+            assertEquals("US-0-10", results.get(0).getResult().get(0).getValue());
+            assertEquals("US-10-20", results.get(1).getResult().get(0).getValue());
+            assertEquals("US", results.get(2).getResult().get(0).getValue());
+            assertEquals("5-15", results.get(3).getResult().get(0).getValue());
+
+            assertEquals("US-10-20", fetcher.match(new IndexSource("US", 20)).getResult().get(0).getValue());
+            assertEquals("US", fetcher.match(new IndexSource("US", 21)).getResult().get(0).getValue());
+            assertNull(fetcher.match(new IndexSource("EU", 21)));
+            assertEquals("5-15", fetcher.match(new IndexSource(null, 5)).getResult().get(0).getValue());
+        }
+
+        @RepeatedTest(5)
+        @DisplayName("区间索引与 BOOLEAN 区间判断结果一致")
+        void testRangeMatchBoolean() {
+            Random random = new Random();
+            List<IndexConfig> configList = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                int min = random.nextInt(1000);
+                configList.add(new IndexConfig(REGIONS[random.nextInt(REGIONS.length)],
+                        Range.of(min, min + random.nextInt(200)), "config_" + i));
+            }
+            PriorityFetcher<IndexSource, IndexConfig, Object> rangeFetcher = assembler(configList, true).create();
+            PriorityFetcher<IndexSource, IndexConfig, Object> rangeTreeFetcher = assembler(configList, true).create().tree();
+            PriorityFetcher<IndexSource, IndexConfig, Object> booleanFetcher = assembler(configList, false).create();
+
+            for (int i = 0; i < 500; i++) {
+                IndexSource source = new IndexSource(REGIONS[random.nextInt(REGIONS.length)], random.nextInt(1300) - 100);
+                List<PriorityMatchResult<List<IndexConfig>>> expected = booleanFetcher.match(source, true);
+                assertSameResult(expected, rangeFetcher.match(source, true));
+                assertSameResult(expected, rangeTreeFetcher.match(source, true));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("前缀维度测试")
+    class PrefixTests {
+
+        @Test
+        @DisplayName("前缀由长到短返回")
+        void testLongestPrefixFirst() {
+            List<PrefixConfig> configList = Arrays.asList(
+                    new PrefixConfig(null, "1", "1"),
+                    new PrefixConfig(null, "123", "123"),
+                    new PrefixConfig(null, "12", "12"),
+                    new PrefixConfig(null, "13", "13"),
+                    new PrefixConfig(null, "12345", "12345")
+            );
+            PriorityFetcher<IndexSource, PrefixConfig, Object> fetcher = prefixAssembler(configList, true).create();
+
+            List<PriorityMatchResult<List<PrefixConfig>>> results = fetcher.match(new IndexSource(null, 1234), true);
+            assertEquals(3, results.size());
+            assertEquals("123", results.get(0).getResult().get(0).getValue());
+            assertEquals("12", results.get(1).getResult().get(0).getValue());
+            assertEquals("1", results.get(2).getResult().get(0).getValue());
+
+            assertEquals("12345", fetcher.match(new IndexSource(null, 123456)).getResult().get(0).getValue());
+            assertEquals("13", fetcher.tree().match(new IndexSource(null, 13)).getResult().get(0).getValue());
+            assertNull(fetcher.match(new IndexSource(null, 2)));
+        }
+
+        @RepeatedTest(5)
+        @DisplayName("前缀索引与 BOOLEAN startsWith 命中集合一致")
+        void testPrefixMatchBoolean() {
+            Random random = new Random();
+            List<PrefixConfig> configList = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                configList.add(new PrefixConfig(REGIONS[random.nextInt(REGIONS.length)],
+                        String.valueOf(10000 + random.nextInt(90000)).substring(0, 1 + random.nextInt(3)), "config_" + i));
+            }
+            PriorityFetcher<IndexSource, PrefixConfig, Object> prefixFetcher = prefixAssembler(configList, true).create();
+            PriorityFetcher<IndexSource, PrefixConfig, Object> prefixTreeFetcher = prefixAssembler(configList, true).create().tree();
+            PriorityFetcher<IndexSource, PrefixConfig, Object> booleanFetcher = prefixAssembler(configList, false).create();
+
+            for (int i = 0; i < 500; i++) {
+                IndexSource source = new IndexSource(REGIONS[random.nextInt(REGIONS.length)], 10000 + random.nextInt(90000));
+                Set<List<PrefixConfig>> expected = resultSet(booleanFetcher.match(source, true));
+                assertEquals(expected, resultSet(prefixFetcher.match(source, true)));
+                assertEquals(expected, resultSet(prefixTreeFetcher.match(source, true)));
+            }
+        }
+
+        private Set<List<PrefixConfig>> resultSet(List<PriorityMatchResult<List<PrefixConfig>>> resultList) {
+            Set<List<PrefixConfig>> resultSet = new HashSet<>();
+            for (PriorityMatchResult<List<PrefixConfig>> result : resultList) {
+                resultSet.add(result.getResult());
+            }
+            return resultSet;
+        }
+    }
+
+    @Nested
+    @DisplayName("正则维度测试")
+    class RegexTests {
+
+        private final String[] patterns = {"12.*", "1[0-9]{4}", "\\d+5", "(12|34)\\d*", "123?4.*", "1+2.*", "99999", "[5-9].*0"};
+
+        @Test
+        @DisplayName("正则整串匹配并按节点顺序返回")
+        void testRegexNodeOrder() {
+            List<PrefixConfig> configList = new ArrayList<>();
+            for (String pattern : patterns) {
+                configList.add(new PrefixConfig(null, pattern, pattern));
+            }
+            PriorityFetcher<IndexSource, PrefixConfig, Object> fetcher = regexAssembler(configList, true).create();
+
+            List<PriorityMatchResult<List<PrefixConfig>>> results = fetcher.match(new IndexSource(null, 12345), true);
+            List<String> valueList = new ArrayList<>();
+            for (PriorityMatchResult<List<PrefixConfig>> result : results) {
+                valueList.add(result.getResult().get(0).getValue());
+            }
+            assertEquals(Arrays.asList("12.*", "1[0-9]{4}", "\\d+5", "(12|34)\\d*", "123?4.*", "1+2.*"), valueList);
+
+            assertEquals("99999", fetcher.match(new IndexSource(null, 99999)).getResult().get(0).getValue());
+            assertEquals("[5-9].*0", fetcher.tree().match(new IndexSource(null, 5550)).getResult().get(0).getValue());
+            assertNull(fetcher.match(new IndexSource(null, 7)));
+        }
+
+        @Test
+        @DisplayName("不合法的正则在构建与增量更新时抛出，不延迟到匹配")
+        void testInvalidRegexFailsOnBuild() {
+            List<PrefixConfig> configList = Arrays.asList(new PrefixConfig(null, "12.*", "valid"), new PrefixConfig("US", "a(", "invalid"));
+            assertThrows(PatternSyntaxException.class, () -> regexAssembler(configList, true).create());
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                assertThrows(PatternSyntaxException.class,
+                        () -> regexAssembler(configList, true).initConfig(configList.stream()).initBuildPool(pool).create());
+            } finally {
+                pool.shutdown();
+            }
+
+            PriorityFetcher<IndexSource, PrefixConfig, Object> fetcher = regexAssembler(configList.subList(0, 1), true).create();
+            assertThrows(PatternSyntaxException.class, () -> fetcher.withConfigAdded(configList.get(1)));
+            // 原对象不受影响
+            assertEquals("valid", fetcher.match(new IndexSource("US", 123)).getResult().get(0).getValue());
+            assertEquals("valid", fetcher.withConfigAdded(new PrefixConfig("US", "9.*", "added"))
+                    .match(new IndexSource("US", 123)).getResult().get(0).getValue());
+        }
+
+        @RepeatedTest(5)
+        @DisplayName("正则索引与 BOOLEAN String.matches 结果一致")
+        void testRegexMatchBoolean() {
+            Random random = new Random();
+            List<PrefixConfig> configList = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                String literal = String.valueOf(10000 + random.nextInt(90000)).substring(0, random.nextInt(4));
+                configList.add(new PrefixConfig(REGIONS[random.nextInt(REGIONS.length)],
+                        literal + patterns[random.nextInt(patterns.length)], "config_" + i));
+            }
+            PriorityFetcher<IndexSource, PrefixConfig, Object> regexFetcher = regexAssembler(configList, true).create();
+            PriorityFetcher<IndexSource, PrefixConfig, Object> regexTreeFetcher = regexAssembler(configList, true).create().tree();
+            PriorityFetcher<IndexSource, PrefixConfig, Object> booleanFetcher = regexAssembler(configList, false).create();
+
+            for (int i = 0; i < 500; i++) {
+                IndexSource source = new IndexSource(REGIONS[random.nextInt(REGIONS.length)], random.nextInt(10000000));
+                List<PriorityMatchResult<List<PrefixConfig>>> expected = booleanFetcher.match(source, true);
+                assertSameResult(expected, regexFetcher.match(source, true));
+                assertSameResult(expected, regexTreeFetcher.match(source, true));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("位图引擎、编译匹配、字典编码与冻结测试")
+    class BitmapEngineTests {
+
+        private Object pick(Random random, Object... values) {
+            // 约三分之一的维度不参与匹配
+            return random.nextInt(3) == 0 ? null : values[random.nextInt(values.length)];
+        }
+
+        private PriorityAssembler<Map<String, Object>, Map<String, Object>, Object> assembler(List<Map<String, Object>> configList,
+                                                                                              PriorityMode mode) {
+            return PriorityAssembler.from(new PriorityAssembler.TypeReference<Map<String, Object>>() {},
+                            new PriorityAssembler.TypeReference<Map<String, Object>>() {},
+                            new PriorityAssembler.TypeReference<Object>() {})
+                    .initConfig(configList)
+                    .initPriorityHandler(mode)
+                    .addPriorityMatchFunction("a", source -> source.get("a"), config -> config.get("a"))
+                    .addPriorityMatchFunction("b", source -> source.get("b"), config -> config.get("b"),
+                            (source, config) -> ((String) source).startsWith((String) config))
+                    .addRangePriorityMatchFunction("c", source -> source.get("c"), config -> config.get("c"),
+                            PriorityFetcherIndexTest::min, PriorityFetcherIndexTest::max)
+                    .addPrefixPriorityMatchFunction("d", source -> source.get("d"), config -> config.get("d"))
+                    .addPriorityMatchFunction("e", source -> source.get("e"), config -> config.get("e"))
+                    .addRegexPriorityMatchFunction("f", source -> source.get("f"), config -> config.get("f"));
+        }
+
+        @RepeatedTest(5)
+        @DisplayName("位图引擎、编译匹配、字典编码与逐层匹配结果一致")
+        void testBitmapMatchLevel() {
+            Random random = new Random();
+            List<Map<String, Object>> configList = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                Map<String, Object> config = new HashMap<>();
+                config.put("a", pick(random, "a1", "a2", "a3"));
+                config.put("b", pick(random, "b", "b1", "b12", "b2"));
+                int min = random.nextInt(100);
+                config.put("c", pick(random, Range.of(min, min + random.nextInt(30)), Range.of(min, min)));
+                config.put("d", pick(random, "1", "12", "123", "2", "21"));
+                config.put("e", pick(random, "e1", "e2", "e3", "e4"));
+                config.put("f", pick(random, "x.*", "x[0-9]", "xy+", ".*9", "x1"));
+                config.put("id", i);
+                configList.add(config);
+            }
+            for (PriorityMode mode : PriorityMode.values()) {
+                PriorityAssembler<Map<String, Object>, Map<String, Object>, Object> assembler = assembler(configList, mode);
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> levelFetcher = assembler.create();
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> bitmapFetcher =
+                        assembler.initMatchEngine(PriorityMatchEngine.BITMAP).create();
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> compiledFetcher =
+                        assembler.initMatchEngine(PriorityMatchEngine.COMPILED).create();
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> dictionaryFetcher =
+                        assembler.initMatchEngine(PriorityMatchEngine.DICTIONARY).create();
+                // 构建时未生成字典，基于优先级树生成
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> treeDictionaryFetcher =
+                        assembler.initMatchEngine(PriorityMatchEngine.LEVEL).create().dictionary();
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> frozenFetcher = assembler.create().freeze();
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> treeFetcher = assembler.create().tree();
+                PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> frozenTreeFetcher = assembler.create().freeze().tree();
+                int multiMatchCount = 0;
+                for (int i = 0; i < 1000; i++) {
+                    Map<String, Object> source = new HashMap<>();
+                    source.put("a", pick(random, "a1", "a2", "a3", "a4"));
+                    source.put("b", pick(random, "b123", "b21", "b", "c"));
+                    source.put("c", random.nextInt(140) - 10);
+                    source.put("d", pick(random, "1234", "12", "213", "3"));
+                    source.put("e", pick(random, "e1", "e2", "e3", "e5"));
+                    source.put("f", pick(random, "x1", "x19", "xyy", "9", "x"));
+                    List<PriorityMatchResult<List<Map<String, Object>>>> expected = levelFetcher.match(source, true);
+                    List<PriorityMatchResult<List<Map<String, Object>>>> actual = bitmapFetcher.match(source, true);
+                    assertEquals(expected.toString(), actual.toString());
+                    assertSameResult(expected, actual);
+                    assertEquals(String.valueOf(levelFetcher.match(source)), String.valueOf(bitmapFetcher.match(source)));
+                    assertEquals(expected.toString(), compiledFetcher.match(source, true).toString());
+                    assertSameResult(expected, compiledFetcher.match(source, true));
+                    assertEquals(String.valueOf(levelFetcher.match(source)), String.valueOf(compiledFetcher.match(source)));
+                    assertSameResult(expected, dictionaryFetcher.match(source, true));
+                    assertSameResult(expected, treeDictionaryFetcher.match(source, true));
+                    assertEquals(String.valueOf(levelFetcher.match(source)), String.valueOf(dictionaryFetcher.match(source)));
+                    assertSameResult(expected, frozenFetcher.match(source, true));
+                    assertEquals(String.valueOf(levelFetcher.match(source)), String.valueOf(frozenFetcher.match(source)));
+                    assertSameResult(treeFetcher.match(source, true), frozenTreeFetcher.match(source, true));
+                    assertEquals(String.valueOf(treeFetcher.match(source)), String.valueOf(frozenTreeFetcher.match(source)));
+                    multiMatchCount += expected.size() > 1 ? 1 : 0;
+                }
+                assertTrue(multiMatchCount > 100);
+            }
+        }
+
+        @Test
+        @DisplayName("字典编码: 内容相同的key命中，不在字典中的key跳过")
+        void testDictionary() {
+            List<Map<String, Object>> configList = new ArrayList<>();
+            configList.add(config("/cn/zhejiang/hangzhou/xihu", "segment-vip-0001", 1));
+            configList.add(config("/cn/zhejiang/hangzhou/xihu", null, 2));
+            configList.add(config(null, "segment-vip-0001", 3));
+            PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> fetcher = PriorityAssembler.from(
+                            new PriorityAssembler.TypeReference<Map<String, Object>>() {},
+                            new PriorityAssembler.TypeReference<Map<String, Object>>() {},
+                            new PriorityAssembler.TypeReference<Object>() {})
+                    .initConfig(configList)
+                    .initMatchEngine(PriorityMatchEngine.DICTIONARY)
+                    .addPriorityMatchFunction("region", source -> source.get("region"), config -> config.get("region"))
+                    .addPriorityMatchFunction("segment", source -> source.get("segment"), config -> config.get("segment"))
+                    .create();
+
+            // 需求key与配置key不是同一个实例
+            List<PriorityMatchResult<List<Map<String, Object>>>> results = fetcher.match(
+                    config(new String("/cn/zhejiang/hangzhou/xihu"), new String("segment-vip-0001"), 0), true);
+            assertEquals(3, results.size());
+            assertEquals("region_segment", results.get(0).getName());
+            assertEquals(1, results.get(0).getResult().get(0).get("id"));
+            assertEquals(2, results.get(1).getResult().get(0).get("id"));
+            assertEquals(3, results.get(2).getResult().get(0).get("id"));
+
+            PriorityMatchResult<List<Map<String, Object>>> result = fetcher.match(config("/cn/zhejiang/ningbo", "segment-vip-0001", 0));
+            assertEquals("segment", result.getName());
+            assertNull(fetcher.match(config("/cn/zhejiang/ningbo", "segment-normal", 0)));
+            assertNull(fetcher.match(config(null, null, 0)));
+        }
+
+        private Map<String, Object> config(String region, String segment, int id) {
+            Map<String, Object> config = new HashMap<>();
+            config.put("region", region);
+            config.put("segment", segment);
+            config.put("id", id);
+            return config;
+        }
+
+        @Test
+        @DisplayName("冻结后释放原优先级树，不能再转换为其他引擎")
+        void testFrozen() {
+            List<Map<String, Object>> configList = new ArrayList<>();
+            configList.add(config("/cn/zhejiang/hangzhou/xihu", "segment-vip-0001", 1));
+            configList.add(config(null, "segment-vip-0001", 2));
+            PriorityFetcher<Map<String, Object>, Map<String, Object>, Object> fetcher = PriorityAssembler.from(
+                            new PriorityAssembler.TypeReference<Map<String, Object>>() {},
+                            new PriorityAssembler.TypeReference<Map<String, Object>>() {},
+                            new PriorityAssembler.TypeReference<Object>() {})
+                    .initConfig(configList)
+                    .addPriorityMatchFunction("region", source -> source.get("region"), config -> config.get("region"))
+                    .addPriorityMatchFunction("segment", source -> source.get("segment"), config -> config.get("segment"))
+                    .create()
+                    .freeze();
+
+            assertTrue(fetcher.isFrozen());
+            assertEquals(2, fetcher.match(config("/cn/zhejiang/hangzhou/xihu", "segment-vip-0001", 0), true).size());
+            assertEquals(2, fetcher.match(config("/cn/zhejiang/ningbo", "segment-vip-0001", 0)).getResult().get(0).get("id"));
+            assertThrows(UnsupportedOperationException.class, fetcher::bitmap);
+            assertThrows(UnsupportedOperationException.class, fetcher::compile);
+            assertThrows(UnsupportedOperationException.class, fetcher::dictionary);
+            assertSame(fetcher, fetcher.freeze());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package cn.ykccchen.businessutil.util.match;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import cn.ykccchen.businessutil.match.primitive.IntPriorityAssembler;
+import cn.ykccchen.businessutil.match.primitive.IntPriorityFetcher;
+import cn.ykccchen.businessutil.match.primitive.LongPriorityAssembler;
+import cn.ykccchen.businessutil.match.primitive.LongPriorityFetcher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 基本类型维度key匹配测试类 {@link IntPriorityFetcher} {@link LongPriorityFetcher}
+ * 与使用包装类型key的 PriorityFetcher 对比结果
+ * @date 2025/8/15 10:30
+ */
+public class PriorityFetcherPrimitiveTest {
+
+    private static final int DIMENSIONS = 5;
+    private static final int CONFIG_SIZE = 3000;
+    private static final int SOURCE_SIZE = 2000;
+
+    /**
+     * 每个维度的取值数量，首个维度取值多，覆盖int map扩容
+     */
+    private static final int[] CARDINALITY = {500, 6, 4, 8, 3};
+
+    private static List<int[]> intConfigs(long seed, int emptyKey) {
+        Random random = new Random(seed);
+        List<int[]> configList = new ArrayList<>(CONFIG_SIZE);
+        for (int i = 0; i < CONFIG_SIZE; i++) {
+            int[] config = new int[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                config[d] = random.nextDouble() < 0.3 ? emptyKey : random.nextInt(CARDINALITY[d]) - 2;
+            }
+            configList.add(config);
+        }
+        return configList;
+    }
+
+    private static List<int[]> intSources(long seed, int emptyKey) {
+        Random random = new Random(seed);
+        List<int[]> sourceList = new ArrayList<>(SOURCE_SIZE);
+        for (int i = 0; i < SOURCE_SIZE; i++) {
+            int[] source = new int[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                source[d] = random.nextDouble() < 0.05 ? emptyKey : random.nextInt(CARDINALITY[d] + 1) - 2;
+            }
+            sourceList.add(source);
+        }
+        return sourceList;
+    }
+
+    private static PriorityFetcher<int[], int[], Integer> boxedIntFetcher(List<int[]> configList, PriorityMode mode, int emptyKey) {
+        PriorityAssembler<int[], int[], Integer> assembler = PriorityAssembler.from(int[].class, int[].class, Integer.class)
+                .initConfig(configList)
+                .initPriorityHandler(mode);
+        for (int d = 0; d < DIMENSIONS; d++) {
+            int index = d;
+            assembler.addPriorityMatchFunction("d" + d,
+                    s -> s[index] == emptyKey ? null : s[index],
+                    c -> c[index] == emptyKey ? null : c[index]);
+        }
+        return assembler.create();
+    }
+
+    private static IntPriorityFetcher<int[], int[]> intFetcher(List<int[]> configList, PriorityMode mode, Integer emptyKey) {
+        IntPriorityAssembler<int[], int[]> assembler = PriorityAssembler.fromInt(int[].class, int[].class)
+                .initConfig(configList)
+                .initPriorityHandler(mode);
+        if (emptyKey != null) {
+            assembler.initEmptyKey(emptyKey);
+        }
+        for (int d = 0; d < DIMENSIONS; d++) {
+            int index = d;
+            assembler.addPriorityMatchFunction("d" + d, s -> s[index], c -> c[index]);
+        }
+        return assembler.create();
+    }
+
+    private static <C> void assertSameResult(List<PriorityMatchResult<List<C>>> expected, List<PriorityMatchResult<List<C>>> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameResult(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static <C> void assertSameResult(PriorityMatchResult<List<C>> expected, PriorityMatchResult<List<C>> actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getResult(), actual.getResult());
+    }
+
+    @Nested
+    @DisplayName("int维度测试")
+    class IntTests {
+
+        @Test
+        @DisplayName("与包装类型key的匹配结果一致")
+        void sameAsBoxedFetcher() {
+            for (PriorityMode mode : PriorityMode.values()) {
+                assertSameAsBoxedFetcher(mode);
+            }
+        }
+
+        private void assertSameAsBoxedFetcher(PriorityMode mode) {
+            List<int[]> configList = intConfigs(17L, 0);
+            PriorityFetcher<int[], int[], Integer> expectedFetcher = boxedIntFetcher(configList, mode, 0);
+            IntPriorityFetcher<int[], int[]> fetcher = intFetcher(configList, mode, 0);
+            assertEquals(expectedFetcher.getProcessorList().size(), fetcher.getProcessorList().size());
+
+            int multiMatchCount = 0;
+            for (int[] source : intSources(19L, 0)) {
+                assertSameResult(expectedFetcher.match(source), fetcher.match(source));
+                List<PriorityMatchResult<List<int[]>>> expected = expectedFetcher.match(source, true);
+                assertSameResult(expected, fetcher.match(source, true));
+                assertSameResult(expected, fetcher.matchKeys(source, true));
+                if (expected.size() > 1) {
+                    multiMatchCount++;
+                }
+            }
+            assertTrue(multiMatchCount > 100);
+        }
+
+        @Test
+        @DisplayName("默认 Integer.MIN_VALUE 为空维度，负数与0可以作为key")
+        void defaultEmptyKey() {
+            List<int[]> configList = intConfigs(23L, Integer.MIN_VALUE);
+            PriorityFetcher<int[], int[], Integer> expectedFetcher = boxedIntFetcher(configList, PriorityMode.NUMBER_OF_MATCHES, Integer.MIN_VALUE);
+            IntPriorityFetcher<int[], int[]> fetcher = intFetcher(configList, PriorityMode.NUMBER_OF_MATCHES, null);
+            for (int[] source : intSources(29L, Integer.MIN_VALUE)) {
+                assertSameResult(expectedFetcher.match(source, true), fetcher.match(source, true));
+            }
+        }
+
+        @Test
+        @DisplayName("空维度的配置匹配其他维度")
+        void emptyDimension() {
+            int[] all = {1, 2, 3, 4, 5};
+            int[] partial = {1, 0, 3, 0, 0};
+            IntPriorityFetcher<int[], int[]> fetcher = intFetcher(Arrays.asList(all, partial), PriorityMode.NUMBER_OF_MATCHES, 0);
+
+            PriorityMatchResult<List<int[]>> match = fetcher.match(new int[]{1, 2, 3, 4, 5});
+            assertEquals("d0_d1_d2_d3_d4", match.getName());
+            assertSame(all, match.getResult().get(0));
+            assertThrows(UnsupportedOperationException.class, () -> match.getResult().add(partial));
+
+            List<PriorityMatchResult<List<int[]>>> matchList = fetcher.match(new int[]{1, 9, 3, 0, 5}, true);
+            assertEquals(1, matchList.size());
+            assertEquals("d0_d2", matchList.get(0).getName());
+            assertSame(partial, matchList.get(0).getResult().get(0));
+
+            assertNull(fetcher.match(new int[]{0, 2, 3, 4, 5}));
+        }
+
+        @Test
+        @DisplayName("key数量与维度数量不一致时抛出异常")
+        void keysLength() {
+            IntPriorityFetcher<int[], int[]> fetcher = intFetcher(intConfigs(31L, 0), PriorityMode.NUMBER_OF_MATCHES, 0);
+            assertThrows(IllegalArgumentException.class, () -> fetcher.matchKeys(new int[DIMENSIONS - 1], true));
+        }
+    }
+
+    @Nested
+    @DisplayName("long维度测试")
+    class LongTests {
+
+        /**
+         * 高32位相同、低位不同，以及低32位相同、高位不同的key
+         */
+        private long toLong(int value) {
+            return value % 2 == 0 ? (1L << 40) + value : ((long) value << 32) + 7;
+        }
+
+        private long[] toLong(int[] arr) {
+            long[] result = new long[arr.length];
+            for (int i = 0; i < arr.length; i++) {
+                result[i] = arr[i] == 0 ? 0 : toLong(arr[i]);
+            }
+            return result;
+        }
+
+        @Test
+        @DisplayName("与包装类型key的匹配结果一致")
+        void sameAsBoxedFetcher() {
+            for (PriorityMode mode : PriorityMode.values()) {
+                assertSameAsBoxedFetcher(mode);
+            }
+        }
+
+        private void assertSameAsBoxedFetcher(PriorityMode mode) {
+            List<long[]> configList = new ArrayList<>();
+            for (int[] config : intConfigs(37L, 0)) {
+                configList.add(toLong(config));
+            }
+            PriorityAssembler<long[], long[], Long> assembler = PriorityAssembler.from(long[].class, long[].class, Long.class)
+                    .initConfig(configList)
+                    .initPriorityHandler(mode);
+            LongPriorityAssembler<long[], long[]> longAssembler = PriorityAssembler.fromLong(long[].class, long[].class)
+                    .initConfig(configList)
+                    .initPriorityHandler(mode)
+                    .initEmptyKey(0L);
+            for (int d = 0; d < DIMENSIONS; d++) {
+                int index = d;
+                assembler.addPriorityMatchFunction("d" + d,
+                        s -> s[index] == 0 ? null : s[index],
+                        c -> c[index] == 0 ? null : c[index]);
+                longAssembler.addPriorityMatchFunction("d" + d, s -> s[index], c -> c[index]);
+            }
+            PriorityFetcher<long[], long[], Long> expectedFetcher = assembler.create();
+            LongPriorityFetcher<long[], long[]> fetcher = longAssembler.create();
+
+            int multiMatchCount = 0;
+            for (int[] intSource : intSources(41L, 0)) {
+                long[] source = toLong(intSource);
+                assertSameResult(expectedFetcher.match(source), fetcher.match(source));
+                List<PriorityMatchResult<List<long[]>>> expected = expectedFetcher.match(source, true);
+                assertSameResult(expected, fetcher.match(source, true));
+                if (expected.size() > 1) {
+                    multiMatchCount++;
+                }
+            }
+            assertTrue(multiMatchCount > 100);
+        }
+    }
+}
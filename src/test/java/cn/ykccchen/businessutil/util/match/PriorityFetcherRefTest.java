@@ -0,0 +1,238 @@
+package cn.ykccchen.businessutil.util.match;
+
+import cn.ykccchen.businessutil.match.PriorityAssembler;
+import cn.ykccchen.businessutil.match.PriorityFetcher;
+import cn.ykccchen.businessutil.match.PriorityFetcherRef;
+import cn.ykccchen.businessutil.match.PriorityMatchResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author ykccchen
+ * @version 1.0
+ * @description 可热替换的优先级获取器持有者测试类 {@link PriorityFetcherRef}
+ * 需求为 {region, tier}, 配置为 {region, tier, value}
+ * @date 2025/8/19 10:00
+ */
+@DisplayName("PriorityFetcherRef 测试")
+public class PriorityFetcherRefTest {
+
+    private static PriorityAssembler<String[], String[], String> assembler() {
+        return PriorityAssembler.from(new PriorityAssembler.TypeReference<String[]>() {
+                }, new PriorityAssembler.TypeReference<String[]>() {
+                }, new PriorityAssembler.TypeReference<String>() {
+                })
+                .addPriorityMatchFunction("region", source -> source[0], config -> config[0])
+                .addPriorityMatchFunction("tier", source -> source[1], config -> config[1]);
+    }
+
+    private static String value(PriorityMatchResult<List<String[]>> result) {
+        return result == null ? null : result.getResult().get(0)[2];
+    }
+
+    /**
+     * 手动执行的执行器，便于控制重建时机
+     */
+    private static final class ManualExecutor implements java.util.concurrent.Executor {
+
+        private final Queue<Runnable> taskQueue = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            taskQueue.add(command);
+        }
+
+        int runAll() {
+            int count = 0;
+            Runnable task;
+            while ((task = taskQueue.poll()) != null) {
+                task.run();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    @Test
+    @DisplayName("全量重建后替换快照，旧获取器不变")
+    void testRefresh() throws Exception {
+        AtomicReference<List<String[]>> configs = new AtomicReference<>(
+                Collections.singletonList(new String[]{"US", null, "US-v1"}));
+        ManualExecutor executor = new ManualExecutor();
+        PriorityFetcherRef<String[], String[], String> ref = PriorityFetcherRef.of(assembler(), configs::get, executor);
+        PriorityFetcher<String[], String[], String> first = ref.get();
+        assertEquals(0, ref.getVersion());
+        assertTrue(ref.getLastRebuildNanos() > 0);
+        assertEquals("US-v1", value(ref.match(new String[]{"US", "premium"})));
+
+        configs.set(Arrays.asList(new String[]{"US", null, "US-v2"}, new String[]{"US", "premium", "US-premium"}));
+        CompletableFuture<PriorityFetcher<String[], String[], String>> future = ref.refresh();
+        // 排队中的重建被共用
+        assertSame(future, ref.refresh());
+        // 重建完成前继续使用旧获取器
+        assertEquals("US-v1", value(ref.match(new String[]{"US", "premium"})));
+
+        assertEquals(1, executor.runAll());
+        assertSame(ref.get(), future.get());
+        assertEquals(1, ref.getVersion());
+        assertEquals("US-premium", value(ref.match(new String[]{"US", "premium"})));
+        assertEquals("US-v2", value(ref.match(new String[]{"US", "basic"})));
+        assertEquals("US-v1", value(first.match(new String[]{"US", "premium"})));
+
+        // 完成后再次请求会重新构建
+        assertNotSame(future, ref.refresh());
+        executor.runAll();
+        assertEquals(2, ref.getVersion());
+    }
+
+    @Test
+    @DisplayName("增量更新按提交顺序执行")
+    void testUpdate() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        PriorityFetcherRef<String[], String[], String> ref = PriorityFetcherRef.of(assembler(),
+                () -> Collections.singletonList(new String[]{"US", null, "US"}), executor);
+        String[] eu = {"EU", null, "EU"};
+        ref.update(fetcher -> fetcher.withConfigAdded(eu));
+        CompletableFuture<PriorityFetcher<String[], String[], String>> future = ref.update(fetcher -> fetcher.withConfigRemoved(eu));
+        assertNull(value(ref.match(new String[]{"EU", null})));
+
+        executor.runAll();
+        assertEquals(2, ref.getVersion());
+        assertSame(ref.get(), future.get());
+        assertNull(value(ref.match(new String[]{"EU", null})));
+        assertEquals("US", value(ref.match(new String[]{"US", null})));
+    }
+
+    @Test
+    @DisplayName("重建失败时保留当前快照")
+    void testRefreshFailure() throws Exception {
+        AtomicInteger buildCount = new AtomicInteger();
+        ManualExecutor executor = new ManualExecutor();
+        PriorityFetcherRef<String[], String[], String> ref = PriorityFetcherRef.of(assembler(), () -> {
+            if (buildCount.getAndIncrement() == 1) {
+                throw new IllegalStateException("config source unavailable");
+            }
+            return Collections.singletonList(new String[]{"US", null, "US"});
+        }, executor);
+        PriorityFetcher<String[], String[], String> first = ref.get();
+
+        CompletableFuture<PriorityFetcher<String[], String[], String>> failed = ref.refresh();
+        executor.runAll();
+        ExecutionException exception = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertSame(first, ref.get());
+        assertEquals(0, ref.getVersion());
+
+        ref.refresh();
+        executor.runAll();
+        assertEquals(1, ref.getVersion());
+        assertEquals("US", value(ref.match(new String[]{"US", null})));
+    }
+
+    @Test
+    @DisplayName("重建期间匹配不阻塞")
+    void testMatchDuringRebuild() throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger buildCount = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PriorityFetcherRef<String[], String[], String> ref = PriorityFetcherRef.of(assembler(), () -> {
+                if (buildCount.getAndIncrement() == 0) {
+                    return Collections.singletonList(new String[]{"US", null, "old"});
+                }
+                building.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Collections.singletonList(new String[]{"US", null, "new"});
+            }, executor);
+
+            CompletableFuture<PriorityFetcher<String[], String[], String>> future = ref.refresh();
+            assertTrue(building.await(10, TimeUnit.SECONDS));
+            List<String> valueList = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                valueList.add(value(ref.match(new String[]{"US", null})));
+            }
+            assertEquals(Collections.nCopies(1000, "old"), valueList);
+            release.countDown();
+            future.get(10, TimeUnit.SECONDS);
+            assertEquals("new", value(ref.match(new String[]{"US", null})));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("未指定执行器时使用独占的守护线程，不占用公共 ForkJoinPool")
+    void testDefaultExecutor() throws Exception {
+        AtomicReference<Thread> buildThread = new AtomicReference<>();
+        PriorityFetcherRef<String[], String[], String> ref = PriorityFetcherRef.of(assembler(), () -> {
+            buildThread.set(Thread.currentThread());
+            return Collections.singletonList(new String[]{"US", null, "US"});
+        });
+        assertSame(Thread.currentThread(), buildThread.get());
+
+        ref.refresh().get(10, TimeUnit.SECONDS);
+        assertEquals("PriorityFetcherRef-refresh", buildThread.get().getName());
+        assertTrue(buildThread.get().isDaemon());
+        assertEquals(1, ref.getVersion());
+    }
+
+    @Test
+    @DisplayName("定时重建不在调度线程上等待，重建未结束时跳过触发")
+    void testScheduleRefreshNotBlocking() throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger buildCount = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            PriorityFetcherRef<String[], String[], String> ref = PriorityFetcherRef.of(assembler(), () -> {
+                if (buildCount.getAndIncrement() == 1) {
+                    building.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return Collections.singletonList(new String[]{"US", null, "US"});
+            }, executor);
+            ScheduledFuture<?> scheduledFuture = ref.scheduleRefresh(scheduler, 10, TimeUnit.MILLISECONDS);
+            assertTrue(building.await(10, TimeUnit.SECONDS));
+            // 重建阻塞期间调度线程仍然可以执行其他任务，且不会重复提交重建
+            assertTrue(scheduler.submit(() -> true).get(10, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals(2, buildCount.get());
+            release.countDown();
+            scheduledFuture.cancel(false);
+        } finally {
+            release.countDown();
+            scheduler.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+}
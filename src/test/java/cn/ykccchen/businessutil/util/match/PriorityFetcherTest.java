@@ -1,15 +1,26 @@
 package cn.ykccchen.businessutil.util.match;
 
 import cn.ykccchen.businessutil.match.*;
+import cn.ykccchen.businessutil.match.handler.PriorityMatchEngine;
 import cn.ykccchen.businessutil.match.handler.PriorityMode;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,6 +120,58 @@ class PriorityFetcherTest {
         fetcherTree = PriorityFetcher.from(processors, configs, functions).tree();
     }
 
+    /**
+     * 按结果顺序展开命中的配置值
+     */
+    private static List<String> values(List<PriorityMatchResult<List<TestConfig>>> resultList) {
+        List<String> valueList = new ArrayList<>();
+        for (PriorityMatchResult<List<TestConfig>> result : resultList) {
+            result.getResult().forEach(config -> valueList.add(config.getValue()));
+        }
+        return valueList;
+    }
+
+    /**
+     * 随机配置与全组合匹配使用的维度取值，null 表示该维度不限
+     */
+    private static final String[] REGIONS = {"US", "EU", "CN", "JP", null};
+    private static final String[] TIERS = {"premium", "basic", null};
+    private static final String[] CATEGORIES = {"electronics", "clothing", null};
+    private static final String[] PRODUCTS = {"phone", "shirt", null};
+
+    private static List<TestConfig> randomConfigs(Random random, int count, String prefix) {
+        List<TestConfig> configList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            configList.add(new TestConfig(REGIONS[random.nextInt(REGIONS.length)], TIERS[random.nextInt(TIERS.length)],
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], PRODUCTS[random.nextInt(PRODUCTS.length)],
+                    prefix + i, 0));
+        }
+        return configList;
+    }
+
+    /**
+     * 全部需求组合的匹配结果，按处理器名称标记，不同组装器创建的 fetcher 之间也可直接比较
+     */
+    private static List<String> matchAll(PriorityFetcher<TestSource, TestConfig, String> priorityFetcher) {
+        List<String> resultList = new ArrayList<>();
+        for (String region : REGIONS) {
+            for (String tier : TIERS) {
+                for (String category : CATEGORIES) {
+                    for (String product : PRODUCTS) {
+                        StringBuilder builder = new StringBuilder();
+                        for (PriorityMatchResult<List<TestConfig>> result : priorityFetcher.match(new TestSource(region, tier, category, product), true)) {
+                            builder.append(result.getName()).append(':');
+                            result.getResult().forEach(config -> builder.append(config.getValue()).append(','));
+                            builder.append(';');
+                        }
+                        resultList.add(builder.toString());
+                    }
+                }
+            }
+        }
+        return resultList;
+    }
+
     @Nested
     @DisplayName("基础功能测试")
     class BasicFunctionalityTests {
@@ -262,6 +325,1314 @@ class PriorityFetcherTest {
             assertEquals(levelResult.getResult().get(0).getValue(), treeResult.getResult().get(0).getValue());
             assertEquals(levelResult2.getResult().get(0).getValue(), treeResult2.getResult().get(0).getValue());
         }
+
+        @Test
+        @DisplayName("同一叶子节点命中复用结果对象")
+        void testSharedLeafResult() {
+            TestSource source = new TestSource("US", "premium", "electronics", "phone");
+            TestSource source2 = new TestSource("US", "premium", "electronics", "phone");
+
+            assertSame(fetcherTree.match(source), fetcherTree.match(source2));
+            assertSame(fetcher.match(source), fetcher.match(source2));
+            // 同一个对象转换为树后，层级与树模式命中同一叶子节点
+            PriorityFetcher<TestSource, TestConfig, String> priorityFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions);
+            List<PriorityMatchResult<List<TestConfig>>> levelResults = priorityFetcher.match(source, true);
+            List<PriorityMatchResult<List<TestConfig>>> treeResults = priorityFetcher.tree().match(source, true);
+            assertEquals(levelResults.size(), treeResults.size());
+            for (int i = 0; i < treeResults.size(); i++) {
+                assertSame(levelResults.get(i), treeResults.get(i));
+            }
+        }
+
+        @Test
+        @DisplayName("叶子结果的配置集合对外只读")
+        void testLeafResultUnmodifiable() {
+            TestSource source = new TestSource("US", "premium", "electronics", "phone");
+            TestConfig config = new TestConfig("US", "premium", "electronics", "phone", "US-Premium-Electronics-Phone-2", 100);
+            PriorityFetcher<TestSource, TestConfig, String> updated = fetcher.withConfigAdded(config);
+            for (PriorityMatchResult<List<TestConfig>> result : Arrays.asList(fetcher.match(source), fetcherTree.match(source), updated.match(source))) {
+                assertThrows(UnsupportedOperationException.class, () -> result.getResult().add(config));
+                assertThrows(UnsupportedOperationException.class, () -> result.getResult().clear());
+            }
+            // 增量更新写入的是复制后的叶子，原版本不受影响
+            assertEquals(1, fetcher.match(source).getResult().size());
+            assertEquals(2, updated.match(source).getResult().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("批量匹配测试")
+    class MatchAllTests {
+
+        private List<TestSource> sources() {
+            return Arrays.asList(
+                    new TestSource("US", "premium", "electronics", "phone"),
+                    new TestSource("US", "premium", "electronics", "tablet"),
+                    new TestSource("JP", "premium", "electronics", "phone"),
+                    new TestSource("US", "premium", "electronics", "phone"),
+                    new TestSource("US", "", "electronics", "phone"),
+                    new TestSource("US", null, "electronics", "phone"),
+                    null
+            );
+        }
+
+        @Test
+        @DisplayName("批量匹配与单个匹配结果一致，顺序与入参一致")
+        void testMatchAllConsistency() {
+            List<TestSource> sources = sources();
+            List<PriorityMatchResult<List<TestConfig>>> results = fetcher.matchAll(sources);
+            List<List<PriorityMatchResult<List<TestConfig>>>> resultTrees = fetcherTree.matchAll(sources, true);
+
+            assertEquals(sources.size(), results.size());
+            assertEquals(sources.size(), resultTrees.size());
+            for (int i = 0; i < sources.size(); i++) {
+                assertEquals(String.valueOf(fetcher.match(sources.get(i))), String.valueOf(results.get(i)));
+                assertEquals(fetcherTree.match(sources.get(i), true).toString(), resultTrees.get(i).toString());
+            }
+            assertNull(results.get(2));
+            assertNull(results.get(6));
+        }
+
+        @Test
+        @DisplayName("key向量相同的需求共享结果")
+        void testMatchAllDeduplicate() {
+            List<TestSource> sources = sources();
+            List<List<PriorityMatchResult<List<TestConfig>>>> results = fetcher.matchAll(sources, false);
+
+            assertSame(results.get(0), results.get(3));
+            // 空字符与空值视为同一个key
+            assertSame(results.get(4), results.get(5));
+            assertNotSame(results.get(0), results.get(1));
+            assertThrows(UnsupportedOperationException.class, () -> results.get(0).clear());
+        }
+
+        @Test
+        @DisplayName("并行批量匹配与串行结果一致")
+        void testMatchAllParallel() {
+            String[] regions = {"US", "EU", "CN", "JP", null};
+            String[] tiers = {"premium", "basic", null};
+            String[] categories = {"electronics", "clothing", "food"};
+            String[] products = {"phone", "shirt", "tablet"};
+            Random random = new Random(42);
+            List<TestSource> sources = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                sources.add(new TestSource(regions[random.nextInt(regions.length)], tiers[random.nextInt(tiers.length)],
+                        categories[random.nextInt(categories.length)], products[random.nextInt(products.length)]));
+            }
+            // 叶子结果对象在同一个 fetcher 内共享，直接比较结果列表即可覆盖命中的配置
+            List<List<PriorityMatchResult<List<TestConfig>>>> expected = fetcher.matchAll(sources, true);
+            List<List<PriorityMatchResult<List<TestConfig>>>> expectedTree = fetcherTree.matchAll(sources, true);
+
+            assertEquals(expected, fetcher.matchAllParallel(sources, true));
+            // 非 List 集合也保持迭代顺序
+            assertEquals(expectedTree, fetcherTree.matchAllParallel(new LinkedHashSet<>(sources), true));
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                assertEquals(expected, fetcher.matchAllParallel(sources, true, pool));
+                assertEquals(expectedTree, fetcherTree.matchAllParallel(sources, true, executor));
+            } finally {
+                pool.shutdown();
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("维度取值测试")
+    class SourceKeyTests {
+
+        @Test
+        @DisplayName("单次匹配每个维度最多取值一次")
+        void testSourceGetterCalledOnce() {
+            Map<String, Integer> counter = new HashMap<>();
+            PriorityAssembler<TestSource, TestConfig, String> assembler = PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                    .initConfig(configs)
+                    .initPriorityHandler(PriorityMode.NUMBER_OF_MATCHES)
+                    .addPriorityMatchFunction("region", s -> count(counter, "region", s.getRegion()), TestConfig::getRegion)
+                    .addPriorityMatchFunction("tier", s -> count(counter, "tier", s.getTier()), TestConfig::getTier)
+                    .addPriorityMatchFunction("category", s -> count(counter, "category", s.getCategory()), TestConfig::getCategory)
+                    .addPriorityMatchFunction("product", s -> count(counter, "product", s.getProduct()), TestConfig::getProduct,
+                            (source, config) -> source.startsWith(config));
+            PriorityFetcher<TestSource, TestConfig, String> levelFetcher = assembler.create();
+            PriorityFetcher<TestSource, TestConfig, String> treeFetcher = assembler.create().tree();
+
+            for (PriorityFetcher<TestSource, TestConfig, String> priorityFetcher : Arrays.asList(levelFetcher, treeFetcher)) {
+                counter.clear();
+                List<PriorityMatchResult<List<TestConfig>>> results =
+                        priorityFetcher.match(new TestSource("US", "premium", "", "phone-x"), true);
+                assertFalse(results.isEmpty());
+                assertFalse(counter.isEmpty());
+                counter.values().forEach(count -> assertEquals(1, count));
+            }
+        }
+
+        private String count(Map<String, Integer> counter, String name, String value) {
+            counter.merge(name, 1, Integer::sum);
+            return value;
+        }
+    }
+
+    @Nested
+    @DisplayName("结果缓存测试")
+    class CacheTests {
+
+        @Test
+        @DisplayName("缓存结果与未缓存结果一致并统计命中")
+        void testCacheConsistency() {
+            PriorityFetcher<TestSource, TestConfig, String> cacheFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).cache(100);
+            assertNull(fetcher.getCacheStats());
+
+            TestSource source = new TestSource("US", "premium", "electronics", "phone");
+            List<PriorityMatchResult<List<TestConfig>>> first = cacheFetcher.match(source, true);
+            List<PriorityMatchResult<List<TestConfig>>> second = cacheFetcher.match(new TestSource("US", "premium", "electronics", "phone"), true);
+            assertEquals(fetcher.match(source, true).toString(), first.toString());
+            assertSame(first, second);
+            assertEquals(fetcher.match(source).toString(), cacheFetcher.match(source).toString());
+            // 空字符与空值是同一个key向量
+            assertSame(cacheFetcher.match(new TestSource("EU", "", null, null), true),
+                    cacheFetcher.match(new TestSource("EU", null, "", null), true));
+            assertThrows(UnsupportedOperationException.class, first::clear);
+
+            PriorityCacheStats stats = cacheFetcher.getCacheStats();
+            assertEquals(2, stats.getHitCount());
+            assertEquals(3, stats.getMissCount());
+            assertEquals(3, stats.getSize());
+            assertEquals(0, stats.getEvictionCount());
+        }
+
+        @Test
+        @DisplayName("超出容量时淘汰最久未访问的结果")
+        void testCacheEviction() {
+            PriorityFetcher<TestSource, TestConfig, String> cacheFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .tree()
+                    .cache(2);
+            TestSource us = new TestSource("US", null, null, null);
+            TestSource eu = new TestSource("EU", null, null, null);
+            TestSource cn = new TestSource("CN", null, null, null);
+            cacheFetcher.match(us);
+            cacheFetcher.match(eu);
+            cacheFetcher.match(us);
+            cacheFetcher.match(cn);
+            cacheFetcher.match(us);
+            cacheFetcher.match(eu);
+
+            PriorityCacheStats stats = cacheFetcher.getCacheStats();
+            assertEquals(2, stats.getSize());
+            assertEquals(2, stats.getEvictionCount());
+            assertEquals(2, stats.getHitCount());
+            assertEquals(4, stats.getMissCount());
+            assertEquals("EU", cacheFetcher.match(eu).getResult().get(0).getValue());
+        }
+
+        @Test
+        @DisplayName("并发读取缓存结果正确")
+        void testCacheConcurrency() throws InterruptedException {
+            PriorityFetcher<TestSource, TestConfig, String> cacheFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).cache(1000);
+            String[] regions = {"US", "EU", "CN", "JP"};
+            String[] tiers = {"premium", "basic", null};
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Throwable> errorList = Collections.synchronizedList(new ArrayList<>());
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                executor.execute(() -> {
+                    Random random = new Random(seed);
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            TestSource source = new TestSource(regions[random.nextInt(regions.length)],
+                                    tiers[random.nextInt(tiers.length)], "electronics", "phone");
+                            assertEquals(fetcher.match(source, true).toString(), cacheFetcher.match(source, true).toString());
+                        }
+                    } catch (Throwable e) {
+                        errorList.add(e);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            assertTrue(errorList.isEmpty(), () -> errorList.get(0).toString());
+            assertEquals(16000, cacheFetcher.getCacheStats().getHitCount() + cacheFetcher.getCacheStats().getMissCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("增量更新测试")
+    class IncrementalTests {
+
+        /**
+         * 4个维度的全部组合，维度多的在前
+         */
+        private List<PriorityMatchProcessor<TestSource, TestConfig, String>> allProcessors() {
+            List<PriorityMatchProcessor<TestSource, TestConfig, String>> processors = new ArrayList<>();
+            for (int size = functions.size(); size > 0; size--) {
+                for (int mask = (1 << functions.size()) - 1; mask > 0; mask--) {
+                    if (Integer.bitCount(mask) != size) {
+                        continue;
+                    }
+                    List<PriorityMatchFunction<TestSource, TestConfig, String>> functionList = new ArrayList<>();
+                    for (int i = 0; i < functions.size(); i++) {
+                        if ((mask & (1 << i)) != 0) {
+                            functionList.add(functions.get(i));
+                        }
+                    }
+                    processors.add(new PriorityMatchProcessor<>(functionList));
+                }
+            }
+            return processors;
+        }
+
+        private List<String> uniqueIds(PriorityFetcher<TestSource, TestConfig, String> priorityFetcher) {
+            List<String> uniqueIdList = new ArrayList<>();
+            priorityFetcher.getProcessorList().forEach(processor -> uniqueIdList.add(processor.getUniqueId()));
+            return uniqueIdList;
+        }
+
+        @Test
+        @DisplayName("增量新增与追加配置后重新构建结果一致")
+        void testAdd() {
+            for (int seed = 0; seed < 5; seed++) {
+                Random random = new Random(seed);
+                List<TestConfig> baseList = randomConfigs(random, 60, "base-");
+                List<TestConfig> addList = randomConfigs(random, 30, "add-");
+                List<TestConfig> allList = new ArrayList<>(baseList);
+                allList.addAll(addList);
+
+                PriorityFetcher<TestSource, TestConfig, String> expected = PriorityFetcher.from(allProcessors(), allList, functions).pruning();
+                PriorityFetcher<TestSource, TestConfig, String> base = PriorityFetcher.from(allProcessors(), baseList, functions).pruning();
+                PriorityFetcher<TestSource, TestConfig, String> batch = base.withConfigsAdded(addList);
+                PriorityFetcher<TestSource, TestConfig, String> single = base;
+                for (TestConfig config : addList) {
+                    single = single.withConfigAdded(config);
+                }
+                assertEquals(matchAll(expected), matchAll(batch));
+                assertEquals(matchAll(expected), matchAll(single));
+                assertEquals(uniqueIds(expected), uniqueIds(batch));
+                assertEquals(uniqueIds(expected), uniqueIds(single));
+            }
+        }
+
+        @Test
+        @DisplayName("增量删除与删除配置后重新构建结果一致，空Processor重新剪枝")
+        void testRemove() {
+            for (int seed = 0; seed < 5; seed++) {
+                Random random = new Random(seed);
+                List<TestConfig> allList = randomConfigs(random, 90, "config-");
+                List<TestConfig> removeList = new ArrayList<>();
+                List<TestConfig> remainList = new ArrayList<>();
+                for (TestConfig config : allList) {
+                    (random.nextInt(3) == 0 ? removeList : remainList).add(config);
+                }
+
+                PriorityFetcher<TestSource, TestConfig, String> expected = PriorityFetcher.from(allProcessors(), remainList, functions).pruning();
+                PriorityFetcher<TestSource, TestConfig, String> full = PriorityFetcher.from(allProcessors(), allList, functions).pruning();
+                PriorityFetcher<TestSource, TestConfig, String> batch = full.withConfigsRemoved(removeList);
+                PriorityFetcher<TestSource, TestConfig, String> single = full;
+                for (TestConfig config : removeList) {
+                    single = single.withConfigRemoved(config);
+                }
+                assertEquals(matchAll(expected), matchAll(batch));
+                assertEquals(matchAll(expected), matchAll(single));
+                assertEquals(uniqueIds(expected), uniqueIds(batch));
+                assertEquals(uniqueIds(expected), uniqueIds(single));
+                assertEquals(expected.stats().getNodeCount(), batch.stats().getNodeCount());
+            }
+            // 全部删除后只剩空的头节点，新增后重新参与匹配
+            PriorityFetcher<TestSource, TestConfig, String> empty = fetcher.pruning().withConfigsRemoved(configs);
+            assertTrue(empty.getProcessorList().isEmpty());
+            assertEquals(functions.size(), empty.stats().getNodeCount());
+            PriorityFetcher<TestSource, TestConfig, String> refill = empty.withConfigsAdded(configs);
+            assertEquals(matchAll(fetcher), matchAll(refill));
+        }
+
+        @Test
+        @DisplayName("差量重建与使用新配置集重新构建结果一致，未变化的子树共享")
+        void testRebuildFrom() {
+            for (int seed = 0; seed < 5; seed++) {
+                Random random = new Random(seed);
+                List<TestConfig> oldList = randomConfigs(random, 90, "old-");
+                List<TestConfig> newList = new ArrayList<>();
+                for (TestConfig config : oldList) {
+                    if (random.nextInt(10) != 0) {
+                        newList.add(config);
+                    }
+                }
+                newList.addAll(randomConfigs(random, 10, "new-"));
+                Collections.shuffle(newList, random);
+
+                PriorityFetcher<TestSource, TestConfig, String> expected = PriorityFetcher.from(allProcessors(), newList, functions).pruning();
+                PriorityFetcher<TestSource, TestConfig, String> old = PriorityFetcher.from(allProcessors(), oldList, functions).pruning();
+                List<String> oldResult = matchAll(old);
+                PriorityFetcher<TestSource, TestConfig, String> rebuilt = old.rebuildFrom(newList);
+                assertEquals(matchAll(expected), matchAll(rebuilt));
+                assertEquals(uniqueIds(expected), uniqueIds(rebuilt));
+                assertEquals(oldResult, matchAll(old));
+                assertEquals(expected.stats().getNodeCount(), rebuilt.stats().getNodeCount());
+            }
+
+            // 配置没有变化时不复制任何节点
+            PriorityFetcher<TestSource, TestConfig, String> base = fetcher.pruning();
+            PriorityFetcher<TestSource, TestConfig, String> same = base.rebuildFrom(configs);
+            for (int i = 0; i < functions.size(); i++) {
+                assertSame(base.getTree()[i], same.getTree()[i]);
+            }
+            // 只有 JP 分支变化时，其他地区的子树与叶子共享
+            List<TestConfig> changed = new ArrayList<>(configs);
+            changed.add(new TestConfig("JP", "basic", null, null, "JP-Basic", 80));
+            PriorityFetcher<TestSource, TestConfig, String> next = base.rebuildFrom(changed);
+            assertNotSame(base.getTree()[0], next.getTree()[0]);
+            TestSource us = new TestSource("US", "premium", "electronics", "phone");
+            assertSame(base.match(us), next.match(us));
+            assertEquals("JP-Basic", next.match(new TestSource("JP", "basic", null, null)).getResult().get(0).getValue());
+            assertEquals(matchAll(PriorityFetcher.from(fetcher.getProcessorList(), changed, functions)), matchAll(next));
+        }
+
+        @Test
+        @DisplayName("差量重建保留已有key顺序，新配置集调整key先后时多key命中的顺序与重新构建不同")
+        void testRebuildFromReordered() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> booleanFunctions = new ArrayList<>(functions);
+            booleanFunctions.set(0, PriorityMatchFunction.ofBoolean("region", 0, TestSource::getRegion, TestConfig::getRegion, String::startsWith));
+            List<PriorityMatchProcessor<TestSource, TestConfig, String>> processors = PriorityMode.NUMBER_OF_MATCHES.initPriorityHandlerList(booleanFunctions);
+            TestConfig shortPrefix = new TestConfig("U", "premium", null, null, "U-Premium", 80);
+            TestConfig longPrefix = new TestConfig("US", "premium", null, null, "US-Premium", 80);
+            List<TestConfig> reordered = Arrays.asList(longPrefix, shortPrefix);
+
+            PriorityFetcher<TestSource, TestConfig, String> old = PriorityFetcher.from(processors, Arrays.asList(shortPrefix, longPrefix), booleanFunctions);
+            PriorityFetcher<TestSource, TestConfig, String> rebuilt = old.rebuildFrom(reordered);
+            PriorityFetcher<TestSource, TestConfig, String> expected = PriorityFetcher.from(processors, reordered, booleanFunctions);
+            TestSource source = new TestSource("USA", "premium", null, null);
+            // 同一节点上两个key都命中，重新构建按新配置集顺序，差量重建保持原顺序
+            assertEquals(Arrays.asList("US-Premium", "U-Premium"), values(expected.match(source, true)));
+            assertEquals(Arrays.asList("U-Premium", "US-Premium"), values(rebuilt.match(source, true)));
+            // 只取第一个命中时返回的配置不同
+            assertEquals(Collections.singletonList("US-Premium"), values(expected.match(source, false)));
+            assertEquals(Collections.singletonList("U-Premium"), values(rebuilt.match(source, false)));
+
+            // 只有相等匹配维度时调整顺序不影响结果
+            List<TestConfig> reversed = new ArrayList<>(configs);
+            Collections.reverse(reversed);
+            assertEquals(matchAll(PriorityFetcher.from(fetcher.getProcessorList(), reversed, functions)),
+                    matchAll(fetcher.rebuildFrom(reversed)));
+        }
+
+        @Test
+        @DisplayName("旧版本不受增量更新影响，树模式带到新版本")
+        void testPreviousVersion() {
+            Random random = new Random(7);
+            List<TestConfig> baseList = randomConfigs(random, 60, "base-");
+            List<TestConfig> addList = randomConfigs(random, 30, "add-");
+            PriorityFetcher<TestSource, TestConfig, String> base = PriorityFetcher.from(allProcessors(), baseList, functions).pruning().tree();
+            List<String> before = matchAll(base);
+            List<String> uniqueIdsBefore = uniqueIds(base);
+
+            PriorityFetcher<TestSource, TestConfig, String> next = base.withConfigsAdded(addList)
+                    .withConfigsRemoved(baseList.subList(0, 30));
+            assertNotSame(base, next);
+            assertEquals(before, matchAll(base));
+            assertEquals(uniqueIdsBefore, uniqueIds(base));
+
+            List<TestConfig> expectedList = new ArrayList<>(baseList.subList(30, 60));
+            expectedList.addAll(addList);
+            PriorityFetcher<TestSource, TestConfig, String> expected = PriorityFetcher.from(allProcessors(), expectedList, functions).pruning().tree();
+            assertTrue(next.stats().getTreeTimeNanos() >= 0);
+            assertEquals(matchAll(expected), matchAll(next));
+
+            // 不存在的配置忽略
+            assertEquals(matchAll(next), matchAll(next.withConfigRemoved(new TestConfig("US", null, null, null, "none", 0))));
+            assertThrows(UnsupportedOperationException.class, () -> next.freeze().withConfigAdded(addList.get(0)));
+        }
+
+        @Test
+        @DisplayName("位图与字典编码引擎带到新版本")
+        void testEngineKeptAfterUpdate() {
+            Random random = new Random(11);
+            List<TestConfig> baseList = randomConfigs(random, 60, "base-");
+            List<TestConfig> addList = randomConfigs(random, 30, "add-");
+            List<TestConfig> expectedList = new ArrayList<>(baseList.subList(30, 60));
+            expectedList.addAll(addList);
+            PriorityFetcher<TestSource, TestConfig, String> expected = PriorityFetcher.from(allProcessors(), expectedList, functions).pruning();
+            TestSource source = new TestSource("US", "premium", "electronics", "phone");
+
+            Map<PriorityMatchEngine, Function<PriorityFetcher<TestSource, TestConfig, String>, PriorityFetcher<TestSource, TestConfig, String>>> engineMap =
+                    new LinkedHashMap<>();
+            engineMap.put(PriorityMatchEngine.BITMAP, PriorityFetcher::bitmap);
+            engineMap.put(PriorityMatchEngine.DICTIONARY, PriorityFetcher::dictionary);
+            engineMap.forEach((engine, convert) -> {
+                PriorityFetcher<TestSource, TestConfig, String> base = convert.apply(PriorityFetcher.from(allProcessors(), baseList, functions).pruning());
+                PriorityFetcher<TestSource, TestConfig, String> next = base.withConfigsAdded(addList)
+                        .withConfigsRemoved(baseList.subList(0, 30));
+                assertEquals(engine, next.explain(source).getEngine());
+                assertEquals(matchAll(expected), matchAll(next));
+
+                PriorityFetcher<TestSource, TestConfig, String> rebuilt = base.rebuildFrom(expectedList);
+                assertEquals(engine, rebuilt.explain(source).getEngine());
+                assertEquals(matchAll(expected), matchAll(rebuilt));
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("结构统计测试")
+    class StatsTests {
+
+        @Test
+        @DisplayName("按维度与层级统计节点、key与叶子")
+        void testStats() {
+            List<PriorityMatchProcessor<TestSource, TestConfig, String>> processors = new ArrayList<>(fetcher.getProcessorList());
+            processors.add(new PriorityMatchProcessor<>(Arrays.asList(functions.get(0), functions.get(2))));
+            PriorityFetcher<TestSource, TestConfig, String> statsFetcher = PriorityFetcher.from(processors, configs, functions).pruning();
+
+            PriorityFetcherStats stats = statsFetcher.stats();
+            assertEquals(5, stats.getProcessorCountBeforePruning());
+            assertEquals(4, stats.getProcessorCount());
+            // 4个维度的顶层节点 + 每个地区下 tier/category/product 各一个节点
+            assertEquals(13, stats.getNodeCount());
+            assertEquals(21, stats.getKeyCount());
+            assertEquals(12, stats.getLeafCount());
+            assertEquals(configs.size(), stats.getConfigCount());
+            assertEquals(36, stats.getChildSlotCount());
+            assertEquals(27, stats.getEmptyChildSlotCount());
+            assertTrue(stats.getEstimatedHeapBytes() > 0);
+            assertTrue(stats.getFromTimeNanos() > 0);
+            assertEquals(-1, stats.getTreeTimeNanos());
+            assertFalse(stats.isFrozen());
+
+            PriorityFetcherStats.Shape region = stats.getDimensionList().get(0);
+            assertEquals("region", region.getName());
+            assertEquals(1, region.getNodeCount());
+            assertEquals(6, region.getKeyCount());
+            assertEquals(3, region.getDistinctKeyCount());
+            assertEquals(3, region.getFanOut().getMax());
+            PriorityFetcherStats.Shape tier = stats.getDimensionList().get(1);
+            assertEquals(4, tier.getNodeCount());
+            assertEquals(2, tier.getDistinctKeyCount());
+            assertEquals(Long.valueOf(1), tier.getFanOut().getBuckets().get(0L));
+            assertEquals(Long.valueOf(3), tier.getFanOut().getBuckets().get(1L));
+
+            assertEquals(4, stats.getLevelList().size());
+            assertEquals("level-1", stats.getLevelList().get(0).getName());
+            assertEquals(4, stats.getLevelList().get(0).getNodeCount());
+            assertEquals(3, stats.getLevelList().get(3).getNodeCount());
+            assertEquals(3, stats.getLevelList().get(3).getLeafCount());
+            assertEquals(1, stats.getLevelList().get(3).getConfigSize().getMax());
+            assertEquals(1D, stats.getLevelList().get(3).getConfigSize().getMean());
+        }
+
+        @Test
+        @DisplayName("冻结后统计结构不变，没有空槽位且内存更小")
+        void testFrozenStats() {
+            PriorityFetcherStats stats = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).tree().stats();
+            PriorityFetcherStats frozenStats = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).tree().freeze().stats();
+            assertTrue(stats.getTreeTimeNanos() >= 0);
+            assertTrue(frozenStats.isFrozen());
+            assertEquals(stats.getNodeCount(), frozenStats.getNodeCount());
+            assertEquals(stats.getKeyCount(), frozenStats.getKeyCount());
+            assertEquals(stats.getLeafCount(), frozenStats.getLeafCount());
+            assertEquals(stats.getConfigCount(), frozenStats.getConfigCount());
+            assertEquals(stats.getDimensionList().toString(), frozenStats.getDimensionList().toString());
+            assertEquals(stats.getLevelList().toString(), frozenStats.getLevelList().toString());
+            assertEquals(9, frozenStats.getChildSlotCount());
+            assertEquals(0, frozenStats.getEmptyChildSlotCount());
+            assertTrue(frozenStats.getEstimatedHeapBytes() < stats.getEstimatedHeapBytes());
+        }
+
+        @Test
+        @DisplayName("字典编码树副本计入常驻内存")
+        void testDictionaryHeapStats() {
+            PriorityFetcher<TestSource, TestConfig, String> dictionaryFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions, true);
+            PriorityFetcherStats stats = dictionaryFetcher.stats();
+            PriorityFetcherStats encodedStats = dictionaryFetcher.dictionary().stats();
+            assertEquals(stats.getNodeCount(), encodedStats.getNodeCount());
+            assertTrue(encodedStats.getEstimatedHeapBytes() > stats.getEstimatedHeapBytes());
+            // 切换到其他引擎后编码树释放
+            assertEquals(stats.getEstimatedHeapBytes(), dictionaryFetcher.compile().stats().getEstimatedHeapBytes());
+        }
+    }
+
+    @Nested
+    @DisplayName("命中统计测试")
+    class HitStatsTests {
+
+        @Test
+        @DisplayName("按Processor与叶子统计命中，批量匹配按需求个数计")
+        void testHitStats() {
+            PriorityFetcher<TestSource, TestConfig, String> hitFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions);
+            assertNull(hitFetcher.getHitStats());
+            hitFetcher.recordHits(true);
+
+            TestSource phone = new TestSource("US", "premium", "electronics", "phone");
+            hitFetcher.match(phone);
+            hitFetcher.match(new TestSource("US", "basic", null, null));
+            hitFetcher.match(new TestSource("JP", null, null, null));
+            hitFetcher.matchAll(Arrays.asList(phone, new TestSource("US", "premium", "electronics", "phone")));
+            hitFetcher.match(phone, true);
+
+            PriorityHitStats stats = hitFetcher.getHitStats();
+            assertEquals(6, stats.getRequestCount());
+            assertEquals(1, stats.getMissCount());
+            assertEquals(5D / 6, stats.getHitRate());
+
+            List<PriorityHitStats.ProcessorHit> processorList = stats.getProcessorList();
+            assertEquals(4, processorList.size());
+            assertEquals("region_tier_category_product", processorList.get(0).getName());
+            assertEquals(0, processorList.get(0).getLevel());
+            assertEquals(3, processorList.get(0).getConfigCount());
+            assertEquals(4, processorList.get(0).getHitCount());
+            assertEquals(1, processorList.get(1).getHitCount());
+            assertEquals(1, processorList.get(2).getHitCount());
+            assertEquals(2, processorList.get(3).getHitCount());
+
+            List<PriorityHitStats.LeafHit> leafList = stats.getLeafList();
+            assertEquals(4, leafList.size());
+            assertEquals(Arrays.asList("US", "premium", "electronics", "phone"), leafList.get(0).getKeyList());
+            assertEquals(4, leafList.get(0).getHitCount());
+            assertEquals(1, leafList.get(0).getConfigCount());
+            assertEquals(Collections.singletonList("US"), leafList.get(1).getKeyList());
+            assertEquals(2, leafList.get(1).getHitCount());
+
+            hitFetcher.recordHits(false);
+            hitFetcher.match(phone);
+            assertNull(hitFetcher.getHitStats());
+        }
+
+        @Test
+        @DisplayName("开启缓存与树匹配时同样计数，增量更新后重新计数")
+        void testHitStatsWithCacheAndUpdate() {
+            PriorityFetcher<TestSource, TestConfig, String> hitFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .pruning()
+                    .tree()
+                    .cache(100)
+                    .recordHits(true);
+            TestSource source = new TestSource("EU", "premium", null, null);
+            for (int i = 0; i < 3; i++) {
+                assertEquals("EU-Premium", hitFetcher.match(source).getResult().get(0).getValue());
+            }
+            assertEquals(2, hitFetcher.getCacheStats().getHitCount());
+            assertEquals(3, hitFetcher.getHitStats().getLeafList().get(0).getHitCount());
+
+            PriorityFetcher<TestSource, TestConfig, String> next = hitFetcher.withConfigAdded(
+                    new TestConfig("EU", "basic", null, null, "EU-Basic", 80));
+            assertEquals(0, next.getHitStats().getRequestCount());
+            assertEquals(4, next.getHitStats().getProcessorList().get(2).getConfigCount());
+            next.match(new TestSource("EU", "basic", null, null));
+            assertEquals(Arrays.asList("EU", "basic"), next.getHitStats().getLeafList().get(0).getKeyList());
+            assertEquals(3, hitFetcher.getHitStats().getRequestCount());
+        }
+
+        @Test
+        @DisplayName("并发匹配计数不丢失")
+        void testHitStatsConcurrency() throws InterruptedException {
+            PriorityFetcher<TestSource, TestConfig, String> hitFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .recordHits(true);
+            String[] regions = {"US", "EU", "CN", "JP"};
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            for (int t = 0; t < 8; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        hitFetcher.match(new TestSource(regions[i % regions.length], null, null, null));
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+            PriorityHitStats stats = hitFetcher.getHitStats();
+            assertEquals(16000, stats.getRequestCount());
+            assertEquals(4000, stats.getMissCount());
+            assertEquals(12000, stats.getProcessorList().get(3).getHitCount());
+            assertEquals(3, stats.getLeafList().size());
+            for (PriorityHitStats.LeafHit leafHit : stats.getLeafList()) {
+                assertEquals(4000, leafHit.getHitCount());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("匹配监听器测试")
+    class MatchListenerTests {
+
+        @Test
+        @DisplayName("逐层匹配记录访问的Processor、节点与候选key")
+        void testLevelRecord() {
+            List<PriorityMatchRecord> recordList = new ArrayList<>();
+            PriorityFetcher<TestSource, TestConfig, String> listenFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .matchListener(recordList::add);
+
+            listenFetcher.match(new TestSource("US", "premium", "electronics", "phone"));
+            PriorityMatchRecord record = recordList.get(0);
+            assertEquals(PriorityMatchEngine.LEVEL, record.getEngine());
+            assertTrue(record.isWorkCounted());
+            assertFalse(record.isCacheHit());
+            assertTrue(record.getLatencyNanos() > 0);
+            assertEquals(1, record.getProcessorCount());
+            assertEquals(4, record.getNodeCount());
+            assertEquals(4, record.getKeyCount());
+            assertEquals(0, record.getPredicateCount());
+            assertEquals(1, record.getResultCount());
+            assertEquals(fetcher.getProcessorList().get(0).getUniqueId(), record.getWinner().getUniqueId());
+
+            // 地区不存在时布隆过滤器跳过全部Processor
+            listenFetcher.match(new TestSource("JP", "premium", "electronics", "phone"), true);
+            record = recordList.get(1);
+            assertTrue(record.isAllPriority());
+            assertEquals(4, record.getProcessorCount());
+            assertEquals(4, record.getFilteredProcessorCount());
+            assertEquals(0, record.getNodeCount());
+            assertNull(record.getWinner());
+
+            // 批量匹配按去重后的key向量回调
+            listenFetcher.matchAll(Arrays.asList(new TestSource("EU", null, null, null), new TestSource("EU", null, null, null)));
+            assertEquals(3, recordList.size());
+            assertEquals("region", recordList.get(2).getWinner().getName());
+        }
+
+        @Test
+        @DisplayName("BOOLEAN 维度记录匹配函数调用次数，树匹配同样统计")
+        void testPredicateRecord() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> booleanFunctions = new ArrayList<>(functions);
+            booleanFunctions.set(0, PriorityMatchFunction.ofBoolean("region", 0, TestSource::getRegion, TestConfig::getRegion, String::startsWith));
+            List<PriorityMatchProcessor<TestSource, TestConfig, String>> processors = PriorityMode.NUMBER_OF_MATCHES.initPriorityHandlerList(booleanFunctions);
+            List<PriorityMatchRecord> recordList = new ArrayList<>();
+            PriorityFetcher<TestSource, TestConfig, String> levelFetcher = PriorityFetcher.from(processors, configs, booleanFunctions)
+                    .pruning()
+                    .matchListener(recordList::add);
+            PriorityFetcher<TestSource, TestConfig, String> treeFetcher = PriorityFetcher.from(processors, configs, booleanFunctions)
+                    .pruning()
+                    .tree()
+                    .matchListener(recordList::add);
+
+            TestSource source = new TestSource("US-west", "premium", "electronics", "phone");
+            assertEquals("US-Premium-Electronics-Phone", levelFetcher.match(source).getResult().get(0).getValue());
+            PriorityMatchRecord record = recordList.get(0);
+            // 根节点的3个地区逐个调用匹配函数，其余维度为相等匹配
+            assertEquals(3, record.getPredicateCount());
+            assertEquals(4, record.getNodeCount());
+
+            assertEquals("US-Premium-Electronics-Phone", treeFetcher.match(source).getResult().get(0).getValue());
+            record = recordList.get(1);
+            assertEquals(PriorityMatchEngine.TREE, record.getEngine());
+            assertTrue(record.getPredicateCount() >= 3);
+            assertEquals(1, record.getProcessorCount());
+        }
+
+        @Test
+        @DisplayName("其他引擎与缓存命中只记录耗时与结果，内置直方图汇总")
+        void testRecorder() {
+            PriorityMatchRecorder recorder = new PriorityMatchRecorder();
+            PriorityFetcher<TestSource, TestConfig, String> listenFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .pruning()
+                    .compile()
+                    .cache(100)
+                    .matchListener(recorder);
+            assertSame(recorder, listenFetcher.getMatchListener());
+            String[] regions = {"US", "EU", "CN", "JP"};
+            for (int i = 0; i < 100; i++) {
+                listenFetcher.match(new TestSource(regions[i % regions.length], "premium", null, null));
+            }
+
+            PriorityMatchRecorder.Histogram latency = recorder.getLatency();
+            assertEquals(100, latency.getCount());
+            assertEquals(96, recorder.getCacheHitCount());
+            assertEquals(25, recorder.getMissLatency().getCount());
+            assertEquals(0, recorder.getNodeCount().getCount());
+            assertEquals(2, recorder.getWinnerLatency().size());
+            assertTrue(latency.getPercentile(50) <= latency.getPercentile(99));
+            assertTrue(latency.getPercentile(99) <= latency.getMax());
+            assertEquals(latency.getMax(), latency.getPercentile(100));
+            assertTrue(latency.getMean() > 0);
+            assertThrows(IllegalArgumentException.class, () -> latency.getPercentile(101));
+
+            listenFetcher.matchListener(PriorityMatchListener.noop());
+            listenFetcher.match(new TestSource("US", null, null, null));
+            assertSame(PriorityMatchListener.noop(), listenFetcher.getMatchListener());
+            assertEquals(100, latency.getCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("维度缺失跳过测试")
+    class PresenceMaskTests {
+
+        @Test
+        @DisplayName("Processor与Processor树节点预先计算维度掩码")
+        void testDimensionMask() {
+            List<PriorityMatchProcessor<TestSource, TestConfig, String>> processors = fetcher.getProcessorList();
+            assertEquals(0b1111L, processors.get(0).getDimensionMask());
+            assertEquals(0b0011L, processors.get(2).getDimensionMask());
+            assertEquals(0b0001L, processors.get(3).getDimensionMask());
+
+            PriorityMatchProcessorTree<TestSource, TestConfig, String> region = PriorityMatchProcessorTree.build(processors)
+                    .getPriorityMatchFunctionTree().values().iterator().next();
+            assertEquals(0b0001L, region.getDimensionMask());
+            for (PriorityMatchProcessorTree<TestSource, TestConfig, String> child : region.getPriorityMatchFunctionTree().values()) {
+                assertEquals(child.isBottom() ? 0b0001L : 0b0011L, child.getDimensionMask());
+            }
+        }
+
+        @Test
+        @DisplayName("缺少维度的Processor与树分支不再查找优先级树")
+        void testSkipMissingDimension() {
+            List<PriorityMatchRecord> recordList = new ArrayList<>();
+            PriorityFetcher<TestSource, TestConfig, String> levelFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .matchListener(recordList::add);
+            PriorityFetcher<TestSource, TestConfig, String> treeFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .tree()
+                    .matchListener(recordList::add);
+            TestSource source = new TestSource("US", "", null, null);
+
+            assertEquals("US", levelFetcher.match(source).getResult().get(0).getValue());
+            assertEquals(4, recordList.get(0).getProcessorCount());
+            assertEquals(3, recordList.get(0).getFilteredProcessorCount());
+            assertEquals(1, recordList.get(0).getNodeCount());
+
+            // tier 分支整体跳过，只匹配 region 节点与 region 叶子
+            assertEquals("US", treeFetcher.match(source).getResult().get(0).getValue());
+            assertEquals(2, recordList.get(1).getNodeCount());
+            assertNull(treeFetcher.match(new TestSource(null, "premium", "electronics", "phone")));
+        }
+
+        @Test
+        @DisplayName("各引擎跳过缺失维度后结果一致")
+        void testEngineConsistency() {
+            List<PriorityFetcher<TestSource, TestConfig, String>> fetcherList = Arrays.asList(
+                    PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).pruning().compile(),
+                    PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).pruning().bitmap(),
+                    PriorityFetcher.from(fetcher.getProcessorList(), configs, functions, true).pruning().dictionary(),
+                    PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).pruning().freeze(),
+                    PriorityFetcher.from(fetcher.getProcessorList(), configs, functions).pruning().tree().freeze());
+            String[] regions = {"US", "EU", "CN", null};
+            String[] tiers = {"premium", "basic", "", null};
+            String[] categories = {"electronics", "clothing", null};
+            String[] products = {"phone", "shirt", null};
+            for (String region : regions) {
+                for (String tier : tiers) {
+                    for (String category : categories) {
+                        for (String product : products) {
+                            TestSource source = new TestSource(region, tier, category, product);
+                            String expected = String.valueOf(fetcher.match(source));
+                            for (PriorityFetcher<TestSource, TestConfig, String> engineFetcher : fetcherList) {
+                                assertEquals(expected, String.valueOf(engineFetcher.match(source)));
+                            }
+                            assertEquals(fetcher.match(source, true).toString(), fetcherList.get(0).match(source, true).toString());
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * 维度按 tier、region 的顺序加入，优先级为 region=0、tier=1
+         */
+        private PriorityAssembler<TestSource, TestConfig, String> reversedAssembler() {
+            return PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                    .add(PriorityMatchFunction.of("tier", 1, TestSource::getTier, TestConfig::getTier))
+                    .add(PriorityMatchFunction.of("region", 0, TestSource::getRegion, TestConfig::getRegion))
+                    .initConfig(configs);
+        }
+
+        @Test
+        @DisplayName("维度加入顺序与优先级不同时按优先级判断维度是否缺失")
+        void testPriorityOutOfListOrder() {
+            PriorityFetcher<TestSource, TestConfig, String> expectedFetcher = PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                    .addPriorityMatchFunction("region", TestSource::getRegion, TestConfig::getRegion)
+                    .addPriorityMatchFunction("tier", TestSource::getTier, TestConfig::getTier)
+                    .initConfig(configs)
+                    .create();
+            List<PriorityFetcher<TestSource, TestConfig, String>> fetcherList = Arrays.asList(
+                    reversedAssembler().create(),
+                    reversedAssembler().initMatchEngine(PriorityMatchEngine.TREE).create(),
+                    reversedAssembler().initMatchEngine(PriorityMatchEngine.COMPILED).create());
+            TestSource source = new TestSource("US", "premium", null, null);
+            // 只有 region、tier 两个维度，US/premium 下的三条配置在同一个叶子上
+            assertEquals(Arrays.asList("US-Premium-Electronics-Phone", "US-Premium-Electronics", "US-Premium", "US"),
+                    values(expectedFetcher.match(source, true)));
+            for (String region : new String[]{"US", "EU", "CN", null}) {
+                for (String tier : new String[]{"premium", "basic", null}) {
+                    TestSource tierSource = new TestSource(region, tier, null, null);
+                    for (PriorityFetcher<TestSource, TestConfig, String> reversedFetcher : fetcherList) {
+                        assertEquals(values(expectedFetcher.match(tierSource, true)), values(reversedFetcher.match(tierSource, true)));
+                    }
+                }
+            }
+            PriorityMatchExplain explain = fetcherList.get(0).explain(source);
+            List<?> explainResult = (List<?>) explain.getResultList().get(0).getResult();
+            assertEquals(3, explainResult.size());
+        }
+
+        @Test
+        @DisplayName("非相等匹配维度加入顺序与优先级不同时各引擎按优先级取维度")
+        void testEnginePriorityOutOfListOrder() {
+            // region 为前缀匹配且先加入，优先级却在 tier 之后
+            List<PriorityFetcher<TestSource, TestConfig, String>> fetcherList = Arrays.asList(
+                    prefixAssembler().initMatchEngine(PriorityMatchEngine.TREE).create(),
+                    prefixAssembler().initMatchEngine(PriorityMatchEngine.BITMAP).create(),
+                    prefixAssembler().initMatchEngine(PriorityMatchEngine.COMPILED).create(),
+                    prefixAssembler().initMatchEngine(PriorityMatchEngine.DICTIONARY).create(),
+                    prefixAssembler().create().freeze());
+            PriorityFetcher<TestSource, TestConfig, String> expectedFetcher = prefixAssembler().create();
+            assertTrue(values(expectedFetcher.match(new TestSource("USA", "premium", null, null), true)).contains("US-Premium"));
+            for (String region : new String[]{"US", "USA", "EU-West", "CN", null}) {
+                for (String tier : new String[]{"premium", "basic", null}) {
+                    TestSource source = new TestSource(region, tier, null, null);
+                    for (PriorityFetcher<TestSource, TestConfig, String> engineFetcher : fetcherList) {
+                        assertEquals(values(expectedFetcher.match(source, true)), values(engineFetcher.match(source, true)));
+                    }
+                }
+            }
+        }
+
+        /**
+         * 维度按 region、tier 的顺序加入，region 为前缀匹配，优先级为 tier=0、region=1
+         */
+        private PriorityAssembler<TestSource, TestConfig, String> prefixAssembler() {
+            return PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                    .add(PriorityMatchFunction.ofPrefix("region", 1, TestSource::getRegion, TestConfig::getRegion))
+                    .add(PriorityMatchFunction.of("tier", 0, TestSource::getTier, TestConfig::getTier))
+                    .initConfig(configs);
+        }
+    }
+
+    @Nested
+    @DisplayName("匹配过程解释测试")
+    class ExplainTests {
+
+        @Test
+        @DisplayName("解释结果与逐层匹配一致")
+        void testExplainConsistency() {
+            PriorityFetcher<TestSource, TestConfig, String> compiledFetcher = PriorityFetcher.from(fetcher.getProcessorList(), configs, functions)
+                    .pruning()
+                    .compile();
+            String[] regions = {"US", "EU", "CN", "JP", null};
+            String[] tiers = {"premium", "basic", null};
+            String[] categories = {"electronics", "clothing", null};
+            for (String region : regions) {
+                for (String tier : tiers) {
+                    for (String category : categories) {
+                        TestSource source = new TestSource(region, tier, category, "phone");
+                        assertEquals(fetcher.match(source, true).toString(), fetcher.explain(source, true).getResultList().toString());
+                        assertEquals(String.valueOf(compiledFetcher.match(source)),
+                                String.valueOf(compiledFetcher.explain(source).getResultList().stream().findFirst().orElse(null)));
+                    }
+                }
+            }
+            assertEquals(PriorityMatchEngine.COMPILED, compiledFetcher.explain(new TestSource("US", null, null, null)).getEngine());
+            assertThrows(UnsupportedOperationException.class,
+                    () -> compiledFetcher.freeze().explain(new TestSource("US", null, null, null)));
+        }
+
+        @Test
+        @DisplayName("记录每个Processor经过的节点、候选key与停止位置")
+        void testExplainTrace() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> booleanFunctions = new ArrayList<>(functions);
+            booleanFunctions.set(0, PriorityMatchFunction.ofBoolean("region", 0, TestSource::getRegion, TestConfig::getRegion, String::startsWith));
+            PriorityFetcher<TestSource, TestConfig, String> booleanFetcher = PriorityFetcher.from(
+                    PriorityMode.NUMBER_OF_MATCHES.initPriorityHandlerList(booleanFunctions), configs, booleanFunctions).pruning();
+
+            PriorityMatchExplain explain = booleanFetcher.explain(new TestSource("US-west", "basic", null, null));
+            assertEquals("US-west", explain.getDimensionList().get(0).getSourceKey());
+            assertNull(explain.getDimensionList().get(2).getSourceKey());
+            assertEquals(3, explain.getStopLevel());
+            assertEquals("US", ((TestConfig) ((List<?>) explain.getResultList().get(0).getResult()).get(0)).getValue());
+
+            List<PriorityMatchExplain.ProcessorTrace> processorList = explain.getProcessorList();
+            assertEquals(4, processorList.size());
+            // 需求没有 category, 包含该维度的Processor直接跳过
+            assertEquals("region_tier_category_product", processorList.get(0).getName());
+            assertTrue(processorList.get(0).isFiltered());
+            assertTrue(processorList.get(1).isFiltered());
+            assertTrue(processorList.get(1).getStepList().isEmpty());
+            // 地区为 BOOLEAN 维度，根节点的3个key逐个调用匹配函数
+            PriorityMatchExplain.ProcessorTrace tierTrace = processorList.get(2);
+            assertEquals("region_tier", tierTrace.getName());
+            PriorityMatchExplain.Step regionStep = tierTrace.getStepList().get(0);
+            assertEquals(3, regionStep.getNodeKeyCount());
+            assertEquals(3, regionStep.getPredicateCount());
+            assertEquals(Collections.singletonList("US"), regionStep.getMatchedKeyList());
+            assertFalse(regionStep.isLeaf());
+            // US 下没有 basic, 叶子未命中
+            PriorityMatchExplain.Step tierStep = tierTrace.getStepList().get(1);
+            assertEquals(1, tierStep.getDepth());
+            assertTrue(tierStep.isLeaf());
+            assertEquals(Collections.singletonList("US"), tierStep.getPath());
+            assertEquals("basic", tierStep.getSourceKey());
+            assertEquals(1, tierStep.getMissCount());
+            assertEquals(2, tierTrace.getStepList().size());
+            assertEquals(0, tierTrace.getResultCount());
+            assertFalse(tierTrace.isStopped());
+
+            PriorityMatchExplain.ProcessorTrace regionTrace = processorList.get(3);
+            assertEquals("region", regionTrace.getName());
+            assertTrue(regionTrace.isStopped());
+            assertEquals(1, regionTrace.getResultCount());
+            assertTrue(regionTrace.getStepList().get(0).isLeaf());
+            assertTrue(explain.format().contains("[3] region results=1 stopped"));
+        }
+    }
+
+    @Nested
+    @DisplayName("并行构建测试")
+    class ParallelBuildTests {
+
+        private ForkJoinPool pool;
+
+        @BeforeEach
+        void setUpPool() {
+            pool = new ForkJoinPool(4);
+        }
+
+        @AfterEach
+        void tearDownPool() {
+            pool.shutdownNow();
+        }
+
+        /**
+         * tier 为任意key都命中的BOOLEAN维度，结果顺序依赖节点上key的顺序
+         */
+        private List<PriorityMatchFunction<TestSource, TestConfig, String>> buildFunctions() {
+            return Arrays.asList(
+                    PriorityMatchFunction.of("region", 0, TestSource::getRegion, TestConfig::getRegion),
+                    PriorityMatchFunction.ofBoolean("tier", 1, TestSource::getTier, TestConfig::getTier, (source, config) -> true),
+                    PriorityMatchFunction.of("category", 2, TestSource::getCategory, TestConfig::getCategory),
+                    PriorityMatchFunction.of("product", 3, TestSource::getProduct, TestConfig::getProduct)
+            );
+        }
+
+        private List<PriorityMatchProcessor<TestSource, TestConfig, String>> processors(List<PriorityMatchFunction<TestSource, TestConfig, String>> functionList) {
+            List<PriorityMatchProcessor<TestSource, TestConfig, String>> processors = new ArrayList<>();
+            for (int mask = (1 << functionList.size()) - 1; mask > 0; mask--) {
+                List<PriorityMatchFunction<TestSource, TestConfig, String>> processorFunctions = new ArrayList<>();
+                for (int i = 0; i < functionList.size(); i++) {
+                    if ((mask & (1 << i)) != 0) {
+                        processorFunctions.add(functionList.get(i));
+                    }
+                }
+                processors.add(new PriorityMatchProcessor<>(processorFunctions));
+            }
+            return processors;
+        }
+
+        @Test
+        @DisplayName("并行构建与单线程构建的匹配结果和顺序一致")
+        void testSameAsSequential() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> functionList = buildFunctions();
+            List<TestConfig> configList = randomConfigs(new Random(30000), 30000, "v");
+            PriorityFetcher<TestSource, TestConfig, String> sequential = PriorityFetcher.from(processors(functionList), configList, functionList);
+            PriorityFetcher<TestSource, TestConfig, String> parallel = PriorityFetcher.fromParallel(processors(functionList), configList, functionList, false, pool);
+
+            assertEquals(matchAll(sequential), matchAll(parallel));
+            assertEquals(matchAll(sequential.tree()), matchAll(parallel.tree()));
+
+            PriorityFetcherStats sequentialStats = sequential.stats();
+            PriorityFetcherStats parallelStats = parallel.stats();
+            assertEquals(sequentialStats.getConfigCount(), parallelStats.getConfigCount());
+            assertEquals(sequentialStats.getNodeCount(), parallelStats.getNodeCount());
+            assertEquals(sequentialStats.getLeafCount(), parallelStats.getLeafCount());
+        }
+
+        @Test
+        @DisplayName("剪枝与命中统计使用的配置数量一致")
+        void testUseRecord() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> functionList = buildFunctions();
+            List<TestConfig> configList = randomConfigs(new Random(20000), 20000, "v");
+            PriorityFetcher<TestSource, TestConfig, String> sequential = PriorityFetcher.from(processors(functionList), configList, functionList).pruning();
+            PriorityFetcher<TestSource, TestConfig, String> parallel = PriorityFetcher.fromParallel(processors(functionList), configList, functionList, false, pool).pruning();
+
+            assertEquals(sequential.getProcessorList(), parallel.getProcessorList());
+            sequential.recordHits(true);
+            parallel.recordHits(true);
+            for (PriorityHitStats.ProcessorHit processorHit : sequential.getHitStats().getProcessorList()) {
+                PriorityHitStats.ProcessorHit parallelHit = parallel.getHitStats().getProcessorList().stream()
+                        .filter(hit -> hit.getUniqueId().equals(processorHit.getUniqueId()))
+                        .findFirst()
+                        .orElseThrow(AssertionError::new);
+                assertEquals(processorHit.getConfigCount(), parallelHit.getConfigCount());
+            }
+        }
+
+        @Test
+        @DisplayName("开启字典时共享key实例，字典匹配结果一致")
+        void testDictionary() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> functionList = Arrays.asList(
+                    PriorityMatchFunction.of("region", 0, TestSource::getRegion, TestConfig::getRegion),
+                    PriorityMatchFunction.of("tier", 1, TestSource::getTier, TestConfig::getTier),
+                    PriorityMatchFunction.of("category", 2, TestSource::getCategory, TestConfig::getCategory),
+                    PriorityMatchFunction.of("product", 3, TestSource::getProduct, TestConfig::getProduct)
+            );
+            // 每条配置使用新的字符串实例
+            List<TestConfig> configList = new ArrayList<>();
+            for (TestConfig config : randomConfigs(new Random(20000), 20000, "v")) {
+                configList.add(new TestConfig(copy(config.getRegion()), copy(config.getTier()), copy(config.getCategory()),
+                        copy(config.getProduct()), config.getValue(), 0));
+            }
+            PriorityFetcher<TestSource, TestConfig, String> sequential = PriorityFetcher.from(processors(functionList), configList, functionList, true).dictionary();
+            PriorityFetcher<TestSource, TestConfig, String> parallel = PriorityFetcher.fromParallel(processors(functionList), configList, functionList, true, pool);
+            assertEquals(sequential.stats().getKeyCount(), parallel.stats().getKeyCount());
+            parallel.dictionary();
+
+            assertEquals(matchAll(sequential), matchAll(parallel));
+        }
+
+        private String copy(String value) {
+            return value == null ? null : new String(value);
+        }
+
+        @Test
+        @DisplayName("配置较少或单线程时退化为单线程构建")
+        void testSmallConfigList() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> functionList = buildFunctions();
+            List<TestConfig> configList = randomConfigs(new Random(100), 100, "v");
+            PriorityFetcher<TestSource, TestConfig, String> sequential = PriorityFetcher.from(processors(functionList), configList, functionList);
+            assertEquals(matchAll(sequential),
+                    matchAll(PriorityFetcher.fromParallel(processors(functionList), configList, functionList, false, pool)));
+            ForkJoinPool singlePool = new ForkJoinPool(1);
+            try {
+                assertEquals(matchAll(sequential),
+                        matchAll(PriorityFetcher.fromParallel(processors(functionList), randomConfigs(new Random(100), 100, "v"), functionList, false, singlePool)));
+            } finally {
+                singlePool.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("配置获取key异常时抛出")
+        void testConfigGetterException() {
+            List<PriorityMatchFunction<TestSource, TestConfig, String>> functionList = Collections.singletonList(
+                    PriorityMatchFunction.of("region", 0, TestSource::getRegion, config -> {
+                        if ("v15000".equals(config.getValue())) {
+                            throw new IllegalStateException("broken config");
+                        }
+                        return config.getRegion();
+                    }));
+            List<TestConfig> configList = randomConfigs(new Random(20000), 20000, "v");
+            // 异常在其他线程抛出时 ForkJoinPool 会包装一个同类型的异常，原异常为 cause
+            IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> PriorityFetcher.fromParallel(processors(functionList), configList, functionList, false, pool));
+            assertTrue(exception.getMessage().contains("broken config"));
+        }
+
+        @Test
+        @DisplayName("装配器使用线程池构建")
+        void testAssembler() {
+            PriorityAssembler<TestSource, TestConfig, String> assembler = PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                    .addPriorityMatchFunction("region", TestSource::getRegion, TestConfig::getRegion)
+                    .addPriorityMatchFunction("tier", TestSource::getTier, TestConfig::getTier)
+                    .initConfig(randomConfigs(new Random(20000), 20000, "v"));
+            PriorityFetcher<TestSource, TestConfig, String> sequential = assembler.create();
+            PriorityFetcher<TestSource, TestConfig, String> parallel = assembler.initBuildPool(pool).create();
+            assertEquals(matchAll(sequential), matchAll(parallel));
+        }
+    }
+
+    @Nested
+    @DisplayName("流式构建测试")
+    class StreamingTests {
+
+        private TestConfig config(int i) {
+            Random random = new Random(i);
+            return new TestConfig(REGIONS[random.nextInt(REGIONS.length)], TIERS[random.nextInt(TIERS.length)],
+                    null, null, "v" + i, 0);
+        }
+
+        private PriorityAssembler<TestSource, TestConfig, String> assembler() {
+            return PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                    .addPriorityMatchFunction("region", TestSource::getRegion, TestConfig::getRegion)
+                    .addPriorityMatchFunction("tier", TestSource::getTier, TestConfig::getTier);
+        }
+
+        @Test
+        @DisplayName("Stream/Iterator/Spliterator 与集合构建结果一致")
+        void testSameAsList() {
+            List<TestConfig> configList = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                configList.add(config(i));
+            }
+            List<String> expected = matchAll(assembler().initConfig(configList).create());
+
+            assertEquals(expected, matchAll(assembler().initConfig(IntStream.range(0, 1000).mapToObj(this::config)).create()));
+            assertEquals(expected, matchAll(assembler().initConfig(configList.iterator()).create()));
+            assertEquals(expected, matchAll(assembler().initConfig(configList.spliterator()).create()));
+
+            List<PriorityMatchProcessor<TestSource, TestConfig, String>> processorList = fetcher.getProcessorList();
+            assertEquals(matchAll(PriorityFetcher.from(processorList, configList, functions)),
+                    matchAll(PriorityFetcher.from(processorList, configList.iterator(), functions, false)));
+        }
+
+        @Test
+        @DisplayName("迭代器只读取一次，只能创建一次")
+        void testIteratorConsumedOnce() {
+            int[] readCount = new int[1];
+            Iterator<TestConfig> configIterator = IntStream.range(0, 100)
+                    .mapToObj(i -> {
+                        readCount[0]++;
+                        return config(i);
+                    })
+                    .iterator();
+            PriorityAssembler<TestSource, TestConfig, String> assembler = assembler().initConfig(configIterator);
+            assertEquals(0, readCount[0]);
+            PriorityFetcher<TestSource, TestConfig, String> streamFetcher = assembler.create();
+            assertEquals(100, readCount[0]);
+            // 全部维度为空的配置不会挂到树上
+            long expectedCount = IntStream.range(0, 100)
+                    .mapToObj(this::config)
+                    .filter(config -> config.getRegion() != null || config.getTier() != null)
+                    .count();
+            assertEquals(expectedCount, streamFetcher.stats().getConfigCount());
+            assertThrows(NullPointerException.class, assembler::create);
+        }
+
+        @Test
+        @DisplayName("流式并行构建与单线程构建的结果和顺序一致")
+        void testParallel() {
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                List<TestConfig> configList = new ArrayList<>();
+                for (int i = 0; i < 50000; i++) {
+                    configList.add(config(i));
+                }
+                PriorityAssembler<TestSource, TestConfig, String> assembler = assembler();
+                List<String> expected = matchAll(assembler.initConfig(configList).create());
+                assertEquals(expected, matchAll(assembler.initConfig(configList.stream()).initBuildPool(pool).create()));
+                assertEquals(expected, matchAll(assembler.initConfig(configList.stream()).initMatchEngine(PriorityMatchEngine.DICTIONARY).create()));
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("流式并行构建时未合并的分片有上限，构建慢于读取时读取线程等待")
+        void testParallelBackpressure() {
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                // 流式分片大小为 16384, 并行度为2时最多4个未合并分片
+                int chunkSize = 16384;
+                int configCount = chunkSize * 8;
+                CountDownLatch gate = new CountDownLatch(1);
+                AtomicInteger readCount = new AtomicInteger();
+                AtomicInteger builtCount = new AtomicInteger();
+                int[] maxAhead = new int[1];
+                Iterator<TestConfig> configIterator = IntStream.range(0, configCount)
+                        .mapToObj(i -> {
+                            maxAhead[0] = Math.max(maxAhead[0], readCount.incrementAndGet() - builtCount.get());
+                            return config(i);
+                        })
+                        .iterator();
+                // 分片构建先被阻塞一段时间，没有上限时读取线程会在此期间读完全部配置
+                PriorityFetcher<TestSource, TestConfig, String> streamFetcher = PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                        .addPriorityMatchFunction("region", TestSource::getRegion, config -> {
+                            awaitGate(gate);
+                            builtCount.incrementAndGet();
+                            return config.getRegion();
+                        })
+                        .addPriorityMatchFunction("tier", TestSource::getTier, TestConfig::getTier)
+                        .initConfig(configIterator)
+                        .initBuildPool(pool)
+                        .create();
+                assertTrue(maxAhead[0] <= chunkSize * 5, "read ahead " + maxAhead[0]);
+                assertEquals(matchAll(assembler().initConfig(IntStream.range(0, configCount).mapToObj(this::config)).create()),
+                        matchAll(streamFetcher));
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        private void awaitGate(CountDownLatch gate) {
+            try {
+                if (!gate.await(500, TimeUnit.MILLISECONDS)) {
+                    gate.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Test
+        @DisplayName("读取配置异常时抛出原异常")
+        void testReadException() {
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                IllegalStateException readException = new IllegalStateException("read failed");
+                Iterator<TestConfig> configIterator = IntStream.range(0, 40000)
+                        .mapToObj(i -> {
+                            if (i == 30000) {
+                                throw readException;
+                            }
+                            return config(i);
+                        })
+                        .iterator();
+                assertSame(readException, assertThrows(IllegalStateException.class,
+                        () -> assembler().initConfig(configIterator).initBuildPool(pool).create()));
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("布隆过滤器测试")
+    class BloomFilterTests {
+
+        private PriorityFetcher<TestSource, TestConfig, String> create(List<TestConfig> configList, BiPredicate<String, String> keyMatch) {
+            // 相等匹配的维度生成布隆过滤器，BOOLEAN 维度不生成
+            PriorityAssembler<TestSource, TestConfig, String> assembler = PriorityAssembler.from(TestSource.class, TestConfig.class, String.class)
+                    .initConfig(configList)
+                    .initPriorityHandler(PriorityMode.NUMBER_OF_MATCHES);
+            List<Function<TestSource, String>> sourceGetters = Arrays.asList(TestSource::getRegion, TestSource::getTier, TestSource::getCategory, TestSource::getProduct);
+            List<Function<TestConfig, String>> configGetters = Arrays.asList(TestConfig::getRegion, TestConfig::getTier, TestConfig::getCategory, TestConfig::getProduct);
+            for (int i = 0; i < sourceGetters.size(); i++) {
+                if (keyMatch == null) {
+                    assembler.addPriorityMatchFunction("d" + i, sourceGetters.get(i), configGetters.get(i));
+                } else {
+                    assembler.addPriorityMatchFunction("d" + i, sourceGetters.get(i), configGetters.get(i), keyMatch);
+                }
+            }
+            return assembler.create();
+        }
+
+        @RepeatedTest(3)
+        @DisplayName("跳过Processor后与逐个判断的结果一致")
+        void testBloomFilterConsistency() {
+            String[] regions = {"US", "EU", "CN", "JP", null};
+            String[] tiers = {"premium", "basic", "gold", null};
+            String[] categories = {"electronics", "clothing", "food", null};
+            String[] products = {"phone", "shirt", "tablet", "phone-x", null};
+            Random random = new Random();
+            List<TestConfig> configList = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                configList.add(new TestConfig(regions[random.nextInt(regions.length)], tiers[random.nextInt(tiers.length)],
+                        categories[random.nextInt(categories.length)], products[random.nextInt(products.length)], "config_" + i, 0));
+            }
+            PriorityFetcher<TestSource, TestConfig, String> bloomFetcher = create(configList, null);
+            PriorityFetcher<TestSource, TestConfig, String> booleanFetcher = create(configList, String::equals);
+            for (int i = 0; i < 1000; i++) {
+                TestSource source = new TestSource(regions[random.nextInt(regions.length)], tiers[random.nextInt(tiers.length)],
+                        categories[random.nextInt(categories.length)], products[random.nextInt(products.length)]);
+                List<PriorityMatchResult<List<TestConfig>>> expected = booleanFetcher.match(source, true);
+                List<PriorityMatchResult<List<TestConfig>>> actual = bloomFetcher.match(source, true);
+                assertEquals(expected.size(), actual.size());
+                for (int j = 0; j < expected.size(); j++) {
+                    assertEquals(expected.get(j).getName(), actual.get(j).getName());
+                    assertEquals(expected.get(j).getResult(), actual.get(j).getResult());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("增量新增新路径后过滤器仍然生效，原对象的过滤器不变")
+        void testBloomFilterAfterAdd() {
+            TestSource missing = new TestSource("JP", "premium", "electronics", "phone");
+            TestSource added = new TestSource("KR", "gold", "food", "apple");
+            assertTrue(fetcher.explain(missing).getProcessorList().get(0).isFiltered());
+
+            PriorityFetcher<TestSource, TestConfig, String> next = fetcher.withConfigsAdded(Arrays.asList(
+                    new TestConfig("KR", "gold", "food", "apple", "KR-Gold-Food-Apple", 100),
+                    new TestConfig("KR", "gold", "food", "pear", "KR-Gold-Food-Pear", 100)));
+            assertTrue(next.explain(missing).getProcessorList().get(0).isFiltered());
+            assertFalse(next.explain(added).getProcessorList().get(0).isFiltered());
+            assertEquals("KR-Gold-Food-Apple", next.match(added).getResult().get(0).getValue());
+            assertEquals("KR-Gold-Food-Pear", next.match(new TestSource("KR", "gold", "food", "pear")).getResult().get(0).getValue());
+            assertTrue(fetcher.explain(added).getProcessorList().get(0).isFiltered());
+        }
     }
 
     @Nested